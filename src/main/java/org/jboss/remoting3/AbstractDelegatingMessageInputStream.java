@@ -78,6 +78,14 @@ public abstract class AbstractDelegatingMessageInputStream extends MessageInputS
         return delegate.readLong();
     }
 
+    public int readPackedUnsignedInt31() throws IOException {
+        return delegate.readPackedUnsignedInt31();
+    }
+
+    public int readPackedUnsignedInt32() throws IOException {
+        return delegate.readPackedUnsignedInt32();
+    }
+
     public float readFloat() throws IOException {
         return delegate.readFloat();
     }
@@ -73,6 +73,14 @@ public abstract class AbstractDelegatingMessageOutputStream extends MessageOutpu
         delegate.writeLong(v);
     }
 
+    public void writePackedUnsignedInt31(final int v) throws IOException {
+        delegate.writePackedUnsignedInt31(v);
+    }
+
+    public void writePackedUnsignedInt32(final int v) throws IOException {
+        delegate.writePackedUnsignedInt32(v);
+    }
+
     public void writeFloat(final float v) throws IOException {
         delegate.writeFloat(v);
     }
@@ -18,54 +18,181 @@
 
 package org.jboss.remoting3;
 
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.wildfly.common.Assert;
 
 /**
- * A set of attachments for an entity.
+ * A set of attachments for an entity.  Each key has a small integer index, and values are stored in lazily allocated
+ * slot arrays indexed by key, so retrieving an attachment is an array read and an entity with no attachments holds no
+ * storage.  Keys created beyond the first {@code 64} are stored in a lazily allocated map instead, so that the slot
+ * arrays stay small however many keys an application creates.
  */
 public final class Attachments {
-    private final ConcurrentMap<Key<?>, Object> map = new ConcurrentHashMap<Key<?>, Object>();
+    private static final int CHUNK_SHIFT = 3;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    static final int MAX_INDEXED = 64;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final AtomicReferenceArray<Object>[] NO_CHUNKS = new AtomicReferenceArray[0];
+
+    // chunks are only ever installed (never moved or removed) under this object's monitor, so CAS on a slot is never lost
+    private volatile AtomicReferenceArray<Object>[] chunks = NO_CHUNKS;
+    // for keys at or above MAX_INDEXED; installed once under this object's monitor
+    private volatile ConcurrentMap<Key<?>, Object> map;
 
     /** {@inheritDoc} */
     public <T> T attach(final Key<T> key, final T value) {
         final Class<T> type = key.getType();
-        return type.cast(map.put(key, type.cast(value)));
+        Assert.checkNotNullParam("value", value);
+        if (key.index >= MAX_INDEXED) {
+            return type.cast(getOrCreateMap().put(key, type.cast(value)));
+        }
+        return type.cast(getOrCreateChunk(key.index).getAndSet(key.index & CHUNK_MASK, type.cast(value)));
     }
 
     /** {@inheritDoc} */
     public <T> T attachIfAbsent(final Key<T> key, final T value) {
         final Class<T> type = key.getType();
-        return type.cast(map.putIfAbsent(key, type.cast(value)));
+        Assert.checkNotNullParam("value", value);
+        final Object castValue = type.cast(value);
+        if (key.index >= MAX_INDEXED) {
+            return type.cast(getOrCreateMap().putIfAbsent(key, castValue));
+        }
+        final AtomicReferenceArray<Object> chunk = getOrCreateChunk(key.index);
+        final int slot = key.index & CHUNK_MASK;
+        Object existing;
+        do {
+            existing = chunk.get(slot);
+            if (existing != null) {
+                return type.cast(existing);
+            }
+        } while (! chunk.compareAndSet(slot, null, castValue));
+        return null;
     }
 
     /** {@inheritDoc} */
     public <T> boolean replaceAttachment(final Key<T> key, final T expect, final T replacement) {
-        return map.replace(key, expect, key.getType().cast(replacement));
+        Assert.checkNotNullParam("replacement", replacement);
+        final Object castReplacement = key.getType().cast(replacement);
+        if (key.index >= MAX_INDEXED) {
+            final ConcurrentMap<Key<?>, Object> map = this.map;
+            return map != null && expect != null && map.replace(key, expect, castReplacement);
+        }
+        final AtomicReferenceArray<Object> chunk = getChunk(key.index);
+        if (chunk == null) {
+            return false;
+        }
+        final int slot = key.index & CHUNK_MASK;
+        Object existing;
+        do {
+            existing = chunk.get(slot);
+            if (existing == null || ! existing.equals(expect)) {
+                return false;
+            }
+        } while (! chunk.compareAndSet(slot, existing, castReplacement));
+        return true;
     }
 
     /** {@inheritDoc} */
     public <T> T removeAttachment(final Key<T> key) {
-        return key.getType().cast(map.remove(key));
+        if (key.index >= MAX_INDEXED) {
+            final ConcurrentMap<Key<?>, Object> map = this.map;
+            return map == null ? null : key.getType().cast(map.remove(key));
+        }
+        final AtomicReferenceArray<Object> chunk = getChunk(key.index);
+        return chunk == null ? null : key.getType().cast(chunk.getAndSet(key.index & CHUNK_MASK, null));
     }
 
     /** {@inheritDoc} */
     public <T> boolean removeAttachment(final Key<T> key, final T value) {
-        return map.remove(key, value);
+        if (value == null) {
+            return false;
+        }
+        if (key.index >= MAX_INDEXED) {
+            final ConcurrentMap<Key<?>, Object> map = this.map;
+            return map != null && map.remove(key, value);
+        }
+        final AtomicReferenceArray<Object> chunk = getChunk(key.index);
+        if (chunk == null) {
+            return false;
+        }
+        final int slot = key.index & CHUNK_MASK;
+        Object existing;
+        do {
+            existing = chunk.get(slot);
+            if (existing == null || ! existing.equals(value)) {
+                return false;
+            }
+        } while (! chunk.compareAndSet(slot, existing, null));
+        return true;
     }
 
     /** {@inheritDoc} */
     public <T> T getAttachment(final Key<T> key) {
-        return key.getType().cast(map.get(key));
+        if (key.index >= MAX_INDEXED) {
+            final ConcurrentMap<Key<?>, Object> map = this.map;
+            return map == null ? null : key.getType().cast(map.get(key));
+        }
+        final AtomicReferenceArray<Object> chunk = getChunk(key.index);
+        return chunk == null ? null : key.getType().cast(chunk.get(key.index & CHUNK_MASK));
+    }
+
+    private AtomicReferenceArray<Object> getChunk(final int index) {
+        final AtomicReferenceArray<Object>[] chunks = this.chunks;
+        final int chunkIdx = index >>> CHUNK_SHIFT;
+        return chunkIdx < chunks.length ? chunks[chunkIdx] : null;
+    }
+
+    private AtomicReferenceArray<Object> getOrCreateChunk(final int index) {
+        final AtomicReferenceArray<Object> chunk = getChunk(index);
+        if (chunk != null) {
+            return chunk;
+        }
+        final int chunkIdx = index >>> CHUNK_SHIFT;
+        synchronized (this) {
+            AtomicReferenceArray<Object>[] chunks = this.chunks;
+            if (chunkIdx < chunks.length && chunks[chunkIdx] != null) {
+                return chunks[chunkIdx];
+            }
+            // copy on write, so that readers never observe a partially populated array
+            chunks = Arrays.copyOf(chunks, Math.max(chunks.length, chunkIdx + 1));
+            final AtomicReferenceArray<Object> newChunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+            chunks[chunkIdx] = newChunk;
+            this.chunks = chunks;
+            return newChunk;
+        }
+    }
+
+    private ConcurrentMap<Key<?>, Object> getOrCreateMap() {
+        ConcurrentMap<Key<?>, Object> map = this.map;
+        if (map == null) {
+            synchronized (this) {
+                map = this.map;
+                if (map == null) {
+                    this.map = map = new ConcurrentHashMap<>();
+                }
+            }
+        }
+        return map;
     }
 
     /**
-     * An attachment key.
+     * An attachment key.  Keys are meant to be static constants: each key created takes the next index for the life of
+     * the class loader, and only the first few keys get the array-backed fast path.  Creating a key per entity or per
+     * call works, but such keys end up in the slower map-backed storage.
      *
      * @param <T> the attachment value type
      */
     public static final class Key<T> {
+        private static final AtomicInteger nextIndex = new AtomicInteger();
+
         private final Class<T> type;
+        final int index;
 
         /**
          * Construct a new instance.
@@ -74,6 +201,9 @@ public final class Attachments {
          */
         public Key(final Class<T> type) {
             this.type = type;
+            // stop counting once past the indexed range, so the counter can never wrap around into it
+            final int next = nextIndex.get();
+            index = next < MAX_INDEXED ? nextIndex.getAndIncrement() : next;
         }
 
         /**
@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.xnio.Cancellable;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+
+/**
+ * Connects to many destinations with a bounded number of attempts in progress at once.  Each completed attempt starts
+ * the next queued one; the combined future completes once every destination has an outcome.  If the combined future is
+ * cancelled, it is marked cancelled once every attempt has stopped, and any connections which were established in the
+ * meantime are closed since nobody can retrieve them.
+ */
+final class BulkConnector implements Cancellable {
+    private final URI[] destinations;
+    private final Function<URI, IoFuture<Connection>> connectFunction;
+    private final ConnectResult[] results;
+    private final IoFuture<Connection>[] attempts;
+    private final AtomicInteger next = new AtomicInteger();
+    // count of requested starts; keeps synchronously completing attempts from recursing
+    private final AtomicInteger pendingStarts = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final FutureResult<List<ConnectResult>> futureResult;
+    private volatile boolean cancelled;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    BulkConnector(final Collection<URI> destinations, final Function<URI, IoFuture<Connection>> connectFunction, final FutureResult<List<ConnectResult>> futureResult) {
+        this.destinations = destinations.toArray(new URI[destinations.size()]);
+        this.connectFunction = connectFunction;
+        this.futureResult = futureResult;
+        results = new ConnectResult[this.destinations.length];
+        attempts = new IoFuture[this.destinations.length];
+        remaining = new AtomicInteger(this.destinations.length);
+    }
+
+    /**
+     * Connect to each of the given destinations.
+     *
+     * @param destinations the destinations
+     * @param connectFunction the function which starts a single connection attempt
+     * @param executor the executor used to run listeners on the returned future
+     * @param maxConcurrent the maximum number of concurrent connection attempts
+     * @return the future list of results
+     */
+    static IoFuture<List<ConnectResult>> connectAll(final Collection<URI> destinations, final Function<URI, IoFuture<Connection>> connectFunction, final Executor executor, final int maxConcurrent) {
+        final FutureResult<List<ConnectResult>> futureResult = new FutureResult<>(executor);
+        new BulkConnector(destinations, connectFunction, futureResult).start(maxConcurrent);
+        return futureResult.getIoFuture();
+    }
+
+    void start(final int maxConcurrent) {
+        futureResult.addCancelHandler(this);
+        if (destinations.length == 0) {
+            futureResult.setResult(new ArrayList<>());
+            return;
+        }
+        final int initial = Math.min(maxConcurrent, destinations.length);
+        for (int i = 0; i < initial; i ++) {
+            requestStart();
+        }
+    }
+
+    private void requestStart() {
+        if (pendingStarts.getAndIncrement() != 0) {
+            // the thread already starting attempts will pick this up
+            return;
+        }
+        do {
+            startNext();
+        } while (pendingStarts.decrementAndGet() != 0);
+    }
+
+    private void startNext() {
+        final int idx = next.getAndIncrement();
+        if (idx >= destinations.length) {
+            return;
+        }
+        final URI destination = destinations[idx];
+        if (cancelled) {
+            complete(idx, new ConnectResult(destination, null, null, 0L));
+            return;
+        }
+        final long start = System.nanoTime();
+        IoFuture<Connection> attempt;
+        try {
+            attempt = connectFunction.apply(destination);
+        } catch (RuntimeException e) {
+            complete(idx, new ConnectResult(destination, null, new IOException(e), System.nanoTime() - start));
+            return;
+        }
+        synchronized (attempts) {
+            attempts[idx] = attempt;
+        }
+        if (cancelled) {
+            attempt.cancel();
+        }
+        attempt.addNotifier(new IoFuture.HandlingNotifier<Connection, Void>() {
+            public void handleCancelled(final Void attachment) {
+                complete(idx, new ConnectResult(destination, null, null, System.nanoTime() - start));
+            }
+
+            public void handleFailed(final IOException exception, final Void attachment) {
+                complete(idx, new ConnectResult(destination, null, exception, System.nanoTime() - start));
+            }
+
+            public void handleDone(final Connection connection, final Void attachment) {
+                complete(idx, new ConnectResult(destination, connection, null, System.nanoTime() - start));
+            }
+        }, null);
+    }
+
+    private void complete(final int idx, final ConnectResult result) {
+        synchronized (attempts) {
+            results[idx] = result;
+            attempts[idx] = null;
+        }
+        if (remaining.decrementAndGet() == 0) {
+            if (cancelled) {
+                for (ConnectResult connectResult : results) {
+                    final Connection connection = connectResult.getConnection();
+                    if (connection != null) {
+                        IoUtils.safeClose(connection);
+                    }
+                }
+                futureResult.setCancelled();
+            } else {
+                futureResult.setResult(Arrays.asList(results));
+            }
+        } else {
+            requestStart();
+        }
+    }
+
+    public Cancellable cancel() {
+        cancelled = true;
+        final List<IoFuture<Connection>> inProgress = new ArrayList<>();
+        synchronized (attempts) {
+            for (IoFuture<Connection> attempt : attempts) {
+                if (attempt != null) inProgress.add(attempt);
+            }
+        }
+        for (IoFuture<Connection> attempt : inProgress) {
+            attempt.cancel();
+        }
+        return this;
+    }
+}
@@ -19,6 +19,10 @@
 package org.jboss.remoting3;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.wildfly.common.Assert;
+import org.xnio.IoUtils;
 import org.xnio.Option;
 import org.xnio.channels.Configurable;
 
@@ -47,6 +51,63 @@ public interface Channel extends Attachable, HandleableCloseable<Channel>, Confi
      */
     MessageOutputStream writeMessage() throws IOException;
 
+    /**
+     * Write a complete message on to this channel, blocking if necessary.  The message body consists of the remaining
+     * bytes of each of the given buffers, in order, and each buffer's position is advanced to its limit.  The message
+     * is cancelled if it cannot be written completely.
+     * <p>
+     * This is a convenience for protocols which assemble a header and a payload separately; implementations may
+     * send a small message as a single frame without going through a stream.
+     *
+     * @param parts the buffers making up the message body
+     * @throws IOException if the message cannot be written
+     */
+    default void writeMessage(ByteBuffer... parts) throws IOException {
+        Assert.checkNotNullParam("parts", parts);
+        final MessageOutputStream os = writeMessage();
+        boolean ok = false;
+        try {
+            byte[] copyBuf = null;
+            for (ByteBuffer part : parts) {
+                if (part.hasArray()) {
+                    os.write(part.array(), part.arrayOffset() + part.position(), part.remaining());
+                    part.position(part.limit());
+                } else {
+                    if (copyBuf == null) {
+                        copyBuf = new byte[Math.min(part.remaining(), 8192)];
+                    }
+                    while (part.hasRemaining()) {
+                        final int cnt = Math.min(part.remaining(), copyBuf.length);
+                        part.get(copyBuf, 0, cnt);
+                        os.write(copyBuf, 0, cnt);
+                    }
+                }
+            }
+            os.close();
+            ok = true;
+        } finally {
+            if (! ok) {
+                os.cancel();
+                IoUtils.safeClose(os);
+            }
+        }
+    }
+
+    /**
+     * Run a task once this channel has room for another outbound message, or once writes have been shut down.  This
+     * is the non-blocking counterpart of waiting in {@link #writeMessage()}: a writer which must not block can defer
+     * its write to the task instead.  The task is run once, by the channel's executor, and immediately if there is
+     * already room.  Room is not reserved for the task, so a concurrent writer may still take it first.
+     * <p>
+     * The default implementation runs the task immediately in the calling thread.
+     *
+     * @param task the task to run
+     */
+    default void whenWritable(Runnable task) {
+        Assert.checkNotNullParam("task", task);
+        task.run();
+    }
+
     /**
      * Send an end-of-messages signal to the remote side.  No more messages may be written after this
      * method is called; however, more incoming messages may be received.
@@ -102,6 +163,15 @@ public interface Channel extends Attachable, HandleableCloseable<Channel>, Confi
      */
     void close() throws IOException;
 
+    /**
+     * Get the traffic metrics of this channel.  Byte and frame counts include message payload only.
+     *
+     * @return the channel metrics, or {@code null} if the underlying protocol does not collect them
+     */
+    default TransportMetrics getMetrics() {
+        return null;
+    }
+
     /**
      * A handler for an incoming message.
      */
@@ -23,6 +23,7 @@ import static org.xnio.IoUtils.safeClose;
 import java.io.IOException;
 import java.util.function.Function;
 
+import org.wildfly.common.Assert;
 import org.xnio.FinishedIoFuture;
 import org.xnio.FutureResult;
 import org.xnio.IoFuture;
@@ -37,6 +38,8 @@ import static org.jboss.remoting3._private.Messages.log;
  */
 public final class ClientServiceHandle<T> {
     private final Attachments.Key<IoFuture<T>> key;
+    // holds the service instance itself once it is established, for getIfReady
+    private final Attachments.Key<Object> readyKey = new Attachments.Key<>(Object.class);
     private final String serviceName;
     private final Function<Channel, IoFuture<T>> constructor;
     private Channel channel;
@@ -56,6 +59,40 @@ public final class ClientServiceHandle<T> {
         this.constructor = constructor;
     }
 
+    /**
+     * Get the client service for the given connection if it has already been established.  This method does not
+     * block, allocate, or initiate the establishment of the service.
+     *
+     * @param connection the connection
+     * @return the service instance, or {@code null} if it has not (yet) been established
+     */
+    @SuppressWarnings("unchecked")
+    public T getIfReady(final Connection connection) {
+        return (T) connection.getAttachments().getAttachment(readyKey);
+    }
+
+    /**
+     * Establish this service on every outbound connection of the given endpoint as soon as the connection is opened,
+     * so that the first use of the service on a connection need not wait for the channel to be opened.  Only one
+     * such registration may exist per service name and endpoint.
+     *
+     * @param endpoint the endpoint (may not be {@code null})
+     * @param optionMap the service options
+     * @return the registration handle, which may be closed to stop establishing the service on new connections
+     * @throws IllegalArgumentException if the endpoint is not supported, or the service is already registered
+     */
+    public Registration precreateOnConnect(final Endpoint endpoint, final OptionMap optionMap) {
+        Assert.checkNotNullParam("endpoint", endpoint);
+        Endpoint realEndpoint = endpoint;
+        if (realEndpoint instanceof UncloseableEndpoint) {
+            realEndpoint = ((UncloseableEndpoint) realEndpoint).getDelegate();
+        }
+        if (! (realEndpoint instanceof EndpointImpl)) {
+            throw new IllegalArgumentException("Unsupported endpoint " + endpoint);
+        }
+        return ((EndpointImpl) realEndpoint).registerConnectHook(serviceName, connection -> getClientService(connection, optionMap));
+    }
+
     /**
      * Get or establish the future client service for the given connection.
      *
@@ -120,9 +157,11 @@ public final class ClientServiceHandle<T> {
                         futureResult.setResult(result);
                         // Optimize overall
                         attachments.replaceAttachment(key, futureResult.getIoFuture(), new FinishedIoFuture<T>(result));
+                        attachments.attach(readyKey, result);
                         // Remove on close
                         channel.addCloseHandler((closed, exception) -> {
                             log.tracef("ClientServiceHandle %s ('%s') closing service at connection %s", this, serviceName, connection);
+                            attachments.removeAttachment(readyKey, result);
                             attachments.removeAttachment(key);
 
                         });
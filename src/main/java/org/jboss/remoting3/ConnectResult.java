@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of connecting to one destination of a bulk connect.
+ *
+ * @see Endpoint#connectAll(java.util.Collection, org.xnio.OptionMap, int)
+ */
+public final class ConnectResult {
+    private final URI destination;
+    private final Connection connection;
+    private final IOException exception;
+    private final long durationNanos;
+
+    ConnectResult(final URI destination, final Connection connection, final IOException exception, final long durationNanos) {
+        this.destination = destination;
+        this.connection = connection;
+        this.exception = exception;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Get the destination.
+     *
+     * @return the destination (not {@code null})
+     */
+    public URI getDestination() {
+        return destination;
+    }
+
+    /**
+     * Get the connection, if the attempt succeeded.
+     *
+     * @return the connection, or {@code null} if the attempt failed or was cancelled
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Get the failure, if the attempt failed.
+     *
+     * @return the failure, or {@code null} if the attempt succeeded or was cancelled
+     */
+    public IOException getException() {
+        return exception;
+    }
+
+    /**
+     * Determine whether the attempt succeeded.
+     *
+     * @return {@code true} if a connection was established, {@code false} otherwise
+     */
+    public boolean isSuccessful() {
+        return connection != null;
+    }
+
+    /**
+     * Get the time taken by this attempt, from the moment it was started (not queued) until it completed.
+     *
+     * @param unit the time unit to return (must not be {@code null})
+     * @return the time taken, in the given unit
+     */
+    public long getDuration(TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public String toString() {
+        return String.format("Connect result for %s: %s in %d ms", destination, connection != null ? "connected" : exception != null ? exception.toString() : "cancelled", Long.valueOf(TimeUnit.NANOSECONDS.toMillis(durationNanos)));
+    }
+}
@@ -21,6 +21,7 @@ package org.jboss.remoting3;
 import java.net.SocketAddress;
 import java.net.URI;
 import java.security.Principal;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLSession;
 
@@ -187,4 +188,34 @@ public interface Connection extends HandleableCloseable<Connection>, Attachable
      * @return {@code true} if remote authentication is supported, {@code false} otherwise
      */
     boolean supportsRemoteAuth();
+
+    /**
+     * Get the smoothed round-trip time of this connection, as measured by the connection heartbeat.  No value is
+     * available until the first heartbeat has been acknowledged by the peer.
+     *
+     * @param unit the time unit of the returned value (must not be {@code null})
+     * @return the smoothed round-trip time, or {@code -1} if it is not known
+     */
+    default long getRoundTripTime(TimeUnit unit) {
+        return -1L;
+    }
+
+    /**
+     * Get the round-trip time variance of this connection, as measured by the connection heartbeat.
+     *
+     * @param unit the time unit of the returned value (must not be {@code null})
+     * @return the round-trip time variance, or {@code -1} if it is not known
+     */
+    default long getRoundTripTimeVariance(TimeUnit unit) {
+        return -1L;
+    }
+
+    /**
+     * Get the traffic metrics of this connection.
+     *
+     * @return the connection metrics, or {@code null} if the underlying protocol does not collect them
+     */
+    default TransportMetrics getMetrics() {
+        return null;
+    }
 }
@@ -39,6 +39,8 @@ public final class ConnectionBuilder {
 
     private int heartbeatInterval = -1;
 
+    private boolean preconnect;
+
     ConnectionBuilder(final URI destination) {
         this.destination = destination;
     }
@@ -72,6 +74,18 @@ public final class ConnectionBuilder {
         return this;
     }
 
+    /**
+     * Set whether a connection to this destination should be established as soon as the endpoint is built, rather than
+     * on first use.
+     *
+     * @param preconnect {@code true} to connect eagerly, {@code false} otherwise
+     * @return this builder
+     */
+    public ConnectionBuilder setPreconnect(final boolean preconnect) {
+        this.preconnect = preconnect;
+        return this;
+    }
+
     URI getDestination() {
         return destination;
     }
@@ -99,4 +113,8 @@ public final class ConnectionBuilder {
     boolean isSetTcpKeepAlive() {
         return setTcpKeepAlive;
     }
+
+    boolean isPreconnect() {
+        return preconnect;
+    }
 }
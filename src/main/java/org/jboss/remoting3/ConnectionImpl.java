@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.net.SocketAddress;
 import java.net.URI;
 import java.security.Principal;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLSession;
 import javax.security.sasl.SaslException;
@@ -183,6 +184,20 @@ class ConnectionImpl extends AbstractHandleableCloseable<Connection> implements
         return connectionHandler.getPrincipal();
     }
 
+    public long getRoundTripTime(final TimeUnit unit) {
+        final long rtt = connectionHandler.getRoundTripTime();
+        return rtt == -1L ? -1L : unit.convert(rtt, TimeUnit.NANOSECONDS);
+    }
+
+    public long getRoundTripTimeVariance(final TimeUnit unit) {
+        final long variance = connectionHandler.getRoundTripTimeVariance();
+        return variance == -1L ? -1L : unit.convert(variance, TimeUnit.NANOSECONDS);
+    }
+
+    public TransportMetrics getMetrics() {
+        return connectionHandler.getMetrics();
+    }
+
     public void receiveAuthRequest(final int id, final String mechName, final byte[] initialResponse) {
         log.tracef("Received authentication request for ID %08x, mech %s", id, mechName);
         if (id == 0 || id == 1) {
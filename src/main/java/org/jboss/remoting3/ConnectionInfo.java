@@ -23,11 +23,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.wildfly.common.Assert;
 import org.wildfly.security.auth.client.AuthenticationConfiguration;
 import org.xnio.Cancellable;
+import org.xnio.FinishedIoFuture;
 import org.xnio.FutureResult;
 import org.xnio.IoFuture;
 import org.xnio.OptionMap;
@@ -37,7 +40,11 @@ import org.xnio.OptionMap;
  */
 final class ConnectionInfo {
     final OptionMap connectOptions;
-    State state = new None();
+    /**
+     * The current state.  Transitions are made while holding this object's monitor, but the state itself is
+     * read without locking, so that looking up an established connection does not contend.
+     */
+    volatile State state = new None();
 
     private static final IoFuture<Connection> RETRY = new EmptyIoFuture();
 
@@ -49,9 +56,7 @@ final class ConnectionInfo {
         IoFuture<Connection> result;
         State state;
         do {
-            synchronized (this) {
-                state = this.state;
-            }
+            state = this.state;
             result = state.getConnection(endpoint, key, authenticationConfiguration, doConnect);
         } while (result == RETRY);
         return result;
@@ -60,16 +65,76 @@ final class ConnectionInfo {
     void connectionClosed(AuthenticationConfiguration authenticationConfiguration, final FutureResult<Connection> futureResult) {
         State state;
         do {
-            synchronized (this) {
-                state = this.state;
-            }
+            state = this.state;
         } while (! state.connectionClosed(authenticationConfiguration, futureResult));
     }
 
+    /**
+     * Get the finished identity future previously cached for the given configuration on the current connection.
+     *
+     * @param authenticationConfiguration the authentication configuration
+     * @return the cached identity future, or {@code null} if there is none
+     */
+    IoFuture<ConnectionPeerIdentity> getIdentity(AuthenticationConfiguration authenticationConfiguration) {
+        return state.getIdentity(authenticationConfiguration);
+    }
+
+    /**
+     * Get a finished future for an identity of the established connection which was returned for the given
+     * configuration.  The future is cached until the connection closes, so that later lookups return the same instance.
+     *
+     * @param authenticationConfiguration the authentication configuration
+     * @param futureConnection the (completed) connection future that the identity came from
+     * @param identity the identity
+     * @return the finished identity future
+     */
+    IoFuture<ConnectionPeerIdentity> cacheIdentity(AuthenticationConfiguration authenticationConfiguration, IoFuture<Connection> futureConnection, ConnectionPeerIdentity identity) {
+        return state.cacheIdentity(authenticationConfiguration, futureConnection, identity);
+    }
+
     abstract static class State {
         abstract IoFuture<Connection> getConnection(EndpointImpl endpoint, ConnectionKey key, AuthenticationConfiguration authenticationConfiguration, boolean doConnect);
 
         abstract boolean connectionClosed(AuthenticationConfiguration authenticationConfiguration, FutureResult<Connection> futureResult);
+
+        IoFuture<ConnectionPeerIdentity> getIdentity(AuthenticationConfiguration authenticationConfiguration) {
+            return null;
+        }
+
+        IoFuture<ConnectionPeerIdentity> cacheIdentity(AuthenticationConfiguration authenticationConfiguration, IoFuture<Connection> futureConnection, ConnectionPeerIdentity identity) {
+            return new FinishedIoFuture<>(identity);
+        }
+    }
+
+    /**
+     * A state with established connections, whose identity futures may be cached.  A new state starts with an empty
+     * cache, so nothing cached outlives the connection that it came from.
+     */
+    abstract static class Established extends State {
+        private final ConcurrentMap<AuthenticationConfiguration, IoFuture<ConnectionPeerIdentity>> identities = new ConcurrentHashMap<>();
+
+        /**
+         * Get the connection that this state uses for the given configuration.
+         *
+         * @param authenticationConfiguration the authentication configuration
+         * @return the connection future result, or {@code null} if there is none
+         */
+        abstract FutureResult<Connection> getEstablished(AuthenticationConfiguration authenticationConfiguration);
+
+        IoFuture<ConnectionPeerIdentity> getIdentity(final AuthenticationConfiguration authenticationConfiguration) {
+            return identities.get(authenticationConfiguration);
+        }
+
+        IoFuture<ConnectionPeerIdentity> cacheIdentity(final AuthenticationConfiguration authenticationConfiguration, final IoFuture<Connection> futureConnection, final ConnectionPeerIdentity identity) {
+            final IoFuture<ConnectionPeerIdentity> future = new FinishedIoFuture<>(identity);
+            final FutureResult<Connection> established = getEstablished(authenticationConfiguration);
+            if (established == null || established.getIoFuture() != futureConnection) {
+                // the identity came from a connection which this state no longer uses
+                return future;
+            }
+            final IoFuture<ConnectionPeerIdentity> appearing = identities.putIfAbsent(authenticationConfiguration, future);
+            return appearing == null ? future : appearing;
+        }
     }
 
     final class None extends State {
@@ -201,7 +266,7 @@ final class ConnectionInfo {
         }
     }
 
-    final class Shared extends State {
+    final class Shared extends Established {
         private final FutureResult<Connection> sharedConnection;
         private final Map<AuthenticationConfiguration, FutureResult<Connection>> leftovers;
 
@@ -211,7 +276,11 @@ final class ConnectionInfo {
         }
 
         IoFuture<Connection> getConnection(final EndpointImpl endpoint, final ConnectionKey key, final AuthenticationConfiguration authenticationConfiguration, boolean doConnect) {
-            return leftovers.getOrDefault(authenticationConfiguration, sharedConnection).getIoFuture();
+            return getEstablished(authenticationConfiguration).getIoFuture();
+        }
+
+        FutureResult<Connection> getEstablished(final AuthenticationConfiguration authenticationConfiguration) {
+            return leftovers.getOrDefault(authenticationConfiguration, sharedConnection);
         }
 
         boolean connectionClosed(final AuthenticationConfiguration authenticationConfiguration, final FutureResult<Connection> futureResult) {
@@ -251,13 +320,17 @@ final class ConnectionInfo {
         }
     }
 
-    final class NotShared extends State {
+    final class NotShared extends Established {
         private final Map<AuthenticationConfiguration, FutureResult<Connection>> connections;
 
         NotShared(final Map<AuthenticationConfiguration, FutureResult<Connection>> connections) {
             this.connections = connections;
         }
 
+        FutureResult<Connection> getEstablished(final AuthenticationConfiguration authenticationConfiguration) {
+            return connections.get(authenticationConfiguration);
+        }
+
         IoFuture<Connection> getConnection(final EndpointImpl endpoint, final ConnectionKey key, final AuthenticationConfiguration authenticationConfiguration, boolean doConnect) {
             final FutureResult<Connection> future = connections.get(authenticationConfiguration);
             if (future != null) {
@@ -0,0 +1,213 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+
+/**
+ * A bounded cache of resolved {@link ConnectionKey}s, keyed by the destination URI, authentication configuration and SSL
+ * context which were used to resolve them.  Since authentication configurations are immutable, a changed configuration
+ * is simply a different key; entries which stop being used are evicted in approximately least-recently-used order once
+ * the cache is full.
+ * <p>
+ * Lookups neither allocate nor write to shared state: entries are grouped by destination, and recency is tracked as a
+ * coarse tick which only advances when an entry is added, so a hot entry is written at most once per tick.  Eviction
+ * removes a batch of the eldest entries at a time, so the scan is not repeated on every insertion into a full cache.
+ */
+final class ConnectionKeyCache {
+    static final int DEFAULT_MAX_SIZE;
+
+    static {
+        int maxSize = 256;
+        try {
+            maxSize = Integer.parseInt(System.getProperty("jboss.remoting.connection-key-cache-size", "256"));
+        } catch (Throwable ignored) {}
+        DEFAULT_MAX_SIZE = maxSize;
+    }
+
+    private final ConcurrentHashMap<URI, Entry[]> map = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxSize;
+    private final int batchSize;
+
+    ConnectionKeyCache(final int maxSize) {
+        this.maxSize = maxSize;
+        batchSize = Math.max(1, maxSize >> 4);
+    }
+
+    /**
+     * Get the cached connection key for the given destination, if any.
+     *
+     * @param destination the destination URI as given by the caller
+     * @param authenticationConfiguration the authentication configuration
+     * @param sslContext the SSL context (may be {@code null})
+     * @return the cached key, or {@code null} if there is none
+     */
+    ConnectionKey get(final URI destination, final AuthenticationConfiguration authenticationConfiguration, final SSLContext sslContext) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        final Entry[] entries = map.get(destination);
+        if (entries == null) {
+            return null;
+        }
+        for (Entry entry : entries) {
+            if (entry.matches(authenticationConfiguration, sslContext)) {
+                final long now = clock.get();
+                if (entry.lastUsed != now) {
+                    entry.lastUsed = now;
+                }
+                return entry.connectionKey;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cache a resolved connection key, evicting the least recently used entries if the cache is full.  The cache may
+     * briefly exceed its maximum size while another thread is evicting.
+     *
+     * @param destination the destination URI as given by the caller
+     * @param authenticationConfiguration the authentication configuration
+     * @param sslContext the SSL context (may be {@code null})
+     * @param connectionKey the resolved key
+     */
+    void put(final URI destination, final AuthenticationConfiguration authenticationConfiguration, final SSLContext sslContext, final ConnectionKey connectionKey) {
+        if (maxSize <= 0) {
+            return;
+        }
+        final Entry entry = new Entry(destination, authenticationConfiguration, sslContext, connectionKey, clock.getAndIncrement());
+        map.compute(destination, (uri, entries) -> {
+            if (entries == null) {
+                size.incrementAndGet();
+                return new Entry[] { entry };
+            }
+            for (int i = 0; i < entries.length; i ++) {
+                if (entries[i].matches(authenticationConfiguration, sslContext)) {
+                    final Entry[] copy = entries.clone();
+                    copy[i] = entry;
+                    return copy;
+                }
+            }
+            size.incrementAndGet();
+            final Entry[] copy = Arrays.copyOf(entries, entries.length + 1);
+            copy[entries.length] = entry;
+            return copy;
+        });
+        if (size.get() > maxSize) {
+            evict();
+        }
+    }
+
+    void clear() {
+        for (URI destination : map.keySet()) {
+            final Entry[] entries = map.remove(destination);
+            if (entries != null) {
+                size.addAndGet(- entries.length);
+            }
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private void evict() {
+        if (! evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final int excess = size.get() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+            final int count = Math.max(excess, batchSize);
+            // keep the eldest entries seen so far, with the youngest of them at the head
+            final PriorityQueue<Entry> eldest = new PriorityQueue<>(count, (a, b) -> Long.compare(b.lastUsed, a.lastUsed));
+            for (Map.Entry<URI, Entry[]> mapEntry : map.entrySet()) {
+                for (Entry entry : mapEntry.getValue()) {
+                    if (eldest.size() < count) {
+                        eldest.add(entry);
+                    } else if (entry.lastUsed < eldest.peek().lastUsed) {
+                        eldest.poll();
+                        eldest.add(entry);
+                    }
+                }
+            }
+            for (Entry entry : eldest) {
+                remove(entry);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private void remove(final Entry entry) {
+        map.computeIfPresent(entry.destination, (uri, entries) -> {
+            for (int i = 0; i < entries.length; i ++) {
+                if (entries[i] == entry) {
+                    size.decrementAndGet();
+                    if (entries.length == 1) {
+                        return null;
+                    }
+                    final Entry[] copy = new Entry[entries.length - 1];
+                    System.arraycopy(entries, 0, copy, 0, i);
+                    System.arraycopy(entries, i + 1, copy, i, copy.length - i);
+                    return copy;
+                }
+            }
+            return entries;
+        });
+    }
+
+    static final class Entry {
+        final URI destination;
+        final AuthenticationConfiguration authenticationConfiguration;
+        final SSLContext sslContext;
+        final ConnectionKey connectionKey;
+        volatile long lastUsed;
+
+        Entry(final URI destination, final AuthenticationConfiguration authenticationConfiguration, final SSLContext sslContext, final ConnectionKey connectionKey, final long lastUsed) {
+            this.destination = destination;
+            this.authenticationConfiguration = authenticationConfiguration;
+            this.sslContext = sslContext;
+            this.connectionKey = connectionKey;
+            this.lastUsed = lastUsed;
+        }
+
+        boolean matches(final AuthenticationConfiguration authenticationConfiguration, final SSLContext sslContext) {
+            return (this.authenticationConfiguration == authenticationConfiguration || this.authenticationConfiguration.equals(authenticationConfiguration))
+                && Objects.equals(this.sslContext, sslContext);
+        }
+    }
+}
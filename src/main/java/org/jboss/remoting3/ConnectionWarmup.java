@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.jboss.logging.Logger;
+import org.xnio.IoFuture;
+
+/**
+ * Support for warming up connections ahead of their first use.
+ */
+final class ConnectionWarmup {
+    private static final Logger log = Logger.getLogger("org.jboss.remoting.endpoint");
+
+    private ConnectionWarmup() {
+    }
+
+    /**
+     * Report the outcome of a pre-established connection, since nobody else may be waiting on it.
+     *
+     * @param destination the destination, for logging
+     * @param futureIdentity the future connection identity
+     */
+    static void warmUp(final URI destination, final IoFuture<ConnectionPeerIdentity> futureIdentity) {
+        futureIdentity.addNotifier(new IoFuture.HandlingNotifier<ConnectionPeerIdentity, Void>() {
+            public void handleFailed(final IOException exception, final Void attachment) {
+                log.debugf(exception, "Failed to pre-connect to %s", destination);
+            }
+
+            public void handleDone(final ConnectionPeerIdentity identity, final Void attachment) {
+                log.tracef("Pre-connected to %s", destination);
+            }
+        }, null);
+    }
+}
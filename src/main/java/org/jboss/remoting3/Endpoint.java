@@ -26,6 +26,11 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.security.GeneralSecurityException;
 import java.security.PrivilegedAction;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.jboss.remoting3._private.Messages;
 import org.jboss.remoting3.security.RemotingPermission;
@@ -38,6 +43,7 @@ import org.wildfly.security.auth.client.AuthenticationContext;
 import org.wildfly.security.auth.client.AuthenticationContextConfigurationClient;
 import org.xnio.FailedIoFuture;
 import org.xnio.IoFuture;
+import org.xnio.IoUtils;
 import org.xnio.OptionMap;
 import org.xnio.XnioWorker;
 
@@ -98,6 +104,34 @@ public interface Endpoint extends HandleableCloseable<Endpoint>, Attachable, Con
      */
     Registration registerService(String serviceType, OpenListener openListener, OptionMap optionMap) throws ServiceRegistrationException;
 
+    /**
+     * Establish managed connections to each of the given destinations in parallel, so that the first use of each
+     * destination does not pay for the connect, handshake and authentication.  The SSL configuration is selected from
+     * the currently active authentication context.
+     *
+     * @param destinations the destination URIs (must not be {@code null})
+     * @param authenticationConfiguration the authentication configuration to use (must not be {@code null})
+     * @return the future connection identity of each destination (not {@code null})
+     */
+    default Map<URI, IoFuture<ConnectionPeerIdentity>> preconnect(Collection<URI> destinations, AuthenticationConfiguration authenticationConfiguration) {
+        Assert.checkNotNullParam("destinations", destinations);
+        Assert.checkNotNullParam("authenticationConfiguration", authenticationConfiguration);
+        final AuthenticationContext context = AuthenticationContext.captureCurrent();
+        final Map<URI, IoFuture<ConnectionPeerIdentity>> results = new LinkedHashMap<>(destinations.size());
+        for (URI destination : destinations) {
+            Assert.checkNotNullArrayParam("destinations", results.size(), destination);
+            IoFuture<ConnectionPeerIdentity> futureIdentity;
+            try {
+                futureIdentity = getConnectedIdentity(destination, AUTH_CONFIGURATION_CLIENT.getSSLContext(destination, context), authenticationConfiguration);
+            } catch (GeneralSecurityException e) {
+                futureIdentity = new FailedIoFuture<>(Messages.conn.failedToConfigureSslContext(e));
+            }
+            ConnectionWarmup.warmUp(destination, futureIdentity);
+            results.put(destination, futureIdentity);
+        }
+        return results;
+    }
+
     /**
      * Get a possibly shared, possibly existing connection to the destination.  The authentication and SSL configuration is selected from
      * the given context with the given abstract type (if specified).
@@ -308,6 +342,30 @@ public interface Endpoint extends HandleableCloseable<Endpoint>, Attachable, Con
     }
 
 
+    /**
+     * Open unshared connections with many peers, with at most {@code maxConcurrent} connection attempts in progress at
+     * once.  The authentication configuration for each peer is selected from the currently active authentication
+     * context.  The returned future completes with the outcome and duration of each attempt, in the order of the given
+     * destinations, once every attempt has completed; a failed attempt does not fail the returned future.  Cancelling
+     * the returned future cancels all attempts still in progress or queued; the future is then reported as cancelled
+     * once every attempt has stopped, and any connection which was established in the meantime is closed.
+     * <p/>
+     * You must have the {@link RemotingPermission connect EndpointPermission} to invoke this method.
+     *
+     * @param destinations the destinations (must not be {@code null})
+     * @param connectOptions the connection options
+     * @param maxConcurrent the maximum number of concurrent connection attempts (must be at least 1)
+     *
+     * @return the future list of results
+     */
+    default IoFuture<List<ConnectResult>> connectAll(Collection<URI> destinations, OptionMap connectOptions, int maxConcurrent) {
+        Assert.checkNotNullParam("destinations", destinations);
+        Assert.checkNotNullParam("connectOptions", connectOptions);
+        Assert.checkMinimumParameter("maxConcurrent", 1, maxConcurrent);
+        final AuthenticationContext context = AuthenticationContext.captureCurrent();
+        return BulkConnector.connectAll(destinations, destination -> connect(destination, connectOptions, context), IoUtils.directExecutor(), maxConcurrent);
+    }
+
     /**
      * Open an unshared connection with a peer.  Returns a future connection which may be used to cancel the connection attempt.
      * This method does not block; use the return value to wait for a result if you wish to block.
@@ -423,6 +481,37 @@ public interface Endpoint extends HandleableCloseable<Endpoint>, Attachable, Con
      */
     XnioWorker getXnioWorker();
 
+    /**
+     * Get the traffic metrics of all channels opened to each service registered on this endpoint, keyed by service type
+     * name.  The returned map is a snapshot of the registered services; the metrics themselves are live.  Channels
+     * opened by this endpoint to remote services are not included.
+     *
+     * @return the service metrics (not {@code null})
+     */
+    default Map<String, TransportMetrics> getServiceMetrics() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Get the latency histogram with the given name, such as {@link LatencyHistogram#CHANNEL_OPEN}.  Histograms are
+     * shared by all connections of this endpoint.
+     *
+     * @param name the histogram name (must not be {@code null})
+     * @return the histogram, or {@code null} if latency histograms are not enabled
+     */
+    default LatencyHistogram getLatencyHistogram(String name) {
+        return null;
+    }
+
+    /**
+     * Get all latency histograms of this endpoint which have been used, keyed by name.
+     *
+     * @return the latency histograms (not {@code null})
+     */
+    default Map<String, LatencyHistogram> getLatencyHistograms() {
+        return Collections.emptyMap();
+    }
+
     /**
      * Create a new endpoint builder.
      *
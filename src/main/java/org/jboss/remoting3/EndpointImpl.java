@@ -29,13 +29,14 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.GeneralSecurityException;
 import java.security.PrivilegedAction;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
@@ -44,6 +45,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
@@ -65,6 +67,7 @@ import org.jboss.remoting3.spi.ConnectionProviderContext;
 import org.jboss.remoting3.spi.ConnectionProviderFactory;
 import org.jboss.remoting3.spi.RegisteredService;
 import org.jboss.remoting3.spi.SpiUtils;
+import org.jboss.remoting3.spi.TransportCounters;
 
 import org.wildfly.common.Assert;
 import org.wildfly.security.auth.AuthenticationException;
@@ -104,20 +107,21 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
     private static final int COUNT_MASK = ~CLOSED_FLAG;
     private static final String FQCN = EndpointImpl.class.getName();
 
-    private final Set<ConnectionImpl> connections = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<ConnectionImpl, Boolean>()));
+    private final Set<ConnectionImpl> connections = ConcurrentHashMap.newKeySet();
 
     private final Attachments attachments = new Attachments();
 
     private final ConcurrentMap<String, ProtocolRegistration> connectionProviders = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, RegisteredServiceImpl> registeredServices = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Consumer<Connection>> connectHooks = new ConcurrentHashMap<>();
     private final ConcurrentMap<ConnectionKey, ConnectionInfo> managedConnections = new ConcurrentHashMap<>();
+    private final ConnectionKeyCache connectionKeyCache = new ConnectionKeyCache(ConnectionKeyCache.DEFAULT_MAX_SIZE);
+    private final ConcurrentMap<String, LatencyHistogram> latencyHistograms = new ConcurrentHashMap<>();
     private final Map<URI, OptionMap> connectionOptions;
     private final OptionMap defaultConnectionOptionMap;
 
     private final XnioWorker worker;
 
-    private final Object connectionLock = new Object();
-
     private static final AtomicIntegerFieldUpdater<EndpointImpl> resourceCountUpdater = AtomicIntegerFieldUpdater.newUpdater(EndpointImpl.class, "resourceCount");
 
     @SuppressWarnings("unused")
@@ -189,6 +193,36 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
                 public int getConnectionCount() {
                     return connections.size();
                 }
+
+                public Map<String, TransportMetrics> getServiceMetrics() {
+                    return EndpointImpl.this.getServiceMetrics();
+                }
+
+                public Map<String, LatencyHistogram.Snapshot> getLatencyPercentiles() {
+                    final Map<String, LatencyHistogram.Snapshot> result = new HashMap<>();
+                    for (Map.Entry<String, LatencyHistogram> entry : latencyHistograms.entrySet()) {
+                        result.put(entry.getKey(), entry.getValue().getSnapshot());
+                    }
+                    return result;
+                }
+
+                public void resetLatencyHistograms() {
+                    for (LatencyHistogram histogram : latencyHistograms.values()) {
+                        histogram.reset();
+                    }
+                }
+
+                public Map<String, TransportMetrics> getConnectionMetrics() {
+                    final Map<String, TransportMetrics> result = new HashMap<>();
+                    for (Object connection : connections.toArray()) {
+                        final ConnectionImpl connectionImpl = (ConnectionImpl) connection;
+                        final TransportMetrics metrics = connectionImpl.getMetrics();
+                        if (metrics != null) {
+                            result.put(String.format("<%x> %s <-> %s", Integer.valueOf(connectionImpl.hashCode()), connectionImpl.getLocalAddress(), connectionImpl.getPeerAddress()), metrics);
+                        }
+                    }
+                    return result;
+                }
             }, objectName);
         } catch (Exception e) {
             // ignore
@@ -302,6 +336,23 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
             // old
             endpoint.addConnectionProvider("http-remoting", httpUpgradeConnectionProviderFactory, OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE, Options.SSL_STARTTLS, Boolean.TRUE));
             endpoint.addConnectionProvider("https-remoting", httpUpgradeConnectionProviderFactory, OptionMap.create(Options.SECURE, Boolean.TRUE));
+            if (connectionBuilders != null) {
+                final AuthenticationContext context = AuthenticationContext.captureCurrent();
+                for (ConnectionBuilder connectionBuilder : connectionBuilders) {
+                    if (connectionBuilder.isPreconnect()) {
+                        final URI destination = connectionBuilder.getDestination();
+                        final IoFuture<ConnectionPeerIdentity> futureIdentity;
+                        try {
+                            futureIdentity = endpoint.getConnectedIdentity(destination, null, null, context);
+                        } catch (RuntimeException e) {
+                            // one bad destination must not prevent the endpoint (or the other destinations) from starting
+                            log.debugf(e, "Failed to pre-connect to %s", destination);
+                            continue;
+                        }
+                        ConnectionWarmup.warmUp(destination, futureIdentity);
+                    }
+                }
+            }
             ok = true;
             return endpoint;
         } finally {
@@ -394,21 +445,20 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
     }
 
     protected void closeAction() throws IOException {
-        synchronized (connectionLock) {
-            // Commence phase one shutdown actions
-            int res;
-            do {
-                res = resourceCount;
-            } while (! resourceCountUpdater.compareAndSet(this, res, res | CLOSED_FLAG));
-            if (res == 0) {
-                finishPhase1();
-            } else {
-                for (Object connection : connections.toArray()) {
-                    ((ConnectionImpl)connection).closeAsync();
-                }
-                for (ProtocolRegistration protocolRegistration : connectionProviders.values()) {
-                    protocolRegistration.getProvider().closeAsync();
-                }
+        // Commence phase one shutdown actions
+        int res;
+        do {
+            res = resourceCount;
+        } while (! resourceCountUpdater.compareAndSet(this, res, res | CLOSED_FLAG));
+        if (res == 0) {
+            finishPhase1();
+        } else {
+            // connections registered after this point see the close flag and close themselves
+            for (ConnectionImpl connection : connections) {
+                connection.closeAsync();
+            }
+            for (ProtocolRegistration protocolRegistration : connectionProviders.values()) {
+                protocolRegistration.getProvider().closeAsync();
             }
         }
     }
@@ -440,6 +490,35 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         return registration;
     }
 
+    /**
+     * Register a hook which is called for every outbound connection established from now on, before the connection
+     * is made available to the requester.
+     *
+     * @param name the unique hook name
+     * @param hook the hook
+     * @return the registration handle
+     */
+    Registration registerConnectHook(final String name, final Consumer<Connection> hook) {
+        if (connectHooks.putIfAbsent(name, hook) != null) {
+            throw new DuplicateRegistrationException("Connect hook '" + name + "' is already registered");
+        }
+        final MapRegistration<Consumer<Connection>> registration = new MapRegistration<>(connectHooks, name, hook);
+        // automatically close the registration when the endpoint is closed
+        final Key key = addCloseHandler(SpiUtils.closingCloseHandler(registration));
+        registration.addCloseHandler((closed, exception) -> key.remove());
+        return registration;
+    }
+
+    private void runConnectHooks(final Connection connection) {
+        for (Consumer<Connection> hook : connectHooks.values()) {
+            try {
+                hook.accept(connection);
+            } catch (Throwable t) {
+                log.debugf(t, "Connect hook failed for %s", connection);
+            }
+        }
+    }
+
     public IoFuture<ConnectionPeerIdentity> getConnectedIdentity(final URI destination, final SSLContext sslContext, final AuthenticationConfiguration authenticationConfiguration) {
         return doGetConnection(destination, sslContext, authenticationConfiguration, true);
     }
@@ -452,42 +531,47 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         Assert.checkNotNullParam("destination", destination);
         Assert.checkNotNullParam("authenticationConfiguration", authenticationConfiguration);
 
-        final AuthenticationContextConfigurationClient client = AUTH_CONFIGURATION_CLIENT;
+        ConnectionKey connectionKey = connectionKeyCache.get(destination, authenticationConfiguration, sslContext);
+        if (connectionKey == null) {
+            final AuthenticationContextConfigurationClient client = AUTH_CONFIGURATION_CLIENT;
+
+            /*
+             * Note: not obvious!  we *always* use the host/port from the connect configuration even if connection sharing isn't supported.
+             * This is the only way we can be certain that the behavior experience is similar for the end user.
+             */
+            final String realHost = client.getRealHost(destination, authenticationConfiguration);
+            if (realHost == null) {
+                throw new IllegalArgumentException("No host given in URI '" + destination + "'");
+            }
+            final int realPort = client.getRealPort(destination, authenticationConfiguration);
+            if (realPort == -1) {
+                throw new IllegalArgumentException("No port number given in URI '" + destination + "'");
+            }
+            final String scheme = client.getRealProtocol(destination, authenticationConfiguration);
+            if (scheme == null) {
+                throw new IllegalArgumentException("No scheme given in URI '" + destination + "'");
+            }
 
-        /*
-         * Note: not obvious!  we *always* use the host/port from the connect configuration even if connection sharing isn't supported.
-         * This is the only way we can be certain that the behavior experience is similar for the end user.
-         */
-        final String realHost = client.getRealHost(destination, authenticationConfiguration);
-        if (realHost == null) {
-            throw new IllegalArgumentException("No host given in URI '" + destination + "'");
-        }
-        final int realPort = client.getRealPort(destination, authenticationConfiguration);
-        if (realPort == -1) {
-            throw new IllegalArgumentException("No port number given in URI '" + destination + "'");
-        }
-        final String scheme = client.getRealProtocol(destination, authenticationConfiguration);
-        if (scheme == null) {
-            throw new IllegalArgumentException("No scheme given in URI '" + destination + "'");
-        }
+            // "sanitize" the destination URI
+            final URI realDestination;
+            try {
+                realDestination = new URI(
+                    scheme,
+                    null,
+                    realHost,
+                    realPort,
+                    null,
+                    null,
+                    null
+                );
+            } catch (URISyntaxException e) {
+                return new FailedIoFuture<>(new IOException(e));
+            }
 
-        // "sanitize" the destination URI
-        final URI realDestination;
-        try {
-            realDestination = new URI(
-                scheme,
-                null,
-                realHost,
-                realPort,
-                null,
-                null,
-                null
-            );
-        } catch (URISyntaxException e) {
-            return new FailedIoFuture<>(new IOException(e));
+            connectionKey = new ConnectionKey(realDestination, sslContext);
+            connectionKeyCache.put(destination, authenticationConfiguration, sslContext, connectionKey);
         }
-
-        final ConnectionKey connectionKey = new ConnectionKey(realDestination, sslContext);
+        final URI realDestination = connectionKey.getRealUri();
         ConnectionInfo newConnectionInfo = managedConnections.get(connectionKey);
         while (newConnectionInfo == null) {
             final ConnectionInfo appearing = managedConnections.putIfAbsent(connectionKey, newConnectionInfo = new ConnectionInfo(connectionOptions.getOrDefault(realDestination, defaultConnectionOptionMap)));
@@ -495,11 +579,23 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
                 newConnectionInfo = appearing;
             }
         }
+        final IoFuture<ConnectionPeerIdentity> cachedIdentity = newConnectionInfo.getIdentity(authenticationConfiguration);
+        if (cachedIdentity != null) {
+            // fast path: an identity which was already established on the current connection
+            return cachedIdentity;
+        }
         final IoFuture<Connection> futureConnection = newConnectionInfo.getConnection(this, connectionKey, authenticationConfiguration, connect);
         if (futureConnection == null) {
             // no connection currently exists
             return null;
         }
+        if (futureConnection.getStatus() == IoFuture.Status.DONE) {
+            // an established connection which already has this identity
+            final ConnectionPeerIdentity existingIdentity = getExistingIdentity(futureConnection, authenticationConfiguration);
+            if (existingIdentity != null) {
+                return newConnectionInfo.cacheIdentity(authenticationConfiguration, futureConnection, existingIdentity);
+            }
+        }
         final FutureResult<ConnectionPeerIdentity> futureResult = new FutureResult<>(getExecutor());
         futureResult.addCancelHandler(futureConnection);
         futureConnection.addNotifier(new IoFuture.HandlingNotifier<Connection, FutureResult<ConnectionPeerIdentity>>() {
@@ -540,6 +636,14 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         return futureResult.getIoFuture();
     }
 
+    private static ConnectionPeerIdentity getExistingIdentity(final IoFuture<Connection> futureConnection, final AuthenticationConfiguration authenticationConfiguration) {
+        try {
+            return futureConnection.get().getPeerIdentityContext().getExistingIdentity(authenticationConfiguration);
+        } catch (IOException | CancellationException e) {
+            return null;
+        }
+    }
+
     public IoFuture<Connection> connect(final URI destination, final OptionMap connectOptions) {
         return connect(destination, connectOptions, AuthenticationContext.captureCurrent());
     }
@@ -548,6 +652,14 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         return connect(destination, null, connectOptions, authenticationContext);
     }
 
+    public IoFuture<List<ConnectResult>> connectAll(final Collection<URI> destinations, final OptionMap connectOptions, final int maxConcurrent) {
+        Assert.checkNotNullParam("destinations", destinations);
+        Assert.checkNotNullParam("connectOptions", connectOptions);
+        Assert.checkMinimumParameter("maxConcurrent", 1, maxConcurrent);
+        final AuthenticationContext context = AuthenticationContext.captureCurrent();
+        return BulkConnector.connectAll(destinations, destination -> connect(destination, connectOptions, context), getExecutor(), maxConcurrent);
+    }
+
     public IoFuture<Connection> connect(final URI destination, final InetSocketAddress bindAddress, final OptionMap connectOptions, final AuthenticationContext authenticationContext) {
         final AuthenticationContextConfigurationClient client = AUTH_CONFIGURATION_CLIENT;
         final AuthenticationConfiguration configuration = client.getAuthenticationConfiguration(destination, authenticationContext, - 1, null, null);
@@ -580,82 +692,79 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
             sm.checkPermission(RemotingPermission.CONNECT);
         }
         final String scheme = AUTH_CONFIGURATION_CLIENT.getRealProtocol(destination, configuration);
-        synchronized (connectionLock) {
-            boolean ok = false;
-            try {
-                resourceUntick("Connection to " + destination);
-            } catch (NotOpenException e) {
-                return new FailedIoFuture<>(e);
+        boolean ok = false;
+        try {
+            resourceUntick("Connection to " + destination);
+        } catch (NotOpenException e) {
+            return new FailedIoFuture<>(e);
+        }
+        try {
+            final ProtocolRegistration protocolRegistration = connectionProviders.get(scheme);
+            if (protocolRegistration == null) {
+                return new FailedIoFuture<>(new UnknownURISchemeException("No connection provider for URI scheme \"" + scheme + "\" is installed"));
             }
-            try {
-                final ProtocolRegistration protocolRegistration = connectionProviders.get(scheme);
-                if (protocolRegistration == null) {
-                    return new FailedIoFuture<>(new UnknownURISchemeException("No connection provider for URI scheme \"" + scheme + "\" is installed"));
-                }
-                final ConnectionProvider connectionProvider = protocolRegistration.getProvider();
-                final FutureResult<Connection> futureResult = new FutureResult<Connection>(getExecutor());
-                // Mark the stack because otherwise debugging connect problems can be incredibly tough
-                final StackTraceElement[] mark = Thread.currentThread().getStackTrace();
-                final UnaryOperator<SaslClientFactory> finalFactoryOperator = factoryOperator;
-                final Result<ConnectionHandlerFactory> result = new Result<ConnectionHandlerFactory>() {
-                    private final AtomicBoolean flag = new AtomicBoolean();
-                    public boolean setCancelled() {
-                        if (! flag.compareAndSet(false, true)) {
-                            return false;
-                        }
-                        log.logf(getClass().getName(), Logger.Level.TRACE, null, "Registered cancellation result");
-                        closeTick1("a cancelled connection");
-                        futureResult.setCancelled();
-                        return true;
+            final ConnectionProvider connectionProvider = protocolRegistration.getProvider();
+            final FutureResult<Connection> futureResult = new FutureResult<Connection>(getExecutor());
+            // Mark the stack because otherwise debugging connect problems can be incredibly tough
+            final StackTraceElement[] mark = Thread.currentThread().getStackTrace();
+            final UnaryOperator<SaslClientFactory> finalFactoryOperator = factoryOperator;
+            final Result<ConnectionHandlerFactory> result = new Result<ConnectionHandlerFactory>() {
+                private final AtomicBoolean flag = new AtomicBoolean();
+                public boolean setCancelled() {
+                    if (! flag.compareAndSet(false, true)) {
+                        return false;
                     }
+                    log.logf(getClass().getName(), Logger.Level.TRACE, null, "Registered cancellation result");
+                    closeTick1("a cancelled connection");
+                    futureResult.setCancelled();
+                    return true;
+                }
 
-                    public boolean setException(final IOException exception) {
-                        if (! flag.compareAndSet(false, true)) {
-                            return false;
-                        }
-                        log.logf(getClass().getName(), Logger.Level.TRACE, exception, "Registered exception result");
-                        closeTick1("a failed connection (2)");
-                        SpiUtils.glueStackTraces(exception, mark, 1, "asynchronous invocation");
-                        futureResult.setException(exception);
-                        return true;
+                public boolean setException(final IOException exception) {
+                    if (! flag.compareAndSet(false, true)) {
+                        return false;
                     }
+                    log.logf(getClass().getName(), Logger.Level.TRACE, exception, "Registered exception result");
+                    closeTick1("a failed connection (2)");
+                    SpiUtils.glueStackTraces(exception, mark, 1, "asynchronous invocation");
+                    futureResult.setException(exception);
+                    return true;
+                }
 
-                    public boolean setResult(final ConnectionHandlerFactory connHandlerFactory) {
-                        if (! flag.compareAndSet(false, true)) {
-                            return false;
-                        }
-                        synchronized (connectionLock) {
-                            log.logf(getClass().getName(), Logger.Level.TRACE, null, "Registered successful result %s", connHandlerFactory);
-                            final ConnectionImpl connection = new ConnectionImpl(EndpointImpl.this, connHandlerFactory, protocolRegistration.getContext(), destination, null, configuration, protocol);
-                            connections.add(connection);
-                            connection.getConnectionHandler().addCloseHandler(SpiUtils.asyncClosingCloseHandler(connection));
-                            connection.addCloseHandler(resourceCloseHandler);
-                            connection.addCloseHandler(connectionCloseHandler);
-                            // see if we were closed in the meantime
-                            if (EndpointImpl.this.isCloseFlagSet()) {
-                                connection.closeAsync();
-                                futureResult.setCancelled();
-                            } else {
-                                futureResult.setResult(connection);
-                            }
-                        }
-                        return true;
+                public boolean setResult(final ConnectionHandlerFactory connHandlerFactory) {
+                    if (! flag.compareAndSet(false, true)) {
+                        return false;
                     }
-                };
-                final Cancellable connect;
-                if (System.getSecurityManager() == null)
-                    connect = connectionProvider.connect(destination, bindAddress, connectOptions, result, configuration, sslContext, finalFactoryOperator, Collections.emptyList());
-                else
-                    connect = doPrivileged((PrivilegedAction<Cancellable>) () ->
-                        connectionProvider.connect(destination, bindAddress, connectOptions, result, configuration, sslContext, finalFactoryOperator, Collections.emptyList())
-                );
-                ok = true;
-                futureResult.addCancelHandler(connect);
-                return futureResult.getIoFuture();
-            } finally {
-                if (! ok) {
-                    closeTick1("a failed connection (1)");
+                    log.logf(getClass().getName(), Logger.Level.TRACE, null, "Registered successful result %s", connHandlerFactory);
+                    final ConnectionImpl connection = new ConnectionImpl(EndpointImpl.this, connHandlerFactory, protocolRegistration.getContext(), destination, null, configuration, protocol);
+                    connections.add(connection);
+                    connection.getConnectionHandler().addCloseHandler(SpiUtils.asyncClosingCloseHandler(connection));
+                    connection.addCloseHandler(resourceCloseHandler);
+                    connection.addCloseHandler(connectionCloseHandler);
+                    // see if we were closed in the meantime
+                    if (EndpointImpl.this.isCloseFlagSet()) {
+                        connection.closeAsync();
+                        futureResult.setCancelled();
+                    } else {
+                        runConnectHooks(connection);
+                        futureResult.setResult(connection);
+                    }
+                    return true;
                 }
+            };
+            final Cancellable connect;
+            if (System.getSecurityManager() == null)
+                connect = connectionProvider.connect(destination, bindAddress, connectOptions, result, configuration, sslContext, finalFactoryOperator, Collections.emptyList());
+            else
+                connect = doPrivileged((PrivilegedAction<Cancellable>) () ->
+                    connectionProvider.connect(destination, bindAddress, connectOptions, result, configuration, sslContext, finalFactoryOperator, Collections.emptyList())
+            );
+            ok = true;
+            futureResult.addCancelHandler(connect);
+            return futureResult.getIoFuture();
+        } finally {
+            if (! ok) {
+                closeTick1("a failed connection (1)");
             }
         }
     }
@@ -751,6 +860,23 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         return worker;
     }
 
+    public Map<String, TransportMetrics> getServiceMetrics() {
+        final Map<String, TransportMetrics> map = new HashMap<>();
+        for (Map.Entry<String, RegisteredServiceImpl> entry : registeredServices.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().getCounters());
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    public LatencyHistogram getLatencyHistogram(final String name) {
+        Assert.checkNotNullParam("name", name);
+        return LatencyHistogram.ENABLED ? latencyHistograms.computeIfAbsent(name, ignored -> new LatencyHistogram()) : null;
+    }
+
+    public Map<String, LatencyHistogram> getLatencyHistograms() {
+        return Collections.unmodifiableMap(new HashMap<>(latencyHistograms));
+    }
+
     //for testing purposes
     OptionMap getDefaultConnectionOptionMap() {
         return defaultConnectionOptionMap;
@@ -825,6 +951,11 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
             return registeredServices.get(serviceType);
         }
 
+        public TransportCounters getServiceCounters(final String serviceType) {
+            final RegisteredServiceImpl registeredService = registeredServices.get(serviceType);
+            return registeredService == null ? null : registeredService.getCounters();
+        }
+
         public Connection getConnection() {
             return connection;
         }
@@ -893,23 +1024,25 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         }
 
         public void accept(final ConnectionHandlerFactory connectionHandlerFactory, final SaslAuthenticationFactory authenticationFactory) {
-            synchronized (connectionLock) {
-                try {
-                    resourceUntick("an inbound connection");
-                } catch (NotOpenException e) {
-                    throw new IllegalStateException("Accept after endpoint close", e);
-                }
-                boolean ok = false;
-                try {
-                    final ConnectionImpl connection = new ConnectionImpl(EndpointImpl.this, connectionHandlerFactory, this, null, authenticationFactory, AuthenticationConfiguration.empty(), saslProtocol);
-                    connections.add(connection);
-                    connection.getConnectionHandler().addCloseHandler(SpiUtils.asyncClosingCloseHandler(connection));
-                    connection.addCloseHandler(connectionCloseHandler);
-                    connection.addCloseHandler(resourceCloseHandler);
-                    ok = true;
-                } finally {
-                    if (! ok) closeTick1("a failed inbound connection");
+            try {
+                resourceUntick("an inbound connection");
+            } catch (NotOpenException e) {
+                throw new IllegalStateException("Accept after endpoint close", e);
+            }
+            boolean ok = false;
+            try {
+                final ConnectionImpl connection = new ConnectionImpl(EndpointImpl.this, connectionHandlerFactory, this, null, authenticationFactory, AuthenticationConfiguration.empty(), saslProtocol);
+                connections.add(connection);
+                connection.getConnectionHandler().addCloseHandler(SpiUtils.asyncClosingCloseHandler(connection));
+                connection.addCloseHandler(connectionCloseHandler);
+                connection.addCloseHandler(resourceCloseHandler);
+                ok = true;
+                // see if we were closed in the meantime
+                if (isCloseFlagSet()) {
+                    connection.closeAsync();
                 }
+            } finally {
+                if (! ok) closeTick1("a failed inbound connection");
             }
         }
 
@@ -937,6 +1070,7 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
     static class RegisteredServiceImpl implements RegisteredService {
         private final OpenListener openListener;
         private final OptionMap optionMap;
+        private final TransportCounters counters = new TransportCounters();
 
         private RegisteredServiceImpl(final OpenListener openListener, final OptionMap optionMap) {
             this.openListener = openListener;
@@ -950,6 +1084,10 @@ final class EndpointImpl extends AbstractHandleableCloseable<Endpoint> implement
         public OptionMap getOptionMap() {
             return optionMap;
         }
+
+        TransportCounters getCounters() {
+            return counters;
+        }
     }
 
     final class TrackingExecutor implements Executor {
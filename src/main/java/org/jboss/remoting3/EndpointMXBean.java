@@ -18,6 +18,8 @@
 
 package org.jboss.remoting3;
 
+import java.util.Map;
+
 /**
  * An MBean for examining the state of an endpoint.
  *
@@ -37,4 +39,12 @@ public interface EndpointMXBean {
     String[] getManagedConnectionURIs();
 
     int getConnectionCount();
+
+    Map<String, TransportMetrics> getServiceMetrics();
+
+    Map<String, TransportMetrics> getConnectionMetrics();
+
+    Map<String, LatencyHistogram.Snapshot> getLatencyPercentiles();
+
+    void resetLatencyHistograms();
 }
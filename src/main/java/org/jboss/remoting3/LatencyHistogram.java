@@ -0,0 +1,292 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with logarithmic buckets.  Each power-of-two range is divided into a fixed number of
+ * linear sub-buckets, giving a relative error of at most about 6% at any magnitude, in the style of an HDR histogram.
+ * Recording is wait-free apart from the maximum value, which is maintained with a CAS loop that rarely retries.
+ * <p>
+ * Latency histograms are only collected if the {@code jboss.remoting.latency-histograms} system property is set to
+ * {@code true}; otherwise {@link Endpoint#getLatencyHistogram(String)} returns {@code null}.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The histogram of the time from a channel open request to its acknowledgement.
+     */
+    public static final String CHANNEL_OPEN = "channel-open";
+
+    /**
+     * The histogram of the time message writers spend waiting for the transmit window to open.
+     */
+    public static final String WINDOW_STALL = "window-stall";
+
+    /**
+     * The histogram of the time frames spend in a connection write queue.
+     */
+    public static final String WRITE_QUEUE = "write-queue";
+
+    /**
+     * The histogram of the time from an invocation being tracked to its final response.
+     */
+    public static final String INVOCATION = "invocation";
+
+    static final boolean ENABLED;
+
+    static {
+        boolean enabled = false;
+        try {
+            enabled = Boolean.parseBoolean(System.getProperty("jboss.remoting.latency-histograms", "false"));
+        } catch (Throwable ignored) {}
+        ENABLED = enabled;
+    }
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (64 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Construct a new instance.
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * Record a latency value.  Negative values are ignored.
+     *
+     * @param nanos the latency, in nanoseconds
+     */
+    public void record(final long nanos) {
+        if (nanos < 0L) {
+            return;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        totalCount.increment();
+        totalNanos.add(nanos);
+        long oldMax;
+        do {
+            oldMax = max.get();
+            if (nanos <= oldMax) {
+                break;
+            }
+        } while (! max.compareAndSet(oldMax, nanos));
+    }
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Get the largest recorded value.
+     *
+     * @return the largest recorded value, in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the mean of the recorded values.
+     *
+     * @return the mean recorded value, in nanoseconds, or 0 if no values were recorded
+     */
+    public long getMean() {
+        final long count = totalCount.sum();
+        return count == 0L ? 0L : totalNanos.sum() / count;
+    }
+
+    /**
+     * Get the value at the given percentile.  The value returned is the upper bound of the bucket containing the
+     * percentile, capped at the largest recorded value.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the percentile, in nanoseconds, or 0 if no values were recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final AtomicLongArray counts = this.counts;
+        long total = 0L;
+        final long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += copy[i] = counts.get(i);
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        final long target = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+        long seen = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += copy[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Take a percentile snapshot of this histogram.
+     *
+     * @return the snapshot (not {@code null})
+     */
+    public Snapshot getSnapshot() {
+        return new Snapshot(getCount(), getMean(), getValueAtPercentile(50.0), getValueAtPercentile(90.0), getValueAtPercentile(99.0), getValueAtPercentile(99.9), getMax());
+    }
+
+    /**
+     * Clear all recorded values.  Values recorded concurrently with a reset may or may not be retained.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        totalCount.reset();
+        totalNanos.reset();
+        max.set(0L);
+    }
+
+    public String toString() {
+        return getSnapshot().toString();
+    }
+
+    static int indexOf(final long value) {
+        final int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift <= 0) {
+            return (int) value;
+        }
+        // the top SUB_BUCKET_BITS bits of the value, which always falls in [SUB_BUCKET_HALF, SUB_BUCKET_COUNT)
+        final int sub = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + sub - SUB_BUCKET_HALF;
+    }
+
+    static long highestValueOf(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        final long sub = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * An immutable percentile snapshot of a latency histogram.  All values are in microseconds.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Snapshot(final long count, final long mean, final long p50, final long p90, final long p99, final long p999, final long max) {
+            this.count = count;
+            this.mean = mean / 1000L;
+            this.p50 = p50 / 1000L;
+            this.p90 = p90 / 1000L;
+            this.p99 = p99 / 1000L;
+            this.p999 = p999 / 1000L;
+            this.max = max / 1000L;
+        }
+
+        /**
+         * Get the number of recorded values.
+         *
+         * @return the number of recorded values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Get the mean value.
+         *
+         * @return the mean value in microseconds
+         */
+        public long getMean() {
+            return mean;
+        }
+
+        /**
+         * Get the median value.
+         *
+         * @return the median value in microseconds
+         */
+        public long getP50() {
+            return p50;
+        }
+
+        /**
+         * Get the 90th percentile value.
+         *
+         * @return the 90th percentile value in microseconds
+         */
+        public long getP90() {
+            return p90;
+        }
+
+        /**
+         * Get the 99th percentile value.
+         *
+         * @return the 99th percentile value in microseconds
+         */
+        public long getP99() {
+            return p99;
+        }
+
+        /**
+         * Get the 99.9th percentile value.
+         *
+         * @return the 99.9th percentile value in microseconds
+         */
+        public long getP999() {
+            return p999;
+        }
+
+        /**
+         * Get the largest value.
+         *
+         * @return the largest value in microseconds
+         */
+        public long getMax() {
+            return max;
+        }
+
+        public String toString() {
+            return String.format("count=%d mean=%dus p50=%dus p90=%dus p99=%dus p99.9=%dus max=%dus",
+                Long.valueOf(count), Long.valueOf(mean), Long.valueOf(p50), Long.valueOf(p90), Long.valueOf(p99), Long.valueOf(p999), Long.valueOf(max));
+        }
+    }
+}
@@ -19,123 +19,222 @@
 package org.jboss.remoting3;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InterruptedIOException;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import org.jboss.remoting3.spi.AbstractHandleableCloseable;
 import org.jboss.remoting3.spi.ConnectionHandlerContext;
-import org.xnio.IoUtils;
+import org.wildfly.common.Assert;
+import org.xnio.BrokenPipeException;
 import org.xnio.Option;
-import org.xnio.streams.Pipe;
+import org.xnio.OptionMap;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class LocalChannel extends AbstractHandleableCloseable<Channel> implements Channel {
+    private static final Receiver CLAIMED = new Receiver() {
+        public void handleError(final Channel channel, final IOException error) {
+        }
+
+        public void handleEnd(final Channel channel) {
+        }
+
+        public void handleMessage(final Channel channel, final MessageInputStream message) {
+        }
+    };
+
     private final Attachments attachments = new Attachments();
     private final LocalChannel otherSide;
     private final ConnectionHandlerContext connectionHandlerContext;
-    private final Queue<In> messageQueue;
-    private final Object lock = new Object();
+    private final Queue<In> messageQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedMessages = new AtomicInteger();
+    private final Queue<Thread> spaceWaiters = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> writableTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Receiver> messageHandler = new AtomicReference<>();
     private final int queueLength;
     private final int bufferSize;
+    private final int windowSize;
 
-    private Receiver messageHandler;
+    private volatile boolean closed;
 
-    private boolean closed;
-
-    LocalChannel(final Executor executor, final LocalChannel otherSide, final ConnectionHandlerContext connectionHandlerContext) {
+    LocalChannel(final Executor executor, final LocalChannel otherSide, final ConnectionHandlerContext connectionHandlerContext, final OptionMap optionMap) {
         super(executor, true);
         this.otherSide = otherSide;
         this.connectionHandlerContext = connectionHandlerContext;
-        queueLength = 8;
-        messageQueue = new ArrayDeque<In>(queueLength);
-        bufferSize = 8192;
+        queueLength = optionMap.get(RemotingOptions.MAX_INBOUND_MESSAGES, RemotingOptions.DEFAULT_MAX_INBOUND_MESSAGES);
+        bufferSize = optionMap.get(RemotingOptions.SEND_BUFFER_SIZE, RemotingOptions.DEFAULT_SEND_BUFFER_SIZE);
+        windowSize = optionMap.get(RemotingOptions.RECEIVE_WINDOW_SIZE, RemotingOptions.INCOMING_CHANNEL_DEFAULT_RECEIVE_WINDOW_SIZE);
     }
 
-    LocalChannel(final Executor executor, final ConnectionHandlerContext connectionHandlerContext) {
+    LocalChannel(final Executor executor, final ConnectionHandlerContext connectionHandlerContext, final OptionMap optionMap) {
         super(executor, true);
         this.connectionHandlerContext = connectionHandlerContext;
-        otherSide = new LocalChannel(executor, this, connectionHandlerContext);
-        queueLength = 8;
-        messageQueue = new ArrayDeque<In>(queueLength);
-        bufferSize = 8192;
+        otherSide = new LocalChannel(executor, this, connectionHandlerContext, optionMap);
+        queueLength = optionMap.get(RemotingOptions.MAX_INBOUND_MESSAGES, RemotingOptions.DEFAULT_MAX_INBOUND_MESSAGES);
+        bufferSize = optionMap.get(RemotingOptions.SEND_BUFFER_SIZE, RemotingOptions.DEFAULT_SEND_BUFFER_SIZE);
+        windowSize = optionMap.get(RemotingOptions.RECEIVE_WINDOW_SIZE, RemotingOptions.INCOMING_CHANNEL_DEFAULT_RECEIVE_WINDOW_SIZE);
     }
 
     public MessageOutputStream writeMessage() throws IOException {
         final LocalChannel otherSide = this.otherSide;
-        final Queue<In> otherSideQueue = otherSide.messageQueue;
-        synchronized (otherSide.lock) {
-            for (;;) {
-                if (otherSide.closed) {
-                    throw new NotOpenException("Writes have been shut down");
-                }
-                final int size = otherSideQueue.size();
-                if (size == queueLength) {
-                    try {
-                        otherSide.lock.wait();
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new InterruptedIOException();
-                    }
-                } else {
-                    final Pipe pipe = new Pipe(bufferSize);
-                    In in = new In(pipe.getIn());
-                    if (size == 0) {
-                        final Receiver handler = otherSide.messageHandler;
-                        if (handler != null) {
-                            otherSide.messageHandler = null;
-                            otherSide.lock.notify();
-                            executeMessageTask(handler, in);
-                            return new Out(pipe.getOut(), in);
-                        }
-                    }
-                    otherSideQueue.add(in);
-                    otherSide.lock.notify();
-                    return new Out(pipe.getOut(), in);
-                }
-            }
+        otherSide.reserveSlot();
+        final MessagePipe pipe = new MessagePipe(windowSize);
+        final In in = new In(pipe);
+        otherSide.messageQueue.add(in);
+        // a shutdown may have slipped in between the reservation and the add, after the end was delivered
+        if (otherSide.closed && otherSide.messageQueue.remove(in)) {
+            otherSide.releaseSlot();
+            throw new NotOpenException("Writes have been shut down");
         }
+        otherSide.deliver();
+        return new Out(pipe, bufferSize);
     }
 
-    public void writeShutdown() throws IOException {
+    public void whenWritable(final Runnable task) {
+        Assert.checkNotNullParam("task", task);
         final LocalChannel otherSide = this.otherSide;
-        synchronized (otherSide.lock) {
-            if (! otherSide.closed) {
-                otherSide.closed = true;
-                final Receiver messageHandler = otherSide.messageHandler;
-                if (messageHandler != null && otherSide.messageQueue.isEmpty()) {
-                    executeEndTask(messageHandler);
-                } else {
-                    otherSide.lock.notify();
+        final Runnable waiter = () -> getExecutor().execute(task);
+        if (otherSide.hasSpace()) {
+            waiter.run();
+            return;
+        }
+        otherSide.writableTasks.add(waiter);
+        // re-check in case a slot was released before we were visible
+        if (otherSide.hasSpace() && otherSide.writableTasks.remove(waiter)) {
+            waiter.run();
+        }
+    }
+
+    private boolean hasSpace() {
+        return closed || queuedMessages.get() < queueLength;
+    }
+
+    private void reserveSlot() throws IOException {
+        final AtomicInteger queuedMessages = this.queuedMessages;
+        final Thread thread = Thread.currentThread();
+        boolean waited = false;
+        // set while we hold a wakeup that must be passed on if we give up without taking a slot
+        boolean signalled = false;
+        for (;;) {
+            if (closed) {
+                if (signalled) {
+                    signalSpace();
+                }
+                throw new NotOpenException("Writes have been shut down");
+            }
+            final int cnt = queuedMessages.get();
+            if (cnt < queueLength) {
+                if (queuedMessages.compareAndSet(cnt, cnt + 1)) {
+                    return;
+                }
+                continue;
+            }
+            if (waited && Thread.interrupted()) {
+                if (signalled) {
+                    signalSpace();
                 }
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            spaceWaiters.add(thread);
+            if (queuedMessages.get() >= queueLength && ! closed) {
+                LockSupport.park(this);
             }
+            signalled = ! spaceWaiters.remove(thread);
+            waited = true;
         }
     }
 
-    public void receiveMessage(final Receiver handler) {
-        final Object lock = this.lock;
-        synchronized (lock) {
-            if (messageHandler != null) {
-                throw new IllegalStateException("Message handler already waiting");
+    private void releaseSlot() {
+        queuedMessages.decrementAndGet();
+        signalSpace();
+    }
+
+    /**
+     * Wake one parked writer and run every pending writable task.  The tasks do not consume a slot, so they must never
+     * take a wakeup meant for a writer.
+     */
+    private void signalSpace() {
+        final Thread waiter = spaceWaiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+        runWritableTasks();
+    }
+
+    private void signalAllSpace() {
+        Thread waiter;
+        while ((waiter = spaceWaiters.poll()) != null) {
+            LockSupport.unpark(waiter);
+        }
+        runWritableTasks();
+    }
+
+    private void runWritableTasks() {
+        Runnable task;
+        while ((task = writableTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Hand the next queued message (or the end of stream) to the waiting receiver, if there is one.  Both writers and
+     * the receiver call this after publishing their half, so whichever comes second performs the handoff.
+     */
+    private void deliver() {
+        final AtomicReference<Receiver> messageHandler = this.messageHandler;
+        for (;;) {
+            final Receiver handler = messageHandler.get();
+            if (handler == null || handler == CLAIMED) {
+                return;
+            }
+            if (messageQueue.isEmpty() && ! closed) {
+                return;
+            }
+            if (! messageHandler.compareAndSet(handler, CLAIMED)) {
+                continue;
+            }
+            final In in = messageQueue.poll();
+            if (in != null) {
+                messageHandler.set(null);
+                releaseSlot();
+                executeMessageTask(handler, in);
+                return;
             }
             if (closed) {
+                messageHandler.set(null);
                 executeEndTask(handler);
-            } else {
-                final In in = messageQueue.poll();
-                if (in != null) {
-                    executeMessageTask(handler, in);
-                } else {
-                    messageHandler = handler;
-                    lock.notify();
-                }
+                return;
             }
+            // lost a race with a concurrent state change; put the handler back and look again
+            messageHandler.set(handler);
+        }
+    }
+
+    public void writeShutdown() throws IOException {
+        final LocalChannel otherSide = this.otherSide;
+        if (! otherSide.closed) {
+            otherSide.closed = true;
+            otherSide.signalAllSpace();
+            otherSide.deliver();
         }
     }
 
+    public void receiveMessage(final Receiver handler) {
+        if (! messageHandler.compareAndSet(null, handler)) {
+            throw new IllegalStateException("Message handler already waiting");
+        }
+        deliver();
+    }
+
     public boolean supportsOption(final Option<?> option) {
         return false;
     }
@@ -165,10 +264,9 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
     }
 
     protected void closeAction() throws IOException {
-        synchronized (lock) {
-            closed = true;
-            lock.notifyAll();
-        }
+        closed = true;
+        signalAllSpace();
+        deliver();
         otherSide.connectionHandlerContext.remoteClosed();
         closeComplete();
     }
@@ -177,134 +275,284 @@ final class LocalChannel extends AbstractHandleableCloseable<Channel> implements
         return otherSide;
     }
 
-    static final class Out extends MessageOutputStream {
-        private final OutputStream outputStream;
-        private final In in;
-
-        Out(final OutputStream outputStream, final In in) {
-            this.outputStream = outputStream;
-            this.in = in;
+    /**
+     * The body of a single message.  Buffers are filled by the writer and then handed over to the reader whole, so
+     * the bytes are not copied again on their way to the reader; the writer only waits if the reader falls more than a
+     * window behind.
+     */
+    static final class MessagePipe {
+        private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+        private final int windowSize;
+        private int queuedBytes;
+        private boolean eof;
+        private boolean readerClosed;
+        private boolean cancelled;
+        // a drained buffer kept for the writer to reuse
+        private ByteBuffer spare;
+
+        MessagePipe(final int windowSize) {
+            this.windowSize = windowSize;
         }
 
-        public void flush() throws IOException {
-            try {
-                outputStream.flush();
-            } catch (IOException e) {
-                cancel();
-                throw e;
+        synchronized void offer(final ByteBuffer buffer) throws IOException {
+            for (;;) {
+                if (cancelled) {
+                    throw new MessageCancelledException();
+                }
+                if (readerClosed) {
+                    throw new BrokenPipeException("Remote side closed the message stream");
+                }
+                if (queuedBytes == 0 || queuedBytes + buffer.remaining() <= windowSize) {
+                    break;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
             }
+            buffers.add(buffer);
+            queuedBytes += buffer.remaining();
+            notifyAll();
         }
 
-        public void close() throws IOException {
-            try {
-                outputStream.close();
-            } catch (IOException e) {
-                cancel();
-                throw e;
+        synchronized void finish() {
+            eof = true;
+            notifyAll();
+        }
+
+        synchronized void cancel() {
+            if (! eof || ! buffers.isEmpty()) {
+                cancelled = true;
+                buffers.clear();
+                queuedBytes = 0;
+                notifyAll();
             }
         }
 
-        public void write(final int b) throws IOException {
-            try {
-                outputStream.write(b);
-            } catch (IOException e) {
-                cancel();
-                throw e;
+        synchronized ByteBuffer takeSpare(final int bufferSize) {
+            final ByteBuffer spare = this.spare;
+            if (spare != null) {
+                this.spare = null;
+                spare.clear();
+                return spare;
             }
+            return ByteBuffer.allocate(bufferSize);
+        }
+
+        synchronized boolean wasCancelled() {
+            return cancelled;
         }
 
-        public void write(final byte[] b) throws IOException {
-            try {
-                outputStream.write(b);
-            } catch (IOException e) {
-                cancel();
-                throw e;
+        /**
+         * Get the buffer at the head of the pipe, waiting for one if necessary.  Drained buffers are released.
+         *
+         * @return the head buffer, or {@code null} on end of message
+         */
+        synchronized ByteBuffer head() throws IOException {
+            for (;;) {
+                if (cancelled) {
+                    throw new MessageCancelledException();
+                }
+                final ByteBuffer head = buffers.peekFirst();
+                if (head != null) {
+                    if (head.hasRemaining()) {
+                        return head;
+                    }
+                    release(buffers.pollFirst());
+                    continue;
+                }
+                if (eof || readerClosed) {
+                    return null;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
             }
         }
 
-        public void write(final byte[] b, final int off, final int len) throws IOException {
-            try {
-                outputStream.write(b, off, len);
-            } catch (IOException e) {
-                cancel();
-                throw e;
+        synchronized int available() throws IOException {
+            if (cancelled) {
+                throw new MessageCancelledException();
             }
+            return queuedBytes;
         }
 
-        public Out cancel() {
-            in.doCancel();
-            IoUtils.safeClose(outputStream);
-            return this;
+        synchronized void consumed(final int count) {
+            queuedBytes -= count;
+            notifyAll();
+        }
+
+        synchronized void closeReader() {
+            readerClosed = true;
+            buffers.clear();
+            queuedBytes = 0;
+            notifyAll();
+        }
+
+        private void release(final ByteBuffer buffer) {
+            if (spare == null && buffer.hasArray() && ! buffer.isReadOnly()) {
+                spare = buffer;
+            }
         }
     }
 
-    static final class In extends MessageInputStream {
-        private final InputStream inputStream;
-        private volatile boolean cancelled;
+    static final class Out extends MessageOutputStream {
+        private final MessagePipe pipe;
+        private final int bufferSize;
+        private ByteBuffer current;
+        private boolean closed;
+
+        Out(final MessagePipe pipe, final int bufferSize) {
+            this.pipe = pipe;
+            this.bufferSize = bufferSize;
+        }
 
-        In(final InputStream inputStream) {
-            this.inputStream = inputStream;
+        private ByteBuffer current() throws IOException {
+            if (closed) {
+                throw new NotOpenException("Message was closed");
+            }
+            ByteBuffer current = this.current;
+            if (current == null) {
+                current = this.current = pipe.takeSpare(bufferSize);
+            }
+            return current;
         }
 
-        public InputStream getInputStream() throws IOException {
-            return inputStream;
+        private void handOff() throws IOException {
+            final ByteBuffer current = this.current;
+            if (current != null && current.position() > 0) {
+                this.current = null;
+                current.flip();
+                try {
+                    pipe.offer(current);
+                } catch (IOException e) {
+                    cancel();
+                    throw e;
+                }
+            }
         }
 
-        synchronized void doCancel() {
-            cancelled = true;
+        public void flush() throws IOException {
+            if (! closed) {
+                handOff();
+            }
         }
 
-        public synchronized boolean wasCancelled() {
-            return cancelled;
+        public void close() throws IOException {
+            if (! closed) {
+                handOff();
+                closed = true;
+                pipe.finish();
+            }
         }
 
-        public int read() throws IOException {
-            checkCancel();
-            return inputStream.read();
+        public void write(final int b) throws IOException {
+            final ByteBuffer current = current();
+            current.put((byte) b);
+            if (! current.hasRemaining()) {
+                handOff();
+            }
         }
 
-        private synchronized void checkCancel() throws MessageCancelledException {
-            if (cancelled) {
-                throw new MessageCancelledException();
+        public void write(final byte[] b, int off, int len) throws IOException {
+            if (len >= bufferSize && (current == null || current.position() == 0)) {
+                // large writes are handed over as a single buffer; the caller may reuse its array, so it is copied
+                if (closed) {
+                    throw new NotOpenException("Message was closed");
+                }
+                try {
+                    pipe.offer(ByteBuffer.wrap(Arrays.copyOfRange(b, off, off + len)));
+                } catch (IOException e) {
+                    cancel();
+                    throw e;
+                }
+                return;
+            }
+            while (len > 0) {
+                final ByteBuffer current = current();
+                final int cnt = Math.min(len, current.remaining());
+                current.put(b, off, cnt);
+                off += cnt;
+                len -= cnt;
+                if (! current.hasRemaining()) {
+                    handOff();
+                }
             }
         }
 
-        public int read(final byte[] b) throws IOException {
-            checkCancel();
-            return inputStream.read(b);
+        public Out cancel() {
+            current = null;
+            if (! closed) {
+                closed = true;
+                pipe.cancel();
+            }
+            return this;
         }
+    }
 
-        public int read(final byte[] b, final int off, final int len) throws IOException {
-            checkCancel();
-            return inputStream.read(b, off, len);
+    static final class In extends MessageInputStream {
+        private final MessagePipe pipe;
+
+        In(final MessagePipe pipe) {
+            this.pipe = pipe;
         }
 
-        public long skip(final long n) throws IOException {
-            checkCancel();
-            return inputStream.skip(n);
+        public boolean wasCancelled() {
+            return pipe.wasCancelled();
         }
 
-        public int available() throws IOException {
-            checkCancel();
-            return inputStream.available();
+        public int read() throws IOException {
+            final ByteBuffer head = pipe.head();
+            if (head == null) {
+                return -1;
+            }
+            final int b = head.get() & 0xff;
+            pipe.consumed(1);
+            return b;
         }
 
-        public void close() throws IOException {
-            checkCancel();
-            inputStream.close();
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            final ByteBuffer head = pipe.head();
+            if (head == null) {
+                return -1;
+            }
+            final int cnt = Math.min(len, head.remaining());
+            head.get(b, off, cnt);
+            pipe.consumed(cnt);
+            return cnt;
         }
 
-        public void mark(final int readlimit) {
-            inputStream.mark(readlimit);
+        public long skip(final long n) throws IOException {
+            if (n <= 0L) {
+                return 0L;
+            }
+            final ByteBuffer head = pipe.head();
+            if (head == null) {
+                return 0L;
+            }
+            final int cnt = (int) Math.min(n, head.remaining());
+            head.position(head.position() + cnt);
+            pipe.consumed(cnt);
+            return cnt;
         }
 
-        public void reset() throws IOException {
-            checkCancel();
-            inputStream.reset();
+        public int available() throws IOException {
+            return pipe.available();
         }
 
-        public boolean markSupported() {
-            return inputStream.markSupported();
+        public void close() throws IOException {
+            if (pipe.wasCancelled()) {
+                throw new MessageCancelledException();
+            }
+            pipe.closeReader();
         }
     }
 }
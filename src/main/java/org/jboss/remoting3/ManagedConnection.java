@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.net.SocketAddress;
 import java.net.URI;
 import java.security.Principal;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLSession;
 
@@ -150,4 +151,16 @@ final class ManagedConnection implements Connection {
     public boolean supportsRemoteAuth() {
         return delegate.supportsRemoteAuth();
     }
+
+    public long getRoundTripTime(final TimeUnit unit) {
+        return delegate.getRoundTripTime(unit);
+    }
+
+    public long getRoundTripTimeVariance(final TimeUnit unit) {
+        return delegate.getRoundTripTimeVariance(unit);
+    }
+
+    public TransportMetrics getMetrics() {
+        return delegate.getMetrics();
+    }
 }
@@ -70,11 +70,36 @@ public abstract class MessageInputStream extends InputStream implements DataInpu
     }
 
     public int readInt() throws IOException {
-        return StreamUtils.readInt32BE(this);
+        // one bulk read rather than one call per byte
+        final byte[] bytes = new byte[4];
+        readFully(bytes);
+        return StreamUtils.readInt32BE(bytes, 0);
     }
 
     public long readLong() throws IOException {
-        return (long) readInt() << 32L | readInt() & 0xffffffffL;
+        final byte[] bytes = new byte[8];
+        readFully(bytes);
+        return StreamUtils.readInt64BE(bytes, 0);
+    }
+
+    /**
+     * Read a packed unsigned 31-bit integer, as written by {@link MessageOutputStream#writePackedUnsignedInt31(int)}.
+     *
+     * @return the value
+     * @throws IOException if an error occurs while reading, or the end of the message was reached
+     */
+    public int readPackedUnsignedInt31() throws IOException {
+        return StreamUtils.readPackedUnsignedInt31(this);
+    }
+
+    /**
+     * Read a packed unsigned 32-bit integer, as written by {@link MessageOutputStream#writePackedUnsignedInt32(int)}.
+     *
+     * @return the value
+     * @throws IOException if an error occurs while reading, or the end of the message was reached
+     */
+    public int readPackedUnsignedInt32() throws IOException {
+        return StreamUtils.readPackedUnsignedInt32(this);
     }
 
     public float readFloat() throws IOException {
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
 
+import org.jboss.remoting3.util.StreamUtils;
 import org.xnio.Cancellable;
 
 /**
@@ -79,22 +80,44 @@ public abstract class MessageOutputStream extends OutputStream implements DataOu
 
     /** {@inheritDoc} */
     public void writeInt(final int v) throws IOException {
-        write(v >> 24);
-        write(v >> 16);
-        write(v >> 8);
-        write(v);
+        // one bulk write rather than one (typically synchronized) call per byte
+        final byte[] bytes = new byte[4];
+        StreamUtils.writeInt32BE(bytes, 0, v);
+        write(bytes, 0, 4);
     }
 
     /** {@inheritDoc} */
     public void writeLong(final long v) throws IOException {
-        write((int) (v >> 56));
-        write((int) (v >> 48));
-        write((int) (v >> 40));
-        write((int) (v >> 32));
-        write((int) (v >> 24));
-        write((int) (v >> 16));
-        write((int) (v >> 8));
-        write((int) v);
+        final byte[] bytes = new byte[8];
+        StreamUtils.writeInt64BE(bytes, 0, v);
+        write(bytes, 0, 8);
+    }
+
+    /**
+     * Write a packed unsigned 31-bit integer, which can be read by {@link MessageInputStream#readPackedUnsignedInt31()}.
+     * The sign bit is ignored.
+     *
+     * @param v the value to write
+     * @throws IOException if an error occurs while writing
+     */
+    public void writePackedUnsignedInt31(final int v) throws IOException {
+        writePackedUnsignedInt32(v & 0x7fff_ffff);
+    }
+
+    /**
+     * Write a packed unsigned 32-bit integer, which can be read by {@link MessageInputStream#readPackedUnsignedInt32()}.
+     * Values below 128 take one byte, and no value takes more than five.
+     *
+     * @param v the value to write
+     * @throws IOException if an error occurs while writing
+     */
+    public void writePackedUnsignedInt32(final int v) throws IOException {
+        if ((v & ~0b0111_1111) == 0) {
+            write(v);
+        } else {
+            final byte[] bytes = new byte[5];
+            write(bytes, 0, StreamUtils.writePackedUnsignedInt32(bytes, 0, v));
+        }
     }
 
     /** {@inheritDoc} */
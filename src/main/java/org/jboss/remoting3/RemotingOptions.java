@@ -286,6 +286,18 @@ public final class RemotingOptions {
      */
     public static final int DEFAULT_HEARTBEAT_INTERVAL = 60000;
 
+    /**
+     * Specify whether compact heartbeats may be used if the peer supports them.  Compact heartbeat messages carry no
+     * random padding, and heartbeats are skipped when other data is already queued for the peer.  Acknowledgements are
+     * always sent.
+     */
+    public static final Option<Boolean> COMPACT_HEARTBEAT = Option.simple(RemotingOptions.class, "COMPACT_HEARTBEAT", Boolean.class);
+
+    /**
+     * The default compact heartbeat setting.
+     */
+    public static final boolean DEFAULT_COMPACT_HEARTBEAT = true;
+
     /**
      * The maximum inbound message size to be allowed.  Messages exceeding this size will cause an exception to be thrown
      * on the reading side as well as the writing side.
@@ -40,8 +40,9 @@ import org.xnio.XnioWorker;
 final class RemotingXmlParser {
     private static final String NS_REMOTING_5_0 = "urn:jboss-remoting:5.0";
     private static final String NS_REMOTING_5_1 = "urn:jboss-remoting:5.1";
+    private static final String NS_REMOTING_5_2 = "urn:jboss-remoting:5.2";
 
-    private static final Set<String> validNamespaces = new HashSet<>(Arrays.asList(NS_REMOTING_5_0, NS_REMOTING_5_1));
+    private static final Set<String> validNamespaces = new HashSet<>(Arrays.asList(NS_REMOTING_5_0, NS_REMOTING_5_1, NS_REMOTING_5_2));
 
     private RemotingXmlParser() {
     }
@@ -84,7 +85,8 @@ final class RemotingXmlParser {
                     parseEndpointElement50(reader, builder);
                     break;
                 }
-                case NS_REMOTING_5_1: {
+                case NS_REMOTING_5_1:
+                case NS_REMOTING_5_2: {
                     parseEndpointElement51(reader, builder);
                     break;
                 }
@@ -308,6 +310,8 @@ final class RemotingXmlParser {
         boolean setTcpKeepAlive = false;
         boolean tcpKeepAlive = false;
         int heartbeatInterval = -1;
+        boolean preconnect = false;
+        final boolean is52 = NS_REMOTING_5_2.equals(reader.getNamespaceURI());
         for (int i = 0; i < attributeCount; i++) {
             checkAttributeNamespace(reader, i);
             switch (reader.getAttributeLocalName(i)) {
@@ -336,6 +340,11 @@ final class RemotingXmlParser {
                     heartbeatInterval = reader.getIntAttributeValueResolved(i, 0, Integer.MAX_VALUE);
                     break;
                 }
+                case "preconnect": {
+                    if (! is52) throw reader.unexpectedAttribute(i);
+                    preconnect = reader.getBooleanAttributeValueResolved(i);
+                    break;
+                }
                 default: {
                     throw reader.unexpectedAttribute(i);
                 }
@@ -360,6 +369,7 @@ final class RemotingXmlParser {
         if (heartbeatInterval != -1) {
             connectionBuilder.setHeartbeatInterval(heartbeatInterval);
         }
+        connectionBuilder.setPreconnect(preconnect);
         if (reader.nextTag() != END_ELEMENT) {
             throw reader.unexpectedContent();
         }
@@ -375,7 +385,8 @@ final class RemotingXmlParser {
     private static void checkElementNamespace(final ConfigurationXMLStreamReader reader) throws ConfigXMLParseException {
         switch (reader.getNamespaceURI()) {
             case NS_REMOTING_5_0:
-            case NS_REMOTING_5_1: break;
+            case NS_REMOTING_5_1:
+            case NS_REMOTING_5_2: break;
             default: throw reader.unexpectedElement();
         }
     }
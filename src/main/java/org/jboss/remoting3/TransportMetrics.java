@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+/**
+ * A live view of the traffic counters of a connection, a channel, or all the channels of a service type.  Values are
+ * collected with striped counters and read without locking, so a set of values read one after another is not
+ * guaranteed to be mutually consistent while traffic is flowing.
+ * <p>
+ * For connections, the byte and frame counts reflect the transport framing (including control messages); for channels
+ * and services, they reflect message payload only.
+ * <p>
+ * This interface is part of the Remoting public API.  It is intended to be consumed by Remoting applications; it is
+ * not intended to be implemented by them.  Methods may be added to this interface in future minor releases without
+ * advance notice.
+ */
+public interface TransportMetrics {
+
+    /**
+     * Get the number of bytes received.
+     *
+     * @return the number of bytes received
+     */
+    long getBytesIn();
+
+    /**
+     * Get the number of bytes sent.
+     *
+     * @return the number of bytes sent
+     */
+    long getBytesOut();
+
+    /**
+     * Get the number of frames received.
+     *
+     * @return the number of frames received
+     */
+    long getFramesIn();
+
+    /**
+     * Get the number of frames sent.
+     *
+     * @return the number of frames sent
+     */
+    long getFramesOut();
+
+    /**
+     * Get the number of messages (inbound and outbound) which have been opened.
+     *
+     * @return the number of opened messages
+     */
+    long getMessagesOpened();
+
+    /**
+     * Get the number of messages (inbound and outbound) which have been closed.
+     *
+     * @return the number of closed messages
+     */
+    long getMessagesClosed();
+
+    /**
+     * Get the number of times a message writer had to wait for the peer to open the transmit window.
+     *
+     * @return the number of window stalls
+     */
+    long getWindowStalls();
+
+    /**
+     * Get the total time spent by message writers waiting for the transmit window to open.
+     *
+     * @return the total window stall time, in nanoseconds
+     */
+    long getWindowStallNanos();
+
+    /**
+     * Get the number of times a message could not be opened because the maximum number of messages was already
+     * outstanding (see {@link ChannelBusyException}).
+     *
+     * @return the number of channel busy conditions
+     */
+    long getChannelBusyCount();
+
+    /**
+     * Get the number of frames currently waiting in the write queue.  Only meaningful for connections.
+     *
+     * @return the current write queue depth
+     */
+    long getWriteQueueDepth();
+
+    /**
+     * Get the number of invocations which were failed because no response arrived before their deadline.  Only
+     * invocations tracked by an {@link org.jboss.remoting3.util.InvocationTracker} with a deadline are counted.
+     *
+     * @return the number of invocation timeouts
+     */
+    long getInvocationTimeouts();
+}
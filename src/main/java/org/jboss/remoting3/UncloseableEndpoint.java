@@ -21,6 +21,7 @@ package org.jboss.remoting3;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.Map;
 
 import javax.net.ssl.SSLContext;
 
@@ -39,6 +40,10 @@ final class UncloseableEndpoint implements Endpoint {
         this.endpoint = endpoint;
     }
 
+    Endpoint getDelegate() {
+        return endpoint;
+    }
+
     public String getName() {
         return endpoint.getName();
     }
@@ -79,6 +84,18 @@ final class UncloseableEndpoint implements Endpoint {
         return endpoint.isValidUriScheme(uriScheme);
     }
 
+    public Map<String, TransportMetrics> getServiceMetrics() {
+        return endpoint.getServiceMetrics();
+    }
+
+    public LatencyHistogram getLatencyHistogram(final String name) {
+        return endpoint.getLatencyHistogram(name);
+    }
+
+    public Map<String, LatencyHistogram> getLatencyHistograms() {
+        return endpoint.getLatencyHistograms();
+    }
+
     public XnioWorker getXnioWorker() {
         return endpoint.getXnioWorker();
     }
@@ -133,6 +133,9 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
             ProtocolUtils.writeInt(sendBuffer, Protocol.CAP_CHANNELS_IN, maxInboundChannels);
             ProtocolUtils.writeInt(sendBuffer, Protocol.CAP_CHANNELS_OUT, maxOutboundChannels);
             ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_AUTHENTICATION);
+            if (optionMap.get(RemotingOptions.COMPACT_HEARTBEAT, RemotingOptions.DEFAULT_COMPACT_HEARTBEAT)) {
+                ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_COMPACT_HEARTBEAT);
+            }
             final Collection<String> serverMechs = this.serverMechs;
             if (serverMechs != null) {
                 for (String name : serverMechs) {
@@ -192,6 +195,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                     }
                     case Protocol.CONNECTION_ALIVE_ACK: {
                         client.trace("Client received connection alive ack");
+                        connection.handleAliveResponse();
                         return;
                     }
                     case Protocol.CONNECTION_CLOSE: {
@@ -288,6 +292,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                     }
                     case Protocol.CONNECTION_ALIVE_ACK: {
                         client.trace("Client received connection alive ack");
+                        connection.handleAliveResponse();
                         return;
                     }
                     case Protocol.CONNECTION_CLOSE: {
@@ -365,6 +370,14 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                                     client.trace("Client received capability: authentication service");
                                     break;
                                 }
+                                case Protocol.CAP_COMPACT_HEARTBEAT: {
+                                    client.trace("Client received capability: compact heartbeat");
+                                    if (optionMap.get(RemotingOptions.COMPACT_HEARTBEAT, RemotingOptions.DEFAULT_COMPACT_HEARTBEAT)) {
+                                        behavior |= Protocol.BH_COMPACT_HEARTBEAT;
+                                        connection.setCompactHeartbeat(true);
+                                    }
+                                    break;
+                                }
                                 default: {
                                     client.tracef("Client received unknown capability %02x", Integer.valueOf(type & 0xff));
                                     // unknown, skip it for forward compatibility.
@@ -565,6 +578,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                     }
                     case Protocol.CONNECTION_ALIVE_ACK: {
                         client.trace("Client received connection alive ack");
+                        connection.handleAliveResponse();
                         return;
                     }
                     case Protocol.CONNECTION_CLOSE: {
@@ -650,6 +664,7 @@ final class ClientConnectionOpenListener implements ChannelListener<ConduitStrea
                     }
                     case Protocol.CONNECTION_ALIVE_ACK: {
                         client.trace("Client received connection alive ack");
+                        connection.handleAliveResponse();
                         return;
                     }
                     case Protocol.CONNECTION_CLOSE: {
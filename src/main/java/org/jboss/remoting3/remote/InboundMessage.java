@@ -35,7 +35,7 @@ import static org.xnio.IoUtils.safeClose;
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
-final class InboundMessage {
+final class InboundMessage implements PendingInboundMessage {
     final short messageId;
     final RemoteConnectionChannel channel;
     int inboundWindow;
@@ -68,7 +68,11 @@ final class InboundMessage {
         return messageId & 0xffff;
     }
 
-    void terminate() {
+    public MessageInputStream getMessageInputStream() {
+        return messageInputStream;
+    }
+
+    public void terminate() {
         synchronized (inputStream) {
             safeClose(inputStream);
         }
@@ -257,7 +261,7 @@ final class InboundMessage {
         }
     }
 
-    void dumpState(final StringBuilder b) {
+    public void dumpState(final StringBuilder b) {
         b.append("            ").append(String.format("Inbound message ID %04x, window %d\n", messageId & 0xFFFF, inboundWindow));
         b.append("            ").append("* flags: ");
         if (cancelled) b.append("cancelled ");
@@ -0,0 +1,240 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jdk.jfr.AnnotationElement;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventFactory;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.ValueDescriptor;
+
+/**
+ * The flight recorder event types.  This class must only be referenced through {@link RemotingEvents}, which
+ * verifies that the {@code jdk.jfr} API is present before this class is loaded.
+ * <p>
+ * The event types are defined through {@link EventFactory} rather than as annotated {@link Event} subclasses, so
+ * that the {@code jdk.jfr} annotations never appear in source where the annotation processors would be offered them.
+ * Event fields are set by their index in the field list given to {@link #define define}.
+ */
+final class JfrEvents {
+
+    private static final String[] FRAMES = { "JBoss Remoting", "Frames" };
+    private static final String[] CHANNELS = { "JBoss Remoting", "Channels" };
+    private static final String[] CONNECTIONS = { "JBoss Remoting", "Connections" };
+
+    // frame events: protocolId, channelId, size
+    static final EventFactory FRAME_SENT = define("org.jboss.remoting.FrameSent", "Frame Sent", "A protocol frame was queued for sending", FRAMES, false,
+        field(int.class, "protocolId", "Protocol ID"),
+        field(int.class, "channelId", "Channel ID"),
+        field(int.class, "size", "Size", dataAmount())
+    );
+    static final EventFactory FRAME_RECEIVED = define("org.jboss.remoting.FrameReceived", "Frame Received", "A protocol frame was received and unwrapped", FRAMES, false,
+        field(int.class, "protocolId", "Protocol ID"),
+        field(int.class, "channelId", "Channel ID"),
+        field(int.class, "size", "Size", dataAmount())
+    );
+    // channelId, messageId, window, size
+    static final EventFactory WINDOW_STALL = define("org.jboss.remoting.WindowStall", "Window Stall", "A message writer waited for the peer to open the transmit window", CHANNELS, true,
+        field(int.class, "channelId", "Channel ID"),
+        field(int.class, "messageId", "Message ID"),
+        field(int.class, "window", "Window", dataAmount()),
+        field(int.class, "size", "Size", dataAmount())
+    );
+    // channelId, serviceType
+    static final EventFactory CHANNEL_OPENED = define("org.jboss.remoting.ChannelOpened", "Channel Opened", null, CHANNELS, false,
+        field(int.class, "channelId", "Channel ID"),
+        field(String.class, "serviceType", "Service Type")
+    );
+    static final EventFactory CHANNEL_CLOSED = define("org.jboss.remoting.ChannelClosed", "Channel Closed", null, CHANNELS, true,
+        field(int.class, "channelId", "Channel ID"),
+        field(String.class, "serviceType", "Service Type")
+    );
+    // server, phase
+    static final EventFactory HANDSHAKE_PHASE = define("org.jboss.remoting.HandshakePhase", "Handshake Phase", "A phase of the connection handshake, from its read listener being installed until it is replaced", CONNECTIONS, false,
+        field(boolean.class, "server", "Server Side"),
+        field(String.class, "phase", "Phase")
+    );
+    // roundTripTime, smoothedRoundTripTime, variance
+    static final EventFactory HEARTBEAT_ROUND_TRIP = define("org.jboss.remoting.HeartbeatRoundTrip", "Heartbeat Round Trip", null, CONNECTIONS, false,
+        field(long.class, "roundTripTime", "Round Trip Time", timespan()),
+        field(long.class, "smoothedRoundTripTime", "Smoothed Round Trip Time", timespan()),
+        field(long.class, "variance", "Round Trip Time Variance", timespan())
+    );
+    // unwrap, size
+    static final EventFactory SASL_WRAP = define("org.jboss.remoting.SaslWrap", "SASL Wrap", "A frame was wrapped or unwrapped by the negotiated SASL security layer", CONNECTIONS, false,
+        field(boolean.class, "unwrap", "Unwrap"),
+        field(int.class, "size", "Size", dataAmount())
+    );
+
+    private JfrEvents() {
+    }
+
+    private static EventFactory define(final String name, final String label, final String description, final String[] category, final boolean stackTrace, final ValueDescriptor... fields) {
+        final List<AnnotationElement> annotations = new ArrayList<>(5);
+        annotations.add(new AnnotationElement(Name.class, name));
+        annotations.add(new AnnotationElement(Label.class, label));
+        if (description != null) {
+            annotations.add(new AnnotationElement(Description.class, description));
+        }
+        annotations.add(new AnnotationElement(Category.class, category));
+        annotations.add(new AnnotationElement(StackTrace.class, Boolean.valueOf(stackTrace)));
+        return EventFactory.create(annotations, Arrays.asList(fields));
+    }
+
+    private static ValueDescriptor field(final Class<?> type, final String name, final String label, final AnnotationElement... extra) {
+        final List<AnnotationElement> annotations = new ArrayList<>(extra.length + 1);
+        annotations.add(new AnnotationElement(Label.class, label));
+        annotations.addAll(Arrays.asList(extra));
+        return new ValueDescriptor(type, name, annotations);
+    }
+
+    private static AnnotationElement dataAmount() {
+        return new AnnotationElement(DataAmount.class, DataAmount.BYTES);
+    }
+
+    private static AnnotationElement timespan() {
+        return new AnnotationElement(Timespan.class, Timespan.NANOSECONDS);
+    }
+
+    static void frame(final boolean sent, final ByteBuffer frame) {
+        final Event event = (sent ? FRAME_SENT : FRAME_RECEIVED).newEvent();
+        if (event.isEnabled()) {
+            final int position = frame.position();
+            final byte protoId = frame.get(position);
+            event.set(0, Integer.valueOf(protoId & 0xff));
+            event.set(1, Integer.valueOf(hasChannelId(protoId) && frame.remaining() >= 5 ? frame.getInt(position + 1) : 0));
+            event.set(2, Integer.valueOf(frame.remaining()));
+            event.commit();
+        }
+    }
+
+    private static boolean hasChannelId(final byte protoId) {
+        switch (protoId) {
+            case Protocol.CHANNEL_OPEN_REQUEST:
+            case Protocol.CHANNEL_OPEN_ACK:
+            case Protocol.SERVICE_NOT_FOUND:
+            case Protocol.SERVICE_ERROR:
+            case Protocol.CHANNEL_SHUTDOWN_WRITE:
+            case Protocol.CHANNEL_CLOSED:
+            case Protocol.MESSAGE_DATA:
+            case Protocol.MESSAGE_WINDOW_OPEN:
+            case Protocol.MESSAGE_CLOSE: {
+                return true;
+            }
+            default: {
+                return false;
+            }
+        }
+    }
+
+    static Object beginWindowStall() {
+        final Event event = WINDOW_STALL.newEvent();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endWindowStall(final Object token, final int channelId, final int messageId, final int window, final int size) {
+        final Event event = (Event) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(0, Integer.valueOf(channelId));
+            event.set(1, Integer.valueOf(messageId));
+            event.set(2, Integer.valueOf(window));
+            event.set(3, Integer.valueOf(size));
+            event.commit();
+        }
+    }
+
+    static void channelOpened(final int channelId, final String serviceType) {
+        channelEvent(CHANNEL_OPENED, channelId, serviceType);
+    }
+
+    static void channelClosed(final int channelId, final String serviceType) {
+        channelEvent(CHANNEL_CLOSED, channelId, serviceType);
+    }
+
+    private static void channelEvent(final EventFactory factory, final int channelId, final String serviceType) {
+        final Event event = factory.newEvent();
+        if (event.isEnabled()) {
+            event.set(0, Integer.valueOf(channelId));
+            event.set(1, serviceType);
+            event.commit();
+        }
+    }
+
+    static Object beginHandshakePhase(final boolean server, final String phase) {
+        final Event event = HANDSHAKE_PHASE.newEvent();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.set(0, Boolean.valueOf(server));
+        event.set(1, phase);
+        event.begin();
+        return event;
+    }
+
+    static void endHandshakePhase(final Object token) {
+        final Event event = (Event) token;
+        event.end();
+        event.commit();
+    }
+
+    static void heartbeatRoundTrip(final long sample, final long smoothed, final long variance) {
+        final Event event = HEARTBEAT_ROUND_TRIP.newEvent();
+        if (event.isEnabled()) {
+            event.set(0, Long.valueOf(sample));
+            event.set(1, Long.valueOf(smoothed));
+            event.set(2, Long.valueOf(variance));
+            event.commit();
+        }
+    }
+
+    static Object beginSaslWrap() {
+        final Event event = SASL_WRAP.newEvent();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endSaslWrap(final Object token, final boolean unwrap, final int size) {
+        final Event event = (Event) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(0, Boolean.valueOf(unwrap));
+            event.set(1, Integer.valueOf(size));
+            event.commit();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.Iterator;
 
+import org.jboss.remoting3.spi.TransportCounters;
 import org.xnio.Buffers;
 import org.xnio.ByteBufferPool;
 import org.xnio.ChannelListener;
@@ -40,13 +41,15 @@ final class MessageReader {
     private final ConduitStreamSourceChannel sourceChannel;
     private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
     private final Object lock;
+    private final TransportCounters counters;
     private final ByteBuffer[] array = new ByteBuffer[16];
 
     static final Pooled<ByteBuffer> EOF_MARKER = Buffers.emptyPooledByteBuffer();
 
-    MessageReader(final ConduitStreamSourceChannel sourceChannel, final Object lock) {
+    MessageReader(final ConduitStreamSourceChannel sourceChannel, final Object lock, final TransportCounters counters) {
         this.sourceChannel = sourceChannel;
         this.lock = lock;
+        this.counters = counters;
     }
 
     ConduitStreamSourceChannel getSourceChannel() {
@@ -86,6 +89,7 @@ final class MessageReader {
                                 first.flip();
                             }
                             conn.tracef("Received message %s", message);
+                            counters.frameIn(size + 4);
                             return Buffers.globalPooledWrapper(message);
                         } else {
                             if (conn.isTraceEnabled()) {
@@ -30,6 +30,7 @@ import org.jboss.remoting3.MessageCancelledException;
 import org.jboss.remoting3.MessageOutputStream;
 import org.jboss.remoting3.NotOpenException;
 import org.xnio.BrokenPipeException;
+import org.xnio.Buffers;
 import org.xnio.Connection;
 import org.xnio.IoUtils;
 import org.xnio.Pooled;
@@ -41,7 +42,10 @@ import org.xnio.streams.BufferPipeOutputStream;
 final class OutboundMessage extends MessageOutputStream {
     final short messageId;
     final RemoteConnectionChannel channel;
+    // null for a message sent as a single frame by sendSingleFrame
     final BufferPipeOutputStream pipeOutputStream;
+    // the pipe, or this message if it has none
+    final Object lock;
     final int maximumWindow;
     int window;
     boolean closeCalled;
@@ -101,30 +105,43 @@ final class OutboundMessage extends MessageOutputStream {
                 boolean intr = false;
                 if (msgSize > 0 && ! sendCancel) {
                     // empty messages and cancellation both bypass the transmit window check
-                    for (;;) {
-                        if (window >= msgSize) {
-                            window -= msgSize;
-                            if (log.isTraceEnabled()) {
-                                log.tracef("Message window is open (%d-%d=%d remaining), proceeding with send", Integer.valueOf(window + msgSize), Integer.valueOf(msgSize), Integer.valueOf(window));
+                    long stallStart = 0L;
+                    Object stallEvent = null;
+                    try {
+                        for (;;) {
+                            if (window >= msgSize) {
+                                window -= msgSize;
+                                if (log.isTraceEnabled()) {
+                                    log.tracef("Message window is open (%d-%d=%d remaining), proceeding with send", Integer.valueOf(window + msgSize), Integer.valueOf(msgSize), Integer.valueOf(window));
+                                }
+                                break;
+                            }
+                            if (stallStart == 0L) {
+                                stallStart = System.nanoTime();
+                                stallEvent = RemotingEvents.beginWindowStall();
+                            }
+                            try {
+                                log.trace("Message window is closed, waiting");
+                                pipeOutputStream.wait();
+                            } catch (InterruptedException e) {
+                                cancelled = true;
+                                intr = true;
+                                break;
+                            }
+                            if (closeReceived) {
+                                throw new BrokenPipeException("Remote side closed the message stream");
+                            }
+                            if (closeCalled && ! eof) {
+                                throw new NotOpenException("Message was closed asynchronously by another thread");
+                            }
+                            if (cancelSent) {
+                                throw new MessageCancelledException("Message was cancelled");
                             }
-                            break;
-                        }
-                        try {
-                            log.trace("Message window is closed, waiting");
-                            pipeOutputStream.wait();
-                        } catch (InterruptedException e) {
-                            cancelled = true;
-                            intr = true;
-                            break;
-                        }
-                        if (closeReceived) {
-                            throw new BrokenPipeException("Remote side closed the message stream");
-                        }
-                        if (closeCalled && ! eof) {
-                            throw new NotOpenException("Message was closed asynchronously by another thread");
                         }
-                        if (cancelSent) {
-                            throw new MessageCancelledException("Message was cancelled");
+                    } finally {
+                        if (stallStart != 0L) {
+                            channel.recordWindowStall(System.nanoTime() - stallStart);
+                            RemotingEvents.endWindowStall(stallEvent, channel.getChannelId(), messageId & 0xffff, window, msgSize);
                         }
                     }
                 }
@@ -148,6 +165,7 @@ final class OutboundMessage extends MessageOutputStream {
                     buffer.limit(8); // discard everything in the buffer so we can send even if there is no window
                     log.trace("Message includes cancel flag");
                 }
+                channel.getCounters().frameOut(Math.max(0, buffer.remaining() - 8));
                 channel.getRemoteConnection().send(pooledBuffer);
                 ok = true;
                 if (intr) {
@@ -168,15 +186,25 @@ final class OutboundMessage extends MessageOutputStream {
     static final ToIntFunction<OutboundMessage> INDEXER = OutboundMessage::getActualId;
 
     OutboundMessage(final short messageId, final RemoteConnectionChannel channel, final int window, final long maxOutboundMessageSize) {
+        this(messageId, channel, window, maxOutboundMessageSize, true);
+    }
+
+    OutboundMessage(final short messageId, final RemoteConnectionChannel channel, final int window, final long maxOutboundMessageSize, final boolean streaming) {
         this.messageId = messageId;
         this.channel = channel;
         this.window = maximumWindow = window;
         this.remaining = maxOutboundMessageSize;
-        try {
-            pipeOutputStream = new BufferPipeOutputStream(bufferWriter);
-        } catch (IOException e) {
-            // not possible
-            throw new IllegalStateException(e);
+        if (streaming) {
+            try {
+                pipeOutputStream = new BufferPipeOutputStream(bufferWriter);
+            } catch (IOException e) {
+                // not possible
+                throw new IllegalStateException(e);
+            }
+            lock = pipeOutputStream;
+        } else {
+            pipeOutputStream = null;
+            lock = this;
         }
     }
 
@@ -192,20 +220,20 @@ final class OutboundMessage extends MessageOutputStream {
     }
 
     void acknowledge(int count) {
-        synchronized (pipeOutputStream) {
+        synchronized (lock) {
             if (log.isTraceEnabled()) {
                 // do trace enabled check because of boxing here
                 log.tracef("Acknowledged %d bytes on %s", Integer.valueOf(count), this);
             }
             window += count;
-            pipeOutputStream.notifyAll();
+            lock.notifyAll();
         }
     }
 
     void remoteClosed() {
-        synchronized (pipeOutputStream) {
+        synchronized (lock) {
             closeReceived = true;
-            Pooled<ByteBuffer> pooled = pipeOutputStream.breakPipe();
+            Pooled<ByteBuffer> pooled = pipeOutputStream == null ? null : pipeOutputStream.breakPipe();
             if (pooled != null) {
                 pooled.free();
             }
@@ -233,7 +261,55 @@ final class OutboundMessage extends MessageOutputStream {
                 channel.closeOutboundMessage();
             }
             // wake up waiters
-            pipeOutputStream.notifyAll();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Send the whole message as one frame carrying both the new and EOF flags.  Only valid for a message created
+     * without a pipe; the caller has checked that the body fits in one buffer and within the window.  On failure, the
+     * message ID is released again.
+     *
+     * @param parts the message body, which is consumed
+     * @param size the total number of bytes remaining in {@code parts}
+     */
+    void sendSingleFrame(final ByteBuffer[] parts, final int size) {
+        assert pipeOutputStream == null;
+        final Pooled<ByteBuffer> pooled = allocate(Protocol.MESSAGE_DATA);
+        boolean ok = false;
+        try {
+            final ByteBuffer buffer = pooled.getResource();
+            buffer.put((byte) (Protocol.MSG_FLAG_NEW | Protocol.MSG_FLAG_EOF)); // flags
+            Buffers.copy(buffer, parts, 0, parts.length);
+            buffer.flip();
+            synchronized (lock) {
+                // the whole window is available, since nothing was sent before
+                window -= channel.getConnectionHandler().isFaultyMessageSize() ? buffer.remaining() : size;
+                remaining -= size;
+                closeCalled = true;
+                eofSent = true;
+                log.tracef("Sending single-frame message (%s) on %s", buffer, channel);
+                if (! channel.getConnectionHandler().isMessageClose()) {
+                    // free now, because we may never receive a close message
+                    channel.free(this);
+                }
+                released = true;
+                channel.closeOutboundMessage();
+                channel.getCounters().frameOut(size);
+                channel.getRemoteConnection().send(pooled);
+                ok = true;
+            }
+        } finally {
+            if (! ok) {
+                pooled.free();
+                synchronized (lock) {
+                    if (! released) {
+                        released = true;
+                        channel.free(this);
+                        channel.closeOutboundMessage();
+                    }
+                }
+            }
         }
     }
 
@@ -303,9 +379,9 @@ final class OutboundMessage extends MessageOutputStream {
     }
 
     public MessageOutputStream cancel() {
-        synchronized (pipeOutputStream) {
+        synchronized (lock) {
             cancelled = true;
-            pipeOutputStream.notifyAll();
+            lock.notifyAll();
             IoUtils.safeClose(pipeOutputStream);
             return this;
         }
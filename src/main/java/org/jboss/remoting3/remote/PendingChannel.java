@@ -28,6 +28,7 @@ import org.xnio.Result;
  */
 final class PendingChannel {
     private final int id;
+    private final String serviceType;
     private final int outboundWindowSize;
     private final int inboundWindowSize;
     private final int outboundMessageCount;
@@ -35,9 +36,11 @@ final class PendingChannel {
     private final long outboundMessageSize;
     private final long inboundMessageSize;
     private final Result<Channel> result;
+    private final long openTime = System.nanoTime();
 
-    PendingChannel(final int id, final int outboundWindowSize, final int inboundWindowSize, final int outboundMessageCount, final int inboundMessageCount, final long outboundMessageSize, final long inboundMessageSize, final Result<Channel> result) {
+    PendingChannel(final int id, final String serviceType, final int outboundWindowSize, final int inboundWindowSize, final int outboundMessageCount, final int inboundMessageCount, final long outboundMessageSize, final long inboundMessageSize, final Result<Channel> result) {
         this.id = id;
+        this.serviceType = serviceType;
         this.outboundWindowSize = outboundWindowSize;
         this.inboundWindowSize = inboundWindowSize;
         this.outboundMessageCount = outboundMessageCount;
@@ -51,6 +54,10 @@ final class PendingChannel {
         return id;
     }
 
+    String getServiceType() {
+        return serviceType;
+    }
+
     int getOutboundWindowSize() {
         return outboundWindowSize;
     }
@@ -79,5 +86,9 @@ final class PendingChannel {
         return result;
     }
 
+    long getOpenTime() {
+        return openTime;
+    }
+
     static final ToIntFunction<PendingChannel> INDEXER = PendingChannel::getId;
 }
@@ -47,6 +47,12 @@ final class Protocol {
      */
     static final int BH_FAULTY_MSG_SIZE = 1 << 1;
 
+    /**
+     * Compact heartbeat flag.  If {@code true}, the remote side accepts heartbeat messages which carry no padding, and
+     * does not require a heartbeat acknowledgement when other data is already being sent its way.
+     */
+    static final int BH_COMPACT_HEARTBEAT = 1 << 2;
+
     /**
      * The highest-supported version of the remote protocol supported by this implementation.
      */
@@ -246,12 +252,15 @@ final class Protocol {
 
     /**
      * byte 0: CONNECTION_ALIVE
-     * byte 1..n: random padding (optional)
+     * byte 1..n: random padding (optional; omitted if {@link #CAP_COMPACT_HEARTBEAT} was negotiated)
+     *
+     * If {@link #CAP_COMPACT_HEARTBEAT} was negotiated, the heartbeat may be skipped when other data is already queued for the peer.
+     * The ack is always sent.
      */
     static final byte CONNECTION_ALIVE = (byte) 0xF0;
     /**
-     * byte 0: CONNECTION_ALIVE
-     * byte 1..n: random padding (optional)
+     * byte 0: CONNECTION_ALIVE_ACK
+     * byte 1..n: random padding (optional; omitted if {@link #CAP_COMPACT_HEARTBEAT} was negotiated)
      */
     static final byte CONNECTION_ALIVE_ACK = (byte) 0xF1;
     /**
@@ -309,6 +318,7 @@ final class Protocol {
     static final byte CAP_CHANNELS_IN = 6; // sent by client & server, if missing peer does not support it
     static final byte CAP_CHANNELS_OUT = 7; // sent by client & server, if missing peer does not support it
     static final byte CAP_AUTHENTICATION = 8; // sent by client & server, if missing peer does not support it
+    static final byte CAP_COMPACT_HEARTBEAT = 9; // sent by client & server, if missing peer expects padded heartbeats
 
     // Greeting messages
 
@@ -26,9 +26,11 @@ import java.util.Queue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.jboss.logging.Logger;
+import org.jboss.remoting3.LatencyHistogram;
 import org.jboss.remoting3.RemotingOptions;
 import org.jboss.remoting3._private.Messages;
 import org.jboss.remoting3.spi.ConnectionHandlerFactory;
+import org.jboss.remoting3.spi.TransportCounters;
 import org.wildfly.security.auth.server.SecurityIdentity;
 import org.xnio.Buffers;
 import org.xnio.ByteBufferPool;
@@ -53,41 +55,81 @@ final class RemoteConnection {
     static final Pooled<ByteBuffer> STARTTLS_SENTINEL = Buffers.emptyPooledByteBuffer();
 
     private static final String FQCN = RemoteConnection.class.getName();
+    private static final ByteBuffer COMPACT_ALIVE = ByteBuffer.wrap(new byte[] { Protocol.CONNECTION_ALIVE }).asReadOnlyBuffer();
+    private static final ByteBuffer COMPACT_ALIVE_ACK = ByteBuffer.wrap(new byte[] { Protocol.CONNECTION_ALIVE_ACK }).asReadOnlyBuffer();
     private final StreamConnection connection;
     private final MessageReader messageReader;
     private final SslChannel sslChannel;
     private final OptionMap optionMap;
     private final RemoteWriteListener writeListener = new RemoteWriteListener();
+    private final TransportCounters counters = new TransportCounters();
     private final Executor executor;
     private final int heartbeatInterval;
     private volatile Result<ConnectionHandlerFactory> result;
     private volatile SaslWrapper saslWrapper;
     private volatile SecurityIdentity identity;
+    private volatile boolean compactHeartbeat;
+    private volatile long aliveSentTime;
+    private volatile long smoothedRoundTripTime = -1L;
+    private volatile long roundTripTimeVariance = -1L;
+    private Object handshakePhaseEvent;
     private final RemoteConnectionProvider remoteConnectionProvider;
+    private final LatencyHistogram writeQueueHistogram;
+    private final LatencyHistogram windowStallHistogram;
 
     RemoteConnection(final StreamConnection connection, final SslChannel sslChannel, final OptionMap optionMap, final RemoteConnectionProvider remoteConnectionProvider) {
         this.connection = connection;
-        this.messageReader = new MessageReader(connection.getSourceChannel(), writeListener.queue);
+        this.messageReader = new MessageReader(connection.getSourceChannel(), writeListener.queue, counters);
         this.sslChannel = sslChannel;
         this.optionMap = optionMap;
         heartbeatInterval = optionMap.get(RemotingOptions.HEARTBEAT_INTERVAL, RemotingOptions.DEFAULT_HEARTBEAT_INTERVAL);
         Messages.conn.tracef("Initialized connection from %s to %s with options %s", connection.getPeerAddress(), connection.getLocalAddress(), optionMap);
         this.executor = remoteConnectionProvider.getExecutor();
         this.remoteConnectionProvider = remoteConnectionProvider;
+        writeQueueHistogram = remoteConnectionProvider.getWriteQueueHistogram();
+        windowStallHistogram = remoteConnectionProvider.getWindowStallHistogram();
     }
 
     Pooled<ByteBuffer> allocate() {
         return Buffers.globalPooledWrapper(ByteBufferPool.MEDIUM_DIRECT.allocate());
     }
 
+    int getBufferSize() {
+        return ByteBufferPool.MEDIUM_DIRECT.getSize();
+    }
+
     void setReadListener(ChannelListener<ConduitStreamSourceChannel> listener, final boolean resume) {
         Messages.log.logf(RemoteConnection.class.getName(), Logger.Level.TRACE, null, "Setting read listener to %s", listener);
+        if (RemotingEvents.ENABLED) {
+            handshakePhaseChanged(listener);
+        }
         messageReader.setReadListener(listener);
         if (listener != null && resume) {
             messageReader.resumeReads();
         }
     }
 
+    TransportCounters getCounters() {
+        return counters;
+    }
+
+    LatencyHistogram getWindowStallHistogram() {
+        return windowStallHistogram;
+    }
+
+    private void handshakePhaseChanged(final ChannelListener<ConduitStreamSourceChannel> listener) {
+        synchronized (getLock()) {
+            RemotingEvents.endHandshakePhase(handshakePhaseEvent);
+            handshakePhaseEvent = null;
+            if (listener != null && ! (listener instanceof RemoteReadListener)) {
+                final Class<?> listenerClass = listener.getClass();
+                final Class<?> enclosingClass = listenerClass.getEnclosingClass();
+                final boolean server = (enclosingClass == null ? listenerClass : enclosingClass) == ServerConnectionOpenListener.class;
+                handshakePhaseEvent = RemotingEvents.beginHandshakePhase(server, listenerClass.getSimpleName());
+            }
+        }
+    }
+
     RemoteConnectionProvider getRemoteConnectionProvider() {
         return remoteConnectionProvider;
     }
@@ -124,11 +166,22 @@ final class RemoteConnection {
     }
 
     void send(final Pooled<ByteBuffer> pooled) {
-        writeListener.send(pooled, false);
+        writeListener.send(pooled, false, false);
     }
 
     void send(final Pooled<ByteBuffer> pooled, boolean close) {
-        writeListener.send(pooled, close);
+        writeListener.send(pooled, close, false);
+    }
+
+    /**
+     * Send the frame which completes authentication, and wrap every frame after it.  The wrapper is installed by the
+     * write task, so that the peer reads this frame as it was sent and every later one wrapped.
+     *
+     * @param pooled the frame
+     * @param saslWrapper the wrapper for the negotiated security layer
+     */
+    void sendAndWrap(final Pooled<ByteBuffer> pooled, final SaslWrapper saslWrapper) {
+        writeListener.send(pooled, false, false, false, saslWrapper);
     }
 
     void shutdownWrites() {
@@ -176,6 +229,12 @@ final class RemoteConnection {
 
     void sendAlive() {
         Messages.conn.trace("Sending connection alive");
+        if (compactHeartbeat) {
+            // any queued data serves as a heartbeat already
+            writeListener.send(compactFrame(COMPACT_ALIVE), false, true, true);
+            messageReader.wakeupReads();
+            return;
+        }
         final Pooled<ByteBuffer> pooled = allocate();
         boolean ok = false;
         try {
@@ -184,7 +243,7 @@ final class RemoteConnection {
             buffer.limit(80);
             Buffers.addRandom(buffer);
             buffer.flip();
-            send(pooled);
+            writeListener.send(pooled, false, false, true);
             ok = true;
             messageReader.wakeupReads();
         } finally {
@@ -194,6 +253,11 @@ final class RemoteConnection {
 
     void sendAliveResponse() {
         Messages.conn.trace("Sending connection alive ack");
+        if (compactHeartbeat) {
+            // always acknowledge, even behind queued data, so that the peer can measure the round trip
+            writeListener.send(compactFrame(COMPACT_ALIVE_ACK), false, false);
+            return;
+        }
         final Pooled<ByteBuffer> pooled = allocate();
         boolean ok = false;
         try {
@@ -209,6 +273,58 @@ final class RemoteConnection {
         }
     }
 
+    void handleAliveResponse() {
+        final long sentTime = aliveSentTime;
+        if (sentTime == 0L) {
+            // unsolicited, or already measured
+            return;
+        }
+        aliveSentTime = 0L;
+        final long sample = System.nanoTime() - sentTime;
+        final long oldRtt = smoothedRoundTripTime;
+        // estimate per RFC 6298 (alpha = 1/8, beta = 1/4)
+        if (oldRtt == -1L) {
+            smoothedRoundTripTime = sample;
+            roundTripTimeVariance = sample >> 1;
+        } else {
+            final long oldVariance = roundTripTimeVariance;
+            roundTripTimeVariance = oldVariance - (oldVariance >> 2) + (Math.abs(oldRtt - sample) >> 2);
+            smoothedRoundTripTime = oldRtt - (oldRtt >> 3) + (sample >> 3);
+        }
+        Messages.conn.tracef("Measured round trip time of %d ns (smoothed %d ns, variance %d ns)", sample, smoothedRoundTripTime, roundTripTimeVariance);
+        RemotingEvents.heartbeatRoundTrip(sample, smoothedRoundTripTime, roundTripTimeVariance);
+    }
+
+    long getSmoothedRoundTripTime() {
+        return smoothedRoundTripTime;
+    }
+
+    long getRoundTripTimeVariance() {
+        return roundTripTimeVariance;
+    }
+
+    private static Pooled<ByteBuffer> compactFrame(final ByteBuffer frame) {
+        // shared and read-only; the write listener copies it if the frame has to be wrapped
+        final ByteBuffer buffer = frame.duplicate();
+        return new Pooled<ByteBuffer>() {
+            public void discard() {}
+            public void free() {}
+            public void close() {}
+
+            public ByteBuffer getResource() throws IllegalStateException {
+                return buffer;
+            }
+        };
+    }
+
+    boolean isCompactHeartbeat() {
+        return compactHeartbeat;
+    }
+
+    void setCompactHeartbeat(final boolean compactHeartbeat) {
+        this.compactHeartbeat = compactHeartbeat;
+    }
+
     void terminateHeartbeat() {
         final XnioExecutor.Key key = writeListener.heartKey;
         if (key != null) {
@@ -249,6 +365,10 @@ final class RemoteConnection {
         private ByteBuffer headerBuffer = ByteBuffer.allocateDirect(4);
         private final ByteBuffer[] cachedArray = new ByteBuffer[] { headerBuffer, null };
         private volatile long expireTime = -1;
+        // enqueue times of queued frames, kept in step with the queue if the write queue histogram is enabled
+        private long[] enqueueTimes;
+        private int enqueueTimesHead;
+        private int enqueueTimesSize;
 
         RemoteWriteListener() {
         }
@@ -261,10 +381,11 @@ final class RemoteConnection {
                 try {
                     ByteBuffer buffer = cachedArray[1];
                     if (buffer != null) {
-                        channel.write(cachedArray);
+                        counters.bytesOut(channel.write(cachedArray));
                         if (buffer.hasRemaining()) {
                             return;
                         }
+                        counters.frameOutComplete();
                     }
                     cachedArray[1] = null;
                     while ((pooled = queue.peek()) != null) {
@@ -275,12 +396,14 @@ final class RemoteConnection {
                             cachedArray[1] = buffer;
                             final long res = channel.write(cachedArray);
                             Messages.conn.tracef("Sent %d bytes", res);
+                            counters.bytesOut(res);
                             if (buffer.hasRemaining()) {
                                 // try again later
                                 return;
                             } else {
+                                counters.frameOutComplete();
                                 cachedArray[1] = null;
-                                queue.poll().free();
+                                dequeue().free();
                             }
                         } else {
                             if (pooled == STARTTLS_SENTINEL) {
@@ -296,7 +419,7 @@ final class RemoteConnection {
                                 }
                             }
                             // otherwise skip other empty message rather than try and write it
-                            queue.poll().free();
+                            dequeue().free();
                         }
                     }
                     if (channel.flush()) {
@@ -326,7 +449,7 @@ final class RemoteConnection {
                     }
                 } catch (IOException e) {
                     handleException(e, false);
-                    while ((pooled = queue.poll()) != null) {
+                    while ((pooled = dequeue()) != null) {
                         pooled.free();
                     }
                 }
@@ -334,6 +457,43 @@ final class RemoteConnection {
             }
         }
 
+        private Pooled<ByteBuffer> dequeue() {
+            assert Thread.holdsLock(queue);
+            final Pooled<ByteBuffer> pooled = queue.poll();
+            if (pooled != null) {
+                counters.dequeued();
+                final LatencyHistogram histogram = writeQueueHistogram;
+                if (histogram != null) {
+                    final long enqueueTime = enqueueTimes[enqueueTimesHead];
+                    enqueueTimesHead = (enqueueTimesHead + 1) & (enqueueTimes.length - 1);
+                    enqueueTimesSize--;
+                    histogram.record(System.nanoTime() - enqueueTime);
+                }
+            }
+            return pooled;
+        }
+
+        private void enqueue(final Pooled<ByteBuffer> pooled) {
+            assert Thread.holdsLock(queue);
+            queue.add(pooled);
+            counters.enqueued();
+            if (writeQueueHistogram != null) {
+                long[] enqueueTimes = this.enqueueTimes;
+                if (enqueueTimes == null) {
+                    enqueueTimes = this.enqueueTimes = new long[16];
+                } else if (enqueueTimesSize == enqueueTimes.length) {
+                    // grow, keeping the power-of-two size and unwrapping the ring
+                    final long[] newTimes = new long[enqueueTimes.length << 1];
+                    for (int i = 0; i < enqueueTimesSize; i++) {
+                        newTimes[i] = enqueueTimes[(enqueueTimesHead + i) & (enqueueTimes.length - 1)];
+                    }
+                    enqueueTimes = this.enqueueTimes = newTimes;
+                    enqueueTimesHead = 0;
+                }
+                enqueueTimes[(enqueueTimesHead + enqueueTimesSize++) & (enqueueTimes.length - 1)] = System.nanoTime();
+            }
+        }
+
         public void shutdownWrites() {
             synchronized (queue) {
                 closed = true;
@@ -362,34 +522,73 @@ final class RemoteConnection {
                 } catch (IOException e) {
                     handleException(e, false);
                     Pooled<ByteBuffer> unqueued;
-                    while ((unqueued = queue.poll()) != null) {
+                    while ((unqueued = dequeue()) != null) {
                         unqueued.free();
                     }
                 }
             }
         }
 
-        public void send(final Pooled<ByteBuffer> pooled, final boolean close) {
+        public void send(final Pooled<ByteBuffer> pooled, final boolean close, final boolean coalesce) {
+            send(pooled, close, coalesce, false);
+        }
+
+        void send(final Pooled<ByteBuffer> pooled, final boolean close, final boolean coalesce, final boolean alive) {
+            send(pooled, close, coalesce, alive, null);
+        }
+
+        /**
+         * Queue a frame for sending.
+         *
+         * @param pooled the frame
+         * @param close {@code true} to close the connection after this frame
+         * @param coalesce {@code true} to drop the frame if other data is already queued
+         * @param alive {@code true} if this is a {@code CONNECTION_ALIVE} frame whose send time should be recorded for
+         *      the round trip estimate; the time is taken when the frame is queued, so a sample also includes the time
+         *      spent writing any data queued ahead of it
+         * @param nextWrapper the wrapper to install for the frames queued after this one, or {@code null} to keep the
+         *      current one
+         */
+        void send(final Pooled<ByteBuffer> pooled, final boolean close, final boolean coalesce, final boolean alive, final SaslWrapper nextWrapper) {
             connection.getIoThread().execute(() -> {
                 synchronized (queue) {
+                    if (coalesce && ! queue.isEmpty()) {
+                        Messages.conn.trace("Coalesced heartbeat with queued data");
+                        pooled.free();
+                        return;
+                    }
                     XnioExecutor.Key heartKey1 = heartKey;
                     if (heartKey1 != null)
                         this.expireTime = System.currentTimeMillis() + heartbeatInterval;
                     if (closed) { pooled.free(); return; }
                     if (close) { closed = true; }
+                    Pooled<ByteBuffer> frame = pooled;
                     boolean free = true;
                     try {
+                        RemotingEvents.frameSent(pooled.getResource());
                         final SaslWrapper wrapper = saslWrapper;
                         if (wrapper != null) {
-                            final ByteBuffer buffer = pooled.getResource();
-                            final ByteBuffer source = buffer.duplicate();
+                            final ByteBuffer source = pooled.getResource().duplicate();
+                            if (source.isReadOnly()) {
+                                // the wrapper may have been installed after the frame was queued
+                                frame = allocate();
+                            }
+                            final ByteBuffer buffer = frame.getResource();
+                            final Object wrapEvent = RemotingEvents.beginSaslWrap();
                             buffer.clear();
                             wrapper.wrap(buffer, source);
                             buffer.flip();
+                            RemotingEvents.endSaslWrap(wrapEvent, false, buffer.remaining());
                         }
                         final boolean empty = queue.isEmpty();
-                        queue.add(pooled);
+                        enqueue(frame);
                         free = false;
+                        if (nextWrapper != null) {
+                            saslWrapper = nextWrapper;
+                        }
+                        if (alive) {
+                            aliveSentTime = System.nanoTime();
+                        }
                         if (empty) {
                             //if there was no data previously queued we add a task to attempt to write the
                             //data, and resume writes if it fails. This means that if we have multiple messages
@@ -411,11 +610,14 @@ final class RemoteConnection {
                     } catch (IOException e) {
                         handleException(e, false);
                         Pooled<ByteBuffer> unqueued;
-                        while ((unqueued = queue.poll()) != null) {
+                        while ((unqueued = dequeue()) != null) {
                             unqueued.free();
                         }
                     } finally {
                         if (free) {
+                            frame.free();
+                        }
+                        if (frame != pooled) {
                             pooled.free();
                         }
                     }
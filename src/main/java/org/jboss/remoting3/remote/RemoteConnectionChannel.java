@@ -29,6 +29,7 @@ import java.util.Queue;
 import java.util.Random;
 
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.function.ToIntFunction;
@@ -37,16 +38,21 @@ import org.jboss.remoting3.Attachments;
 import org.jboss.remoting3.Channel;
 import org.jboss.remoting3.ChannelBusyException;
 import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.LatencyHistogram;
 import org.jboss.remoting3.MessageCancelledException;
 import org.jboss.remoting3.MessageOutputStream;
 import org.jboss.remoting3.NotOpenException;
 import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.TransportMetrics;
 import org.jboss.remoting3._private.Equaller;
 import org.jboss.remoting3._private.IntIndexHashMap;
 import org.jboss.remoting3._private.IntIndexMap;
 import org.jboss.remoting3.spi.AbstractHandleableCloseable;
 import org.jboss.remoting3.spi.ConnectionHandlerContext;
+import org.jboss.remoting3.spi.TransportCounters;
+import org.wildfly.common.Assert;
 import org.xnio.Bits;
+import org.xnio.Buffers;
 import org.xnio.Option;
 import org.xnio.Pooled;
 
@@ -66,11 +72,14 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
     private final int outboundWindow;
     private final int inboundWindow;
     private final Attachments attachments = new Attachments();
-    private final Queue<InboundMessage> inboundMessageQueue = new ArrayDeque<InboundMessage>();
+    private final Queue<PendingInboundMessage> inboundMessageQueue = new ArrayDeque<PendingInboundMessage>();
+    private final Queue<Runnable> writableTasks = new ConcurrentLinkedQueue<>();
     private final int maxOutboundMessages;
     private final int maxInboundMessages;
     private final long maxOutboundMessageSize;
     private final long maxInboundMessageSize;
+    private final String serviceType;
+    private final TransportCounters counters;
     private volatile int channelState = 0;
 
     private static final AtomicIntegerFieldUpdater<RemoteConnectionChannel> channelStateUpdater = AtomicIntegerFieldUpdater.newUpdater(RemoteConnectionChannel.class, "channelState");
@@ -84,7 +93,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
     private static final int INBOUND_MESSAGES_MASK = ((1 << 30) - 1) & ~OUTBOUND_MESSAGES_MASK;
     private static final int ONE_INBOUND_MESSAGE = (1 << 15);
 
-    RemoteConnectionChannel(final RemoteConnectionHandler connectionHandler, final RemoteConnection connection, final int channelId, final int outboundWindow, final int inboundWindow, final int maxOutboundMessages, final int maxInboundMessages, final long maxOutboundMessageSize, final long maxInboundMessageSize) {
+    RemoteConnectionChannel(final RemoteConnectionHandler connectionHandler, final RemoteConnection connection, final String serviceType, final int channelId, final int outboundWindow, final int inboundWindow, final int maxOutboundMessages, final int maxInboundMessages, final long maxOutboundMessageSize, final long maxInboundMessageSize, final TransportCounters serviceCounters) {
         super(connectionHandler.getConnectionContext().getConnectionProviderContext().getExecutor(), true);
         this.maxOutboundMessageSize = maxOutboundMessageSize;
         this.maxInboundMessageSize = maxInboundMessageSize;
@@ -96,6 +105,8 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         this.inboundWindow = inboundWindow;
         this.maxOutboundMessages = maxOutboundMessages;
         this.maxInboundMessages = maxInboundMessages;
+        this.serviceType = serviceType;
+        counters = new TransportCounters(serviceCounters);
     }
 
     void openOutboundMessage() throws IOException {
@@ -107,10 +118,12 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             }
             final int outboundCount = oldState & OUTBOUND_MESSAGES_MASK;
             if (outboundCount == maxOutboundMessages) {
+                recordChannelBusy();
                 throw new ChannelBusyException("Too many open outbound writes");
             }
             newState = oldState + ONE_OUTBOUND_MESSAGE;
         } while (!casState(oldState, newState));
+        recordMessageOpened();
         log.tracef("Opened outbound message on %s", this);
     }
 
@@ -149,8 +162,36 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         return result;
     }
 
+    public void whenWritable(final Runnable task) {
+        Assert.checkNotNullParam("task", task);
+        final Runnable waiter = () -> getExecutor().execute(task);
+        if (isWritable()) {
+            waiter.run();
+            return;
+        }
+        writableTasks.add(waiter);
+        // re-check in case a message was closed before we were visible
+        if (isWritable() && writableTasks.remove(waiter)) {
+            waiter.run();
+        }
+    }
+
+    private boolean isWritable() {
+        final int state = channelState;
+        return (state & WRITE_CLOSED) != 0 || (state & OUTBOUND_MESSAGES_MASK) < maxOutboundMessages;
+    }
+
+    private void runWritableTasks() {
+        Runnable task;
+        while ((task = writableTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
     void closeOutboundMessage() {
         int oldState = incrementState(- ONE_OUTBOUND_MESSAGE);
+        recordMessageClosed();
+        runWritableTasks();
         if (oldState == (WRITE_CLOSED | READ_CLOSED)) {
             // no messages left and read & write closed
             log.tracef("Closed outbound message on %s (unregistering)", this);
@@ -175,12 +216,14 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             }
             newState = oldState + ONE_INBOUND_MESSAGE;
         } while (!casState(oldState, newState));
+        recordMessageOpened();
         log.tracef("Opened inbound message on %s", this);
         return true;
     }
 
     void closeInboundMessage() {
         int oldState = incrementState(-ONE_INBOUND_MESSAGE);
+        recordMessageClosed();
         if (oldState == (WRITE_CLOSED | READ_CLOSED)) {
             // no messages left and read & write closed
             log.tracef("Closed inbound message on %s (unregistering)", this);
@@ -218,6 +261,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             }
             newState = oldState | WRITE_CLOSED;
         } while (!casState(oldState, newState));
+        runWritableTasks();
         if (oldState == READ_CLOSED) {
             // no channels and read was closed
             log.tracef("Closed channel writes on %s (unregistering)", this);
@@ -237,6 +281,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             }
             newState = oldState | READ_CLOSED | WRITE_CLOSED;
         } while (!casState(oldState, newState));
+        runWritableTasks();
         if ((oldState & WRITE_CLOSED) == 0) {
             // we're sending the write close request asynchronously
             Pooled<ByteBuffer> pooled = connection.allocate();
@@ -286,6 +331,10 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
     }
 
     public MessageOutputStream writeMessage() throws IOException {
+        return newOutboundMessage(true);
+    }
+
+    private OutboundMessage newOutboundMessage(final boolean streaming) throws IOException {
         int tries = 50;
         IntIndexMap<OutboundMessage> outboundMessages = this.outboundMessages;
         openOutboundMessage();
@@ -295,7 +344,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             while (tries > 0) {
                 final int id = random.nextInt() & 0xfffe;
                 if (! outboundMessages.containsKey(id)) {
-                    OutboundMessage message = new OutboundMessage((short) id, this, outboundWindow, maxOutboundMessageSize);
+                    OutboundMessage message = new OutboundMessage((short) id, this, outboundWindow, maxOutboundMessageSize, streaming);
                     OutboundMessage existing = outboundMessages.putIfAbsent(message);
                     if (existing == null) {
                         ok = true;
@@ -304,6 +353,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
                 }
                 tries --;
             }
+            recordChannelBusy();
             throw log.channelBusy();
         } finally {
             if (! ok) {
@@ -312,6 +362,19 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         }
     }
 
+    public void writeMessage(final ByteBuffer... parts) throws IOException {
+        Assert.checkNotNullParam("parts", parts);
+        final long size = Buffers.remaining(parts);
+        // the frame header is 8 bytes (protocol, channel ID, message ID, flags), and 4 more are reserved at the end;
+        // peers with the faulty message size count the header against the window as well
+        if (size <= maxOutboundMessageSize && size + 8 <= outboundWindow && size <= connection.getBufferSize() - 12) {
+            // fits in one frame: one buffer, and no pipe stream
+            newOutboundMessage(false).sendSingleFrame(parts, (int) size);
+        } else {
+            Channel.super.writeMessage(parts);
+        }
+    }
+
     void free(OutboundMessage outboundMessage) {
         if (outboundMessages.remove(outboundMessage)) {
             log.tracef("Removed %s", outboundMessage);
@@ -356,9 +419,9 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
                     nextReceiver = handler;
                 }
             } else {
-                final InboundMessage message = inboundMessageQueue.remove();
+                final PendingInboundMessage message = inboundMessageQueue.remove();
                 try {
-                    getExecutor().execute(() -> handler.handleMessage(RemoteConnectionChannel.this, message.messageInputStream));
+                    getExecutor().execute(() -> handler.handleMessage(RemoteConnectionChannel.this, message.getMessageInputStream()));
                 } catch (Throwable t) {
                     connection.handleException(new IOException("Fatal connection error", t));
                     return;
@@ -409,8 +472,25 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
             ByteBuffer buffer = message.getResource();
             int id = buffer.getShort() & 0xffff;
             int flags = buffer.get() & 0xff;
+            counters.frameIn(buffer.remaining());
             final InboundMessage inboundMessage;
-            if ((flags & Protocol.MSG_FLAG_NEW) != 0) {
+            if ((flags & (Protocol.MSG_FLAG_NEW | Protocol.MSG_FLAG_EOF | Protocol.MSG_FLAG_CANCELLED)) == (Protocol.MSG_FLAG_NEW | Protocol.MSG_FLAG_EOF)
+                    && buffer.remaining() <= inboundWindow && buffer.remaining() <= maxInboundMessageSize && ! inboundMessages.containsKey(id)) {
+                // the whole message is in this frame, so it needs neither an ID mapping nor window updates
+                if (! openInboundMessage()) {
+                    asyncCloseMessage(id);
+                    return;
+                }
+                // like a streamed message, the ID is released as soon as its EOF arrives
+                closeInboundMessage();
+                if (connectionHandler.isMessageClose()) {
+                    asyncCloseMessage(id);
+                }
+                if (deliverMessage(new SingleFrameInboundMessage((short) id, message))) {
+                    ok1 = true;
+                }
+                return;
+            } else if ((flags & Protocol.MSG_FLAG_NEW) != 0) {
                 if (! openInboundMessage()) {
                     asyncCloseMessage(id);
                     return;
@@ -422,21 +502,9 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
                     if (existing != null) {
                         existing.handleDuplicate();
                     }
-                    synchronized(connection.getLock()) {
-                        if (nextReceiver != null) {
-                            final Receiver receiver = nextReceiver;
-                            nextReceiver = null;
-                            try {
-                                getExecutor().execute(() -> receiver.handleMessage(RemoteConnectionChannel.this, inboundMessage.messageInputStream));
-                                ok2 = true;
-                            } catch (Throwable t) {
-                                connection.handleException(new IOException("Fatal connection error", t));
-                                return;
-                            }
-                        } else {
-                            inboundMessageQueue.add(inboundMessage);
-                            ok2 = true;
-                        }
+                    ok2 = deliverMessage(inboundMessage);
+                    if (! ok2) {
+                        return;
                     }
                 } finally {
                     if (! ok2) freeInboundMessage((short) id);
@@ -455,6 +523,24 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         }
     }
 
+    private boolean deliverMessage(final PendingInboundMessage message) {
+        synchronized (connection.getLock()) {
+            if (nextReceiver != null) {
+                final Receiver receiver = nextReceiver;
+                nextReceiver = null;
+                try {
+                    getExecutor().execute(() -> receiver.handleMessage(RemoteConnectionChannel.this, message.getMessageInputStream()));
+                } catch (Throwable t) {
+                    connection.handleException(new IOException("Fatal connection error", t));
+                    return false;
+                }
+            } else {
+                inboundMessageQueue.add(message);
+            }
+            return true;
+        }
+    }
+
     private void asyncCloseMessage(final int id) {
         Pooled<ByteBuffer> pooled = connection.allocate();
         boolean ok = false;
@@ -506,16 +592,17 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         closeReadsAndWrites();
         closeMessages();
         closeComplete();
+        RemotingEvents.channelClosed(channelId, serviceType);
     }
 
     private void closeMessages() {
         final List<InboundMessage> exceptionMessages;
         final List<OutboundMessage> cancelMessages;
-        final List<InboundMessage> terminateMessages;
+        final List<PendingInboundMessage> terminateMessages;
         synchronized (connection.getLock()) {
             exceptionMessages = new ArrayList<InboundMessage>(inboundMessages);
             cancelMessages = new ArrayList<OutboundMessage>(outboundMessages);
-            terminateMessages = new ArrayList<InboundMessage>(inboundMessageQueue);
+            terminateMessages = new ArrayList<PendingInboundMessage>(inboundMessageQueue);
             inboundMessageQueue.clear();
         }
         for (final InboundMessage message : exceptionMessages) {
@@ -524,7 +611,7 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         for (final OutboundMessage message : cancelMessages) {
             message.cancel();
         }
-        for (final InboundMessage message : terminateMessages) {
+        for (final PendingInboundMessage message : terminateMessages) {
             message.terminate();
         }
     }
@@ -541,6 +628,42 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         return channelId;
     }
 
+    String getServiceType() {
+        return serviceType;
+    }
+
+    public TransportMetrics getMetrics() {
+        return counters;
+    }
+
+    TransportCounters getCounters() {
+        return counters;
+    }
+
+    private void recordMessageOpened() {
+        counters.messageOpened();
+        connection.getCounters().messageOpened();
+    }
+
+    private void recordMessageClosed() {
+        counters.messageClosed();
+        connection.getCounters().messageClosed();
+    }
+
+    private void recordChannelBusy() {
+        counters.channelBusy();
+        connection.getCounters().channelBusy();
+    }
+
+    void recordWindowStall(final long nanos) {
+        counters.windowStall(nanos);
+        connection.getCounters().windowStall(nanos);
+        final LatencyHistogram histogram = connection.getWindowStallHistogram();
+        if (histogram != null) {
+            histogram.record(nanos);
+        }
+    }
+
     void freeInboundMessage(final short id) {
         if (inboundMessages.removeKey(id & 0xffff) != null) {
             closeInboundMessage();
@@ -571,9 +694,10 @@ final class RemoteConnectionChannel extends AbstractHandleableCloseable<Channel>
         b.append("        ").append("* ").append(inboundMessageQueue.size()).append(" pending inbound messages\n");
         b.append("        ").append("* ").append(inboundMessageCnt).append(" (max ").append(maxInboundMessages).append(") inbound messages\n");
         b.append("        ").append("* ").append(outboundMessageCnt).append(" (max ").append(maxOutboundMessages).append(") outbound messages\n");
+        b.append("        ").append("* Traffic: ").append(counters).append('\n');
         b.append("        ").append("* Pending inbound messages:\n");
-        for (InboundMessage inboundMessage : inboundMessageQueue) {
-            inboundMessage.dumpState(b);
+        for (PendingInboundMessage pendingMessage : inboundMessageQueue) {
+            pendingMessage.dumpState(b);
         }
         b.append("        ").append("* Inbound messages:\n");
         for (InboundMessage inboundMessage : inboundMessages) {
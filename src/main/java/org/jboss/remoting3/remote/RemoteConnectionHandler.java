@@ -27,6 +27,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
@@ -39,6 +40,7 @@ import org.jboss.remoting3.NotOpenException;
 import org.jboss.remoting3.ProtocolException;
 import org.jboss.remoting3.RemotingOptions;
 import org.jboss.remoting3.ServiceOpenException;
+import org.jboss.remoting3.TransportMetrics;
 import org.jboss.remoting3._private.Equaller;
 import org.jboss.remoting3._private.IntIndexHashMap;
 import org.jboss.remoting3._private.IntIndexMap;
@@ -343,7 +345,7 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
             for (;;) {
                 id = random.nextInt() | 0x80000000;
                 if (! pendingChannels.containsKey(id)) {
-                    PendingChannel pendingChannel = new PendingChannel(id, outboundWindowSize, inboundWindowSize, outboundMessageCount, inboundMessageCount, outboundMessageSize, inboundMessageSize, result);
+                    PendingChannel pendingChannel = new PendingChannel(id, serviceType, outboundWindowSize, inboundWindowSize, outboundMessageCount, inboundMessageCount, outboundMessageSize, inboundMessageSize, result);
                     if (pendingChannels.putIfAbsent(pendingChannel) == null) {
                         if (log.isTraceEnabled()) {
                             log.tracef("Outbound service request for channel %08x is configured as follows:\n" +
@@ -590,6 +592,18 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
         return principal;
     }
 
+    public long getRoundTripTime() {
+        return remoteConnection.getSmoothedRoundTripTime();
+    }
+
+    public long getRoundTripTimeVariance() {
+        return remoteConnection.getRoundTripTimeVariance();
+    }
+
+    public TransportMetrics getMetrics() {
+        return remoteConnection.getCounters();
+    }
+
     protected void closeAction() throws IOException {
         sendCloseRequest();
         remoteConnection.shutdownWrites();
@@ -648,6 +662,20 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
         return Bits.allAreSet(behavior, Protocol.BH_FAULTY_MSG_SIZE);
     }
 
+    String getAddressString() {
+        final Connection connection = remoteConnection.getConnection();
+        return connection.getLocalAddress() + " <-> " + connection.getPeerAddress();
+    }
+
+    void getChannelMetrics(final Map<String, TransportMetrics> map) {
+        final String addressString = getAddressString();
+        synchronized (remoteConnection.getLock()) {
+            for (RemoteConnectionChannel connectionChannel : channels) {
+                map.put(String.format("%s #%08x (%s)", addressString, Integer.valueOf(connectionChannel.getChannelId()), connectionChannel.getServiceType()), connectionChannel.getMetrics());
+            }
+        }
+    }
+
     public String toString() {
         return String.format("Connection handler for %s", remoteConnection);
     }
@@ -667,10 +695,16 @@ final class RemoteConnectionHandler extends AbstractHandleableCloseable<Connecti
             b.append("    ").append("* Flags: ");
             if (Bits.allAreSet(behavior, Protocol.BH_MESSAGE_CLOSE)) b.append("supports-message-close ");
             if (Bits.allAreSet(behavior, Protocol.BH_FAULTY_MSG_SIZE)) b.append("remote-faulty-message-size ");
+            if (Bits.allAreSet(behavior, Protocol.BH_COMPACT_HEARTBEAT)) b.append("compact-heartbeat ");
             if (supportsRemoteAuth) b.append("auth-cap ");
             if (receivedCloseReq) b.append("received-close-req ");
             if (sentCloseReq) b.append("set-close-req ");
             b.append('\n');
+            final long rtt = remoteConnection.getSmoothedRoundTripTime();
+            if (rtt != -1L) {
+                b.append("    ").append("* Round trip time: ").append(rtt / 1000L).append(" us (variance ").append(remoteConnection.getRoundTripTimeVariance() / 1000L).append(" us)\n");
+            }
+            b.append("    ").append("* Traffic: ").append(remoteConnection.getCounters()).append('\n');
             b.append("    ").append("* ").append(inboundChannels).append(" (max ").append(maxInboundChannels).append(") inbound channels\n");
             b.append("    ").append("* ").append(outboundChannels).append(" (max ").append(maxOutboundChannels).append(") outbound channels\n");
             b.append("    ").append("* Channels:\n");
@@ -29,6 +29,8 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.UnaryOperator;
@@ -39,6 +41,9 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.security.sasl.SaslClientFactory;
 
+import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.LatencyHistogram;
+import org.jboss.remoting3.TransportMetrics;
 import org.jboss.remoting3.spi.AbstractHandleableCloseable;
 import org.jboss.remoting3.spi.ConnectionHandlerFactory;
 import org.jboss.remoting3.spi.ConnectionProvider;
@@ -92,12 +97,19 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
     private final Set<RemoteConnectionHandler> handlers = Collections.synchronizedSet(new HashSet<RemoteConnectionHandler>());
     private final MBeanServer server;
     private final ObjectName objectName;
+    private final LatencyHistogram channelOpenHistogram;
+    private final LatencyHistogram windowStallHistogram;
+    private final LatencyHistogram writeQueueHistogram;
 
     RemoteConnectionProvider(final OptionMap optionMap, final ConnectionProviderContext connectionProviderContext, final String protocolName) throws IOException {
         super(connectionProviderContext.getExecutor());
         sslRequired = optionMap.get(Options.SECURE, false);
         xnioWorker = connectionProviderContext.getXnioWorker();
         this.connectionProviderContext = connectionProviderContext;
+        final Endpoint endpoint = connectionProviderContext.getEndpoint();
+        channelOpenHistogram = endpoint.getLatencyHistogram(LatencyHistogram.CHANNEL_OPEN);
+        windowStallHistogram = endpoint.getLatencyHistogram(LatencyHistogram.WINDOW_STALL);
+        writeQueueHistogram = endpoint.getLatencyHistogram(LatencyHistogram.WRITE_QUEUE);
         MBeanServer server = null;
         ObjectName objectName = null;
         try {
@@ -122,6 +134,22 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
                 public boolean isOpen() {
                     return RemoteConnectionProvider.super.isOpen();
                 }
+
+                public Map<String, Long> getConnectionRoundTripTimes() {
+                    return doGetConnectionRoundTripTimes();
+                }
+
+                public Map<String, Long> getConnectionRoundTripTimeVariances() {
+                    return doGetConnectionRoundTripTimeVariances();
+                }
+
+                public Map<String, TransportMetrics> getConnectionMetrics() {
+                    return doGetConnectionMetrics();
+                }
+
+                public Map<String, TransportMetrics> getChannelMetrics() {
+                    return doGetChannelMetrics();
+                }
             }, objectName);
         } catch (Exception e) {
             // ignore
@@ -151,6 +179,51 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
         return b.toString();
     }
 
+    private Map<String, Long> doGetConnectionRoundTripTimes() {
+        final Map<String, Long> map = new LinkedHashMap<>();
+        synchronized (handlers) {
+            for (RemoteConnectionHandler handler : handlers) {
+                final long rtt = handler.getRoundTripTime();
+                if (rtt != -1L) {
+                    map.put(handler.getAddressString(), Long.valueOf(rtt / 1000L));
+                }
+            }
+        }
+        return map;
+    }
+
+    private Map<String, Long> doGetConnectionRoundTripTimeVariances() {
+        final Map<String, Long> map = new LinkedHashMap<>();
+        synchronized (handlers) {
+            for (RemoteConnectionHandler handler : handlers) {
+                if (handler.getRoundTripTime() != -1L) {
+                    map.put(handler.getAddressString(), Long.valueOf(handler.getRoundTripTimeVariance() / 1000L));
+                }
+            }
+        }
+        return map;
+    }
+
+    private Map<String, TransportMetrics> doGetConnectionMetrics() {
+        final Map<String, TransportMetrics> map = new LinkedHashMap<>();
+        synchronized (handlers) {
+            for (RemoteConnectionHandler handler : handlers) {
+                map.put(handler.getAddressString(), handler.getMetrics());
+            }
+        }
+        return map;
+    }
+
+    private Map<String, TransportMetrics> doGetChannelMetrics() {
+        final Map<String, TransportMetrics> map = new LinkedHashMap<>();
+        synchronized (handlers) {
+            for (RemoteConnectionHandler handler : handlers) {
+                handler.getChannelMetrics(map);
+            }
+        }
+        return map;
+    }
+
     public Cancellable connect(final URI destination, final SocketAddress bindAddress, final OptionMap connectOptions, final Result<ConnectionHandlerFactory> result, final AuthenticationConfiguration authenticationConfiguration, final SSLContext sslContext, final UnaryOperator<SaslClientFactory> saslClientFactoryOperator, final Collection<String> serverMechs) {
         if (! isOpen()) {
             throw new IllegalStateException("Connection provider is closed");
@@ -412,6 +485,18 @@ class RemoteConnectionProvider extends AbstractHandleableCloseable<ConnectionPro
         return super.getExecutor();
     }
 
+    LatencyHistogram getChannelOpenHistogram() {
+        return channelOpenHistogram;
+    }
+
+    LatencyHistogram getWindowStallHistogram() {
+        return windowStallHistogram;
+    }
+
+    LatencyHistogram getWriteQueueHistogram() {
+        return writeQueueHistogram;
+    }
+
     public String toString() {
         return String.format("Remoting remote connection provider %x for %s", Integer.valueOf(hashCode()), connectionProviderContext.getEndpoint());
     }
@@ -18,6 +18,10 @@
 
 package org.jboss.remoting3.remote;
 
+import java.util.Map;
+
+import org.jboss.remoting3.TransportMetrics;
+
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
@@ -27,4 +31,32 @@ public interface RemoteConnectionProviderMXBean {
     String dumpConnectionStateToString();
 
     boolean isOpen();
+
+    /**
+     * Get the smoothed heartbeat round-trip time of each connection which has been measured, in microseconds.
+     *
+     * @return a map of connection address pairs to round-trip times
+     */
+    Map<String, Long> getConnectionRoundTripTimes();
+
+    /**
+     * Get the heartbeat round-trip time variance of each connection which has been measured, in microseconds.
+     *
+     * @return a map of connection address pairs to round-trip time variances
+     */
+    Map<String, Long> getConnectionRoundTripTimeVariances();
+
+    /**
+     * Get the traffic metrics of each connection.
+     *
+     * @return a map of connection address pairs to connection metrics
+     */
+    Map<String, TransportMetrics> getConnectionMetrics();
+
+    /**
+     * Get the traffic metrics of each open channel.
+     *
+     * @return a map of channel descriptions (connection address pair, channel ID and service type) to channel metrics
+     */
+    Map<String, TransportMetrics> getChannelMetrics();
 }
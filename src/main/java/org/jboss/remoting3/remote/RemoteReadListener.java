@@ -24,6 +24,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.charset.StandardCharsets;
 
+import org.jboss.remoting3.LatencyHistogram;
 import org.jboss.remoting3.OpenListener;
 import org.jboss.remoting3.RemotingOptions;
 import org.jboss.remoting3.ServiceOpenException;
@@ -96,10 +97,13 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                 buffer = message.getResource();
                 if (saslWrapper != null) {
                     final ByteBuffer source = buffer.duplicate();
+                    final Object unwrapEvent = RemotingEvents.beginSaslWrap();
                     buffer.clear();
                     saslWrapper.unwrap(buffer, source);
                     buffer.flip();
+                    RemotingEvents.endSaslWrap(unwrapEvent, true, buffer.remaining());
                 }
+                RemotingEvents.frameReceived(buffer);
                 final byte protoId = buffer.get();
                 try {
                     switch (protoId) {
@@ -110,6 +114,7 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                         }
                         case Protocol.CONNECTION_ALIVE_ACK: {
                             log.trace("Received connection alive ack");
+                            connection.handleAliveResponse();
                             break;
                         }
                         case Protocol.CONNECTION_CLOSE: {
@@ -231,7 +236,7 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                             boolean ok1 = false;
                             try {
                                 // construct the channel
-                                RemoteConnectionChannel connectionChannel = new RemoteConnectionChannel(handler, connection, channelId, outboundWindow, inboundWindow, outboundMessages, inboundMessages, outboundMessageSize, inboundMessageSize);
+                                RemoteConnectionChannel connectionChannel = new RemoteConnectionChannel(handler, connection, serviceType, channelId, outboundWindow, inboundWindow, outboundMessages, inboundMessages, outboundMessageSize, inboundMessageSize, handler.getConnectionContext().getServiceCounters(serviceType));
                                 RemoteConnectionChannel existing = handler.addChannel(connectionChannel);
                                 if (existing != null) {
                                     log.tracef("Encountered open request for duplicate %s", existing);
@@ -244,6 +249,7 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                     }
                                     break;
                                 }
+                                RemotingEvents.channelOpened(channelId, serviceType);
 
                                 // construct reply
                                 Pooled<ByteBuffer> pooledReply = connection.allocate();
@@ -422,8 +428,14 @@ final class RemoteReadListener implements ChannelListener<ConduitStreamSourceCha
                                 );
                             }
 
-                            RemoteConnectionChannel newChannel = new RemoteConnectionChannel(handler, connection, channelId, outboundWindow, inboundWindow, outboundMessageCount, inboundMessageCount, outboundMessageSize, inboundMessageSize);
+                            // only channels opened to a locally registered service count towards its totals
+                            RemoteConnectionChannel newChannel = new RemoteConnectionChannel(handler, connection, pendingChannel.getServiceType(), channelId, outboundWindow, inboundWindow, outboundMessageCount, inboundMessageCount, outboundMessageSize, inboundMessageSize, null);
                             handler.putChannel(newChannel);
+                            RemotingEvents.channelOpened(channelId, pendingChannel.getServiceType());
+                            final LatencyHistogram channelOpenHistogram = connection.getRemoteConnectionProvider().getChannelOpenHistogram();
+                            if (channelOpenHistogram != null) {
+                                channelOpenHistogram.record(System.nanoTime() - pendingChannel.getOpenTime());
+                            }
                             pendingChannel.getResult().setResult(newChannel);
                             break;
                         }
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flight recorder event emission for the remote protocol.  Events are only emitted if the {@code jdk.jfr} API is
+ * available to this class (Java 8u262 and later, or Java 11 and later), the event types could be registered, and the
+ * {@code jboss.remoting.jfr} system property is not set to {@code false}.  Otherwise every method reduces to a constant
+ * check, and the event classes are never loaded.
+ * <p>
+ * Duration events are begun with a {@code begin*} method which returns an opaque token, or {@code null} if the event
+ * is not being recorded; the token is passed to the matching {@code end*} method.
+ */
+final class RemotingEvents {
+
+    static final boolean ENABLED;
+
+    static {
+        boolean enabled = false;
+        try {
+            if (Boolean.parseBoolean(System.getProperty("jboss.remoting.jfr", "true"))) {
+                // registers the event types, so that a JVM which cannot record them is detected here
+                Class.forName("org.jboss.remoting3.remote.JfrEvents", true, RemotingEvents.class.getClassLoader());
+                enabled = true;
+            }
+        } catch (Throwable ignored) {}
+        ENABLED = enabled;
+    }
+
+    private RemotingEvents() {
+    }
+
+    static void frameSent(final ByteBuffer frame) {
+        if (ENABLED && frame.hasRemaining()) {
+            JfrEvents.frame(true, frame);
+        }
+    }
+
+    static void frameReceived(final ByteBuffer frame) {
+        if (ENABLED && frame.hasRemaining()) {
+            JfrEvents.frame(false, frame);
+        }
+    }
+
+    static Object beginWindowStall() {
+        return ENABLED ? JfrEvents.beginWindowStall() : null;
+    }
+
+    static void endWindowStall(final Object token, final int channelId, final int messageId, final int window, final int size) {
+        if (token != null) {
+            JfrEvents.endWindowStall(token, channelId, messageId, window, size);
+        }
+    }
+
+    static void channelOpened(final int channelId, final String serviceType) {
+        if (ENABLED) {
+            JfrEvents.channelOpened(channelId, serviceType);
+        }
+    }
+
+    static void channelClosed(final int channelId, final String serviceType) {
+        if (ENABLED) {
+            JfrEvents.channelClosed(channelId, serviceType);
+        }
+    }
+
+    static Object beginHandshakePhase(final boolean server, final String phase) {
+        return ENABLED ? JfrEvents.beginHandshakePhase(server, phase) : null;
+    }
+
+    static void endHandshakePhase(final Object token) {
+        if (token != null) {
+            JfrEvents.endHandshakePhase(token);
+        }
+    }
+
+    static void heartbeatRoundTrip(final long sample, final long smoothed, final long variance) {
+        if (ENABLED) {
+            JfrEvents.heartbeatRoundTrip(sample, smoothed, variance);
+        }
+    }
+
+    static Object beginSaslWrap() {
+        return ENABLED ? JfrEvents.beginSaslWrap() : null;
+    }
+
+    static void endSaslWrap(final Object token, final boolean unwrap, final int size) {
+        if (token != null) {
+            JfrEvents.endSaslWrap(token, unwrap, size);
+        }
+    }
+}
@@ -231,6 +231,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                     }
                     case Protocol.CONNECTION_ALIVE_ACK: {
                         server.trace("Server received connection alive ack");
+                        connection.handleAliveResponse();
                         return;
                     }
                     case Protocol.CAPABILITIES: {
@@ -397,6 +398,14 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                         server.trace("Server received capability: authentication service");
                         break;
                     }
+                    case Protocol.CAP_COMPACT_HEARTBEAT: {
+                        server.trace("Server received capability: compact heartbeat");
+                        if (optionMap.get(RemotingOptions.COMPACT_HEARTBEAT, RemotingOptions.DEFAULT_COMPACT_HEARTBEAT)) {
+                            behavior |= Protocol.BH_COMPACT_HEARTBEAT;
+                            connection.setCompactHeartbeat(true);
+                        }
+                        break;
+                    }
                     default: {
                         server.tracef("Server received unknown capability %02x", Integer.valueOf(type & 0xff));
                         // unknown, skip it for forward compatibility.
@@ -435,6 +444,9 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                 ProtocolUtils.writeInt(sendBuffer, Protocol.CAP_CHANNELS_IN, optionMap.get(RemotingOptions.MAX_INBOUND_CHANNELS, RemotingOptions.DEFAULT_MAX_INBOUND_CHANNELS));
                 ProtocolUtils.writeInt(sendBuffer, Protocol.CAP_CHANNELS_OUT, optionMap.get(RemotingOptions.MAX_OUTBOUND_CHANNELS, RemotingOptions.DEFAULT_MAX_OUTBOUND_CHANNELS));
                 ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_AUTHENTICATION);
+                if (optionMap.get(RemotingOptions.COMPACT_HEARTBEAT, RemotingOptions.DEFAULT_COMPACT_HEARTBEAT)) {
+                    ProtocolUtils.writeEmpty(sendBuffer, Protocol.CAP_COMPACT_HEARTBEAT);
+                }
                 sendBuffer.flip();
                 connection.send(pooled);
                 ok = true;
@@ -456,6 +468,7 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
         private final int maxOutboundChannels;
         private final boolean authCap;
         private final Set<String> offeredMechanisms;
+        private SaslWrapper saslWrapper;
 
         AuthStepRunnable(final boolean isInitial, final SaslServer saslServer, final Pooled<ByteBuffer> buffer, final String remoteEndpointName, final int behavior, final int maxInboundChannels, final int maxOutboundChannels, final boolean authCap, final Set<String> offeredMechanisms) {
             this.isInitial = isInitial;
@@ -486,7 +499,8 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                             connectionProviderContext.accept(connectionContext -> {
                                 final Object qop = saslServer.getNegotiatedProperty(Sasl.QOP);
                                 if (!isInitial && ("auth-int".equals(qop) || "auth-conf".equals(qop))) {
-                                    connection.setSaslWrapper(SaslWrapper.create(saslServer));
+                                    // installed once the authentication complete message, which is not wrapped, is queued
+                                    saslWrapper = SaslWrapper.create(saslServer);
                                 }
                                 final String peerName = connection.getPeerAddress().getHostName();
                                 final RemoteConnectionHandler connectionHandler = new RemoteConnectionHandler(
@@ -516,7 +530,11 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                         }
                     }
                     sendBuffer.flip();
-                    connection.send(pooled, close);
+                    if (saslWrapper != null) {
+                        connection.sendAndWrap(pooled, saslWrapper);
+                    } else {
+                        connection.send(pooled, close);
+                    }
                     ok = true;
                     resumeReads();
                     return;
@@ -581,6 +599,16 @@ final class ServerConnectionOpenListener  implements ChannelListener<ConduitStre
                         saslDispose(saslServer);
                         return;
                     }
+                    case Protocol.CONNECTION_ALIVE: {
+                        server.trace("Server received connection alive");
+                        connection.sendAliveResponse();
+                        return;
+                    }
+                    case Protocol.CONNECTION_ALIVE_ACK: {
+                        server.trace("Server received connection alive ack");
+                        connection.handleAliveResponse();
+                        return;
+                    }
                     case Protocol.AUTH_RESPONSE: {
                         server.tracef("Server received authentication response");
                         suspendReads();
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import java.nio.ByteBuffer;
+
+import org.jboss.remoting3.MessageInputStream;
+import org.wildfly.common.Assert;
+import org.xnio.Pooled;
+
+/**
+ * An inbound message which arrived complete in a single frame.  Such a message needs no message ID mapping, window
+ * updates, or buffer pipe; the body is read directly from the received frame, which is released when the stream is
+ * closed.
+ */
+final class SingleFrameInboundMessage extends MessageInputStream implements PendingInboundMessage {
+    private final short messageId;
+    private final Pooled<ByteBuffer> pooled;
+    // guarded by this
+    private ByteBuffer buffer;
+
+    SingleFrameInboundMessage(final short messageId, final Pooled<ByteBuffer> pooled) {
+        this.messageId = messageId;
+        this.pooled = pooled;
+        buffer = pooled.getResource();
+    }
+
+    public MessageInputStream getMessageInputStream() {
+        return this;
+    }
+
+    public synchronized int read() {
+        final ByteBuffer buffer = this.buffer;
+        return buffer == null || ! buffer.hasRemaining() ? -1 : buffer.get() & 0xff;
+    }
+
+    public synchronized int read(final byte[] bytes, final int offs, final int length) {
+        Assert.checkArrayBounds(bytes, offs, length);
+        if (length == 0) {
+            return 0;
+        }
+        final ByteBuffer buffer = this.buffer;
+        if (buffer == null || ! buffer.hasRemaining()) {
+            return -1;
+        }
+        final int cnt = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offs, cnt);
+        return cnt;
+    }
+
+    public synchronized long skip(final long l) {
+        final ByteBuffer buffer = this.buffer;
+        if (buffer == null || l <= 0L) {
+            return 0L;
+        }
+        final int cnt = (int) Math.min(l, buffer.remaining());
+        buffer.position(buffer.position() + cnt);
+        return cnt;
+    }
+
+    public synchronized int available() {
+        final ByteBuffer buffer = this.buffer;
+        return buffer == null ? 0 : buffer.remaining();
+    }
+
+    public synchronized void close() {
+        if (buffer != null) {
+            buffer = null;
+            pooled.free();
+        }
+    }
+
+    public void terminate() {
+        close();
+    }
+
+    public void dumpState(final StringBuilder b) {
+        b.append("            ").append(String.format("Inbound single-frame message ID %04x, %d bytes available\n", messageId & 0xFFFF, available()));
+    }
+}
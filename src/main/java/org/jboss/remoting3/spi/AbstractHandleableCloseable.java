@@ -24,9 +24,14 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.IdentityHashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import org.jboss.remoting3.CloseHandler;
 import org.jboss.remoting3.HandleableCloseable;
 import org.jboss.remoting3.NotOpenException;
@@ -49,10 +54,16 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
     private final StackTraceElement[] backtrace;
     private final boolean autoClose;
 
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AbstractHandleableCloseable, State> stateUpdater = AtomicReferenceFieldUpdater.newUpdater(AbstractHandleableCloseable.class, State.class, "state");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<AbstractHandleableCloseable, ConcurrentMap> closeHandlersUpdater = AtomicReferenceFieldUpdater.newUpdater(AbstractHandleableCloseable.class, ConcurrentMap.class, "closeHandlers");
+
+    // only used to wait for close completion; state changes do not take this lock
     private final Object closeLock = new Object();
-    private State state = State.OPEN;
+    private volatile State state = State.OPEN;
     private IOException failure = null;
-    private Map<Key, CloseHandler<? super T>> closeHandlers = null;
+    private volatile ConcurrentMap<Key, CloseHandler<? super T>> closeHandlers = null;
 
     enum State {
         OPEN,
@@ -105,9 +116,7 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
      * @return {@code true} if the resource is still open
      */
     public boolean isOpen() {
-        synchronized (closeLock) {
-            return state == State.OPEN;
-        }
+        return state == State.OPEN;
     }
 
     /**
@@ -131,51 +140,22 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
     @SuppressWarnings("unchecked")
     public void close() throws IOException {
         log.tracef("Closing %s synchronously", this);
-        boolean first = false;
-        synchronized (closeLock) {
-            switch (state) {
-                case OPEN: {
-                    first = true;
-                    state = State.CLOSING;
-                    break;
-                }
-                case CLOSING: {
-                    break;
-                }
-                case CLOSED: return;
-                default: throw new IllegalStateException();
-            }
+        final State oldState = beginClose();
+        if (oldState == State.CLOSED) {
+            return;
         }
-        if (first) try {
+        if (oldState == State.OPEN) try {
             closeAction();
         } catch (IOException e) {
             log.tracef(e, "Close of %s failed", this);
-            final Map<Key, CloseHandler<? super T>> closeHandlers;
-            synchronized (closeLock) {
-                state = State.CLOSED;
-                closeHandlers = this.closeHandlers;
-                this.closeHandlers = null;
-                closeLock.notifyAll();
-            }
-            if (closeHandlers != null) {
-                for (final CloseHandler<? super T> handler : closeHandlers.values()) {
-                    SpiUtils.safeHandleClose(handler, (T) AbstractHandleableCloseable.this, null);
-                }
+            for (final CloseHandler<? super T> handler : forceClosed()) {
+                SpiUtils.safeHandleClose(handler, (T) AbstractHandleableCloseable.this, null);
             }
             throw e;
         } catch (Throwable t) {
             log.errorf(t, "Close action for %s failed to execute (resource may be left in an indeterminate state)", this);
-            final Map<Key, CloseHandler<? super T>> closeHandlers;
-            synchronized (closeLock) {
-                state = State.CLOSED;
-                closeHandlers = this.closeHandlers;
-                this.closeHandlers = null;
-                closeLock.notifyAll();
-            }
-            if (closeHandlers != null) {
-                for (final CloseHandler<? super T> handler : closeHandlers.values()) {
-                    SpiUtils.safeHandleClose(handler, (T) AbstractHandleableCloseable.this, null);
-                }
+            for (final CloseHandler<? super T> handler : forceClosed()) {
+                SpiUtils.safeHandleClose(handler, (T) AbstractHandleableCloseable.this, null);
             }
             throw new IllegalStateException(t);
         }
@@ -200,6 +180,56 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
         }
     }
 
+    /**
+     * Move from {@code OPEN} to {@code CLOSING}, if open.
+     *
+     * @return the state before the call; if it is {@code OPEN}, the caller must run the close action
+     */
+    private State beginClose() {
+        State oldState;
+        do {
+            oldState = state;
+            if (oldState != State.OPEN) {
+                return oldState;
+            }
+        } while (! stateUpdater.compareAndSet(this, State.OPEN, State.CLOSING));
+        return State.OPEN;
+    }
+
+    /**
+     * Move to {@code CLOSED} unconditionally, wake up waiters, and claim the registered close handlers.
+     *
+     * @return the close handlers to run (not {@code null})
+     */
+    private List<CloseHandler<? super T>> forceClosed() {
+        synchronized (closeLock) {
+            state = State.CLOSED;
+            closeLock.notifyAll();
+        }
+        return drainCloseHandlers();
+    }
+
+    /**
+     * Claim all of the registered close handlers.  Must only be called once the state is {@code CLOSED}; a handler
+     * registered concurrently is either claimed here or run by {@link #addCloseHandler(CloseHandler)}, never both.
+     *
+     * @return the close handlers to run (not {@code null})
+     */
+    @SuppressWarnings("unchecked")
+    private List<CloseHandler<? super T>> drainCloseHandlers() {
+        final ConcurrentMap<Key, CloseHandler<? super T>> closeHandlers = closeHandlersUpdater.getAndSet(this, null);
+        if (closeHandlers == null) {
+            return Collections.emptyList();
+        }
+        final List<CloseHandler<? super T>> list = new ArrayList<>(closeHandlers.size());
+        for (Map.Entry<Key, CloseHandler<? super T>> entry : closeHandlers.entrySet()) {
+            if (closeHandlers.remove(entry.getKey(), entry.getValue())) {
+                list.add(entry.getValue());
+            }
+        }
+        return list;
+    }
+
     private static <T extends IOException> T clone(T original) {
         final Throwable cause = original.getCause();
         @SuppressWarnings("unchecked")
@@ -258,33 +288,23 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
      * Call when close is complete.
      */
     protected void closeComplete() {
-        final Map<Key, CloseHandler<? super T>> closeHandlers;
-        synchronized (closeLock) {
-            switch (state) {
-                case OPEN: {
-                    log.tracef("Closing %s asynchronously", this);
-                    // fall thru
-                }
-                case CLOSING: {
-                    log.tracef("Completed close of %s", this);
-                    state = State.CLOSED;
-                    closeHandlers = this.closeHandlers;
-                    this.closeHandlers = null;
-                    break;
-                }
-                case CLOSED: {
-                    // idempotent
-                    return;
-                }
-                default:
-                    throw new IllegalStateException();
+        State oldState;
+        do {
+            oldState = state;
+            if (oldState == State.CLOSED) {
+                // idempotent
+                return;
             }
+        } while (! stateUpdater.compareAndSet(this, oldState, State.CLOSED));
+        if (oldState == State.OPEN) {
+            log.tracef("Closing %s asynchronously", this);
+        }
+        log.tracef("Completed close of %s", this);
+        synchronized (closeLock) {
             closeLock.notifyAll();
         }
-        if (closeHandlers != null) {
-            for (final CloseHandler<? super T> handler : closeHandlers.values()) {
-                runCloseTask(new CloseHandlerTask(handler, null));
-            }
+        for (final CloseHandler<? super T> handler : drainCloseHandlers()) {
+            runCloseTask(new CloseHandlerTask(handler, null));
         }
     }
 
@@ -294,15 +314,16 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
      * @param cause the failure cause
      */
     protected void closeFailed(IOException cause) {
-        final Map<Key, CloseHandler<? super T>> closeHandlers;
+        // the failure must be visible to waiters by the time they see the closed state
         synchronized (closeLock) {
             switch (state) {
                 case CLOSING: {
+                    if (! stateUpdater.compareAndSet(this, State.CLOSING, State.CLOSED)) {
+                        // completed concurrently
+                        return;
+                    }
                     log.tracef(cause, "Completed close of %s with failure", this);
-                    state = State.CLOSED;
                     failure = cause;
-                    closeHandlers = this.closeHandlers;
-                    this.closeHandlers = null;
                     break;
                 }
                 case CLOSED: {
@@ -314,10 +335,8 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
             }
             closeLock.notifyAll();
         }
-        if (closeHandlers != null) {
-            for (final CloseHandler<? super T> handler : closeHandlers.values()) {
-                runCloseTask(new CloseHandlerTask(handler, cause));
-            }
+        for (final CloseHandler<? super T> handler : drainCloseHandlers()) {
+            runCloseTask(new CloseHandlerTask(handler, cause));
         }
     }
 
@@ -351,48 +370,18 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
     /** {@inheritDoc} */
     public void closeAsync() {
         log.tracef("Closing %s asynchronously", this);
-        boolean first;
-        synchronized (closeLock) {
-            switch (state) {
-                case OPEN: {
-                    first = true;
-                    state = State.CLOSING;
-                    break;
-                }
-                case CLOSING:
-                case CLOSED: return;
-                default: throw new IllegalStateException();
-            }
-        }
-        if (first) try {
+        if (beginClose() == State.OPEN) try {
             closeAction();
         } catch (IOException e) {
             log.tracef(e, "Close of %s failed", this);
-            final Map<Key, CloseHandler<? super T>> closeHandlers;
-            synchronized (closeLock) {
-                state = State.CLOSED;
-                closeHandlers = this.closeHandlers;
-                this.closeHandlers = null;
-                closeLock.notifyAll();
-            }
-            if (closeHandlers != null) {
-                for (final CloseHandler<? super T> handler : closeHandlers.values()) {
-                    runCloseTask(new CloseHandlerTask(handler, e));
-                }
+            for (final CloseHandler<? super T> handler : forceClosed()) {
+                runCloseTask(new CloseHandlerTask(handler, e));
             }
         } catch (Throwable t) {
             log.errorf(t, "Close action for %s failed to execute (resource may be left in an indeterminate state)", this);
-            final Map<Key, CloseHandler<? super T>> closeHandlers;
-            synchronized (closeLock) {
-                state = State.CLOSED;
-                closeHandlers = this.closeHandlers;
-                this.closeHandlers = null;
-                closeLock.notifyAll();
-            }
-            if (closeHandlers != null) {
-                for (final CloseHandler<? super T> handler : closeHandlers.values()) {
-                    runCloseTask(new CloseHandlerTask(handler, new IOException(t)));
-                }
+            final IOException e = new IOException(t);
+            for (final CloseHandler<? super T> handler : forceClosed()) {
+                runCloseTask(new CloseHandlerTask(handler, e));
             }
         }
     }
@@ -402,18 +391,27 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
      */
     public Key addCloseHandler(final CloseHandler<? super T> handler) {
         Assert.checkNotNullParam("handler", handler);
-        synchronized (closeLock) {
-            if (state == State.OPEN || state == State.CLOSING) {
+        if (state != State.CLOSED) {
+            ConcurrentMap<Key, CloseHandler<? super T>> closeHandlers = this.closeHandlers;
+            if (closeHandlers == null) {
+                final ConcurrentMap<Key, CloseHandler<? super T>> newMap = new ConcurrentHashMap<>(4);
+                closeHandlers = closeHandlersUpdater.compareAndSet(this, null, newMap) ? newMap : this.closeHandlers;
+            }
+            if (closeHandlers != null) {
                 final Key key = new KeyImpl<T>(this);
-                final Map<Key, CloseHandler<? super T>> closeHandlers = this.closeHandlers;
-                if (closeHandlers == null) {
-                    final IdentityHashMap<Key, CloseHandler<? super T>> newMap = new IdentityHashMap<Key, CloseHandler<? super T>>();
-                    this.closeHandlers = newMap;
-                    newMap.put(key, handler);
-                } else {
-                    closeHandlers.put(key, handler);
+                closeHandlers.put(key, handler);
+                // if we closed in the meantime, whoever removes the handler runs it
+                if (state != State.CLOSED) {
+                    return key;
+                }
+                final boolean removed = closeHandlers.remove(key, handler);
+                // the map may have been created after the handlers were drained; don't leave it behind
+                if (closeHandlers.isEmpty()) {
+                    closeHandlersUpdater.compareAndSet(this, closeHandlers, null);
+                }
+                if (! removed) {
+                    return key;
                 }
-                return key;
             }
         }
         runCloseTask(new CloseHandlerTask(handler, null));
@@ -442,12 +440,10 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
         }
 
         public void remove() {
-            synchronized (instance.closeLock) {
-                final Map<Key, CloseHandler<? super T>> closeHandlers = instance.closeHandlers;
+            final Map<Key, CloseHandler<? super T>> closeHandlers = instance.closeHandlers;
 
-                if (closeHandlers != null) {
-                    closeHandlers.remove(this);
-                }
+            if (closeHandlers != null) {
+                closeHandlers.remove(this);
             }
         }
     }
@@ -487,10 +483,8 @@ public abstract class AbstractHandleableCloseable<T extends HandleableCloseable<
      * @throws NotOpenException if not open
      */
     protected void checkOpen() throws NotOpenException {
-        synchronized (closeLock) {
-            if (state != State.OPEN) {
-                throw new NotOpenException(toString() + " is not open");
-            }
+        if (state != State.OPEN) {
+            throw new NotOpenException(toString() + " is not open");
         }
     }
 
@@ -27,6 +27,7 @@ import javax.net.ssl.SSLSession;
 
 import org.jboss.remoting3.Channel;
 import org.jboss.remoting3.HandleableCloseable;
+import org.jboss.remoting3.TransportMetrics;
 import org.wildfly.security.auth.server.SecurityIdentity;
 import org.xnio.Cancellable;
 import org.xnio.OptionMap;
@@ -120,6 +121,33 @@ public interface ConnectionHandler extends HandleableCloseable<ConnectionHandler
      */
     Principal getPrincipal();
 
+    /**
+     * Get the smoothed round-trip time of the connection, if the protocol measures it.
+     *
+     * @return the smoothed round-trip time in nanoseconds, or {@code -1} if it is not known
+     */
+    default long getRoundTripTime() {
+        return -1L;
+    }
+
+    /**
+     * Get the round-trip time variance of the connection, if the protocol measures it.
+     *
+     * @return the round-trip time variance in nanoseconds, or {@code -1} if it is not known
+     */
+    default long getRoundTripTimeVariance() {
+        return -1L;
+    }
+
+    /**
+     * Get the traffic metrics of the connection, if the protocol collects them.
+     *
+     * @return the connection metrics, or {@code null} if they are not collected
+     */
+    default TransportMetrics getMetrics() {
+        return null;
+    }
+
     /**
      * Send an authentication request.
      *
@@ -40,6 +40,18 @@ public interface ConnectionHandlerContext {
      */
     RegisteredService getRegisteredService(String serviceType);
 
+    /**
+     * Get the aggregate traffic counters for a registered service, which the counters of channels opened to it may
+     * use as their parent.  The counters are discarded along with the service registration.
+     *
+     * @param serviceType the service type string
+     * @return the service counters, or {@code null} if no such service is currently registered or the endpoint does
+     *      not collect them
+     */
+    default TransportCounters getServiceCounters(String serviceType) {
+        return null;
+    }
+
     /**
      * Indicate that the remote side has terminated the connection, so the local side should be closed as well.
      */
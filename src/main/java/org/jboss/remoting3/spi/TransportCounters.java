@@ -0,0 +1,208 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.spi;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.remoting3.TransportMetrics;
+
+/**
+ * Striped traffic counters for use by connection providers.  Each recorded event is also recorded on the parent
+ * counters, if any, which allows channel counters to roll up into the counters of their service type.
+ */
+public final class TransportCounters implements TransportMetrics {
+    private final TransportCounters parent;
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder framesIn = new LongAdder();
+    private final LongAdder framesOut = new LongAdder();
+    private final LongAdder messagesOpened = new LongAdder();
+    private final LongAdder messagesClosed = new LongAdder();
+    private final LongAdder windowStalls = new LongAdder();
+    private final LongAdder windowStallNanos = new LongAdder();
+    private final LongAdder channelBusy = new LongAdder();
+    private final LongAdder writeQueueDepth = new LongAdder();
+    private final LongAdder invocationTimeouts = new LongAdder();
+
+    /**
+     * Construct a new instance.
+     *
+     * @param parent the parent counters to roll events up into, or {@code null} for none
+     */
+    public TransportCounters(final TransportCounters parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Construct a new instance without a parent.
+     */
+    public TransportCounters() {
+        this(null);
+    }
+
+    /**
+     * Record a received frame.
+     *
+     * @param bytes the size of the frame in bytes
+     */
+    public void frameIn(final long bytes) {
+        bytesIn.add(bytes);
+        framesIn.increment();
+        if (parent != null) parent.frameIn(bytes);
+    }
+
+    /**
+     * Record a sent frame.
+     *
+     * @param bytes the size of the frame in bytes
+     */
+    public void frameOut(final long bytes) {
+        bytesOut.add(bytes);
+        framesOut.increment();
+        if (parent != null) parent.frameOut(bytes);
+    }
+
+    /**
+     * Record bytes sent which are not (yet) a complete frame.
+     *
+     * @param bytes the number of bytes
+     */
+    public void bytesOut(final long bytes) {
+        bytesOut.add(bytes);
+        if (parent != null) parent.bytesOut(bytes);
+    }
+
+    /**
+     * Record the completion of a sent frame whose bytes were already recorded by {@link #bytesOut(long)}.
+     */
+    public void frameOutComplete() {
+        framesOut.increment();
+        if (parent != null) parent.frameOutComplete();
+    }
+
+    /**
+     * Record the opening of a message.
+     */
+    public void messageOpened() {
+        messagesOpened.increment();
+        if (parent != null) parent.messageOpened();
+    }
+
+    /**
+     * Record the closing of a message.
+     */
+    public void messageClosed() {
+        messagesClosed.increment();
+        if (parent != null) parent.messageClosed();
+    }
+
+    /**
+     * Record a wait for the transmit window to open.
+     *
+     * @param nanos the duration of the wait, in nanoseconds
+     */
+    public void windowStall(final long nanos) {
+        windowStalls.increment();
+        windowStallNanos.add(nanos);
+        if (parent != null) parent.windowStall(nanos);
+    }
+
+    /**
+     * Record a refused message open due to too many outstanding messages.
+     */
+    public void channelBusy() {
+        channelBusy.increment();
+        if (parent != null) parent.channelBusy();
+    }
+
+    /**
+     * Record a frame being added to the write queue.
+     */
+    public void enqueued() {
+        writeQueueDepth.increment();
+        if (parent != null) parent.enqueued();
+    }
+
+    /**
+     * Record a frame being removed from the write queue.
+     */
+    public void dequeued() {
+        writeQueueDepth.decrement();
+        if (parent != null) parent.dequeued();
+    }
+
+    /**
+     * Record an invocation which timed out waiting for its response.
+     */
+    public void invocationTimeout() {
+        invocationTimeouts.increment();
+        if (parent != null) parent.invocationTimeout();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long getFramesIn() {
+        return framesIn.sum();
+    }
+
+    public long getFramesOut() {
+        return framesOut.sum();
+    }
+
+    public long getMessagesOpened() {
+        return messagesOpened.sum();
+    }
+
+    public long getMessagesClosed() {
+        return messagesClosed.sum();
+    }
+
+    public long getWindowStalls() {
+        return windowStalls.sum();
+    }
+
+    public long getWindowStallNanos() {
+        return windowStallNanos.sum();
+    }
+
+    public long getChannelBusyCount() {
+        return channelBusy.sum();
+    }
+
+    public long getWriteQueueDepth() {
+        return writeQueueDepth.sum();
+    }
+
+    public long getInvocationTimeouts() {
+        return invocationTimeouts.sum();
+    }
+
+    public String toString() {
+        return String.format("in %d bytes/%d frames, out %d bytes/%d frames, messages %d opened/%d closed, %d window stalls (%d ns), %d busy, queue depth %d, %d invocation timeouts",
+            Long.valueOf(getBytesIn()), Long.valueOf(getFramesIn()), Long.valueOf(getBytesOut()), Long.valueOf(getFramesOut()),
+            Long.valueOf(getMessagesOpened()), Long.valueOf(getMessagesClosed()), Long.valueOf(getWindowStalls()), Long.valueOf(getWindowStallNanos()),
+            Long.valueOf(getChannelBusyCount()), Long.valueOf(getWriteQueueDepth()), Long.valueOf(getInvocationTimeouts()));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import static org.xnio.IoUtils.safeClose;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.ChannelClosedException;
+import org.jboss.remoting3.InvocationTimeoutException;
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+
+/**
+ * An asynchronous invocation, whose first response completes a {@link CompletableFuture} rather than waking a waiting
+ * thread.  No thread is held while the invocation is outstanding.  This class may be used as-is or subclassed for
+ * additional functionality.
+ * <p>
+ * Cancelling the future cancels the request message, if one was {@linkplain #setRequest(MessageOutputStream) attached},
+ * and causes any later response to be closed without being read.  A deadline is set through the tracker, using
+ * {@link InvocationTracker#addInvocation(java.util.function.IntFunction, long, TimeUnit)} or
+ * {@link InvocationTracker#setDeadline(Invocation, long, TimeUnit)}; if no response arrives in time, the future is
+ * completed with an {@link InvocationTimeoutException} on the channel's executor.
+ */
+public class AsyncInvocation extends Invocation {
+
+    private final CompletableFuture<Response> future = new CompletableFuture<>();
+    private volatile MessageOutputStream request;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param index the invocation index
+     */
+    public AsyncInvocation(final int index) {
+        super(index);
+        future.whenComplete((response, throwable) -> completed(throwable));
+    }
+
+    /**
+     * Get the future response.  The response <em>must</em> be closed.  Cancelling the future cancels the invocation.
+     *
+     * @return the future response (not {@code null})
+     */
+    public CompletableFuture<Response> getFuture() {
+        return future;
+    }
+
+    /**
+     * Attach the request message of this invocation, so that it is cancelled if the invocation is cancelled, times out
+     * or fails.  If the request was allocated by {@link InvocationTracker#allocateMessage(Invocation)}, cancelling it
+     * also releases the invocation's index.
+     *
+     * @param request the request message stream (must not be {@code null})
+     */
+    public void setRequest(final MessageOutputStream request) {
+        this.request = request;
+        if (future.isDone() && ! isSuccessful()) {
+            request.cancel();
+        }
+    }
+
+    public void handleResponse(final int parameter, final MessageInputStream inputStream) {
+        final Response response = new Response(inputStream, parameter);
+        if (! future.complete(response)) {
+            // cancelled, timed out, or already answered
+            safeClose(inputStream);
+        }
+    }
+
+    public void handleClosed() {
+        future.completeExceptionally(new ChannelClosedException("Channel was closed"));
+    }
+
+    public void handleException(final IOException exception) {
+        future.completeExceptionally(exception);
+    }
+
+    private boolean isSuccessful() {
+        return future.isDone() && ! future.isCompletedExceptionally();
+    }
+
+    private void completed(final Throwable throwable) {
+        if (throwable != null) {
+            final MessageOutputStream request = this.request;
+            if (request != null) {
+                request.cancel();
+            }
+        }
+    }
+
+    /**
+     * An invocation response for an asynchronous invocation.
+     */
+    public final class Response implements Closeable {
+
+        private final MessageInputStream inputStream;
+        private final int parameter;
+
+        Response(final MessageInputStream inputStream, final int parameter) {
+            this.inputStream = inputStream;
+            this.parameter = parameter;
+        }
+
+        /**
+         * Get the message input stream.
+         *
+         * @return the input stream (not {@code null})
+         */
+        public MessageInputStream getInputStream() {
+            return inputStream;
+        }
+
+        /**
+         * Get the passed-in parameter.
+         *
+         * @return the parameter
+         */
+        public int getParameter() {
+            return parameter;
+        }
+
+        /**
+         * Close this response; closes the message stream.
+         *
+         * @throws IOException if closing the message stream failed for some reason
+         */
+        public void close() throws IOException {
+            inputStream.close();
+        }
+    }
+}
@@ -30,6 +30,10 @@ import org.jboss.remoting3.MessageInputStream;
 public abstract class Invocation {
 
     private final int index;
+    // set by the tracker if invocation latency is being recorded
+    long startTime;
+    // set by the tracker if the invocation has a deadline
+    volatile InvocationTracker.Deadline deadline;
 
     /**
      * Construct a new instance.
@@ -20,19 +20,34 @@ package org.jboss.remoting3.util;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.IntFunction;
 import java.util.function.IntUnaryOperator;
 
 import org.jboss.remoting3.AbstractDelegatingMessageOutputStream;
 import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.InvocationTimeoutException;
+import org.jboss.remoting3.LatencyHistogram;
 import org.jboss.remoting3.MessageInputStream;
 import org.jboss.remoting3.MessageOutputStream;
 import org.jboss.remoting3.RemotingOptions;
+import org.jboss.remoting3.TransportMetrics;
 import org.jboss.remoting3._private.IntIndexHashMap;
 import org.jboss.remoting3._private.IntIndexMap;
+import org.jboss.remoting3.spi.TransportCounters;
 import org.wildfly.common.Assert;
+import org.xnio.IoUtils;
 
 /**
  * An invocation tracker.
@@ -43,6 +58,16 @@ public final class InvocationTracker {
     private final IntIndexMap<Invocation> invocations = new IntIndexHashMap<Invocation>(Invocation::getIndex);
     private final MessageTracker messageTracker;
     private final IntUnaryOperator intMasker;
+    private final LatencyHistogram latencyHistogram;
+    private final TransportCounters counters;
+    private final LongAdder timeouts = new LongAdder();
+    private final Executor executor;
+    // binary min-heap, earliest first; each entry knows its position so it can be removed as soon as its invocation completes
+    private final Object deadlineLock = new Object();
+    private Deadline[] deadlines = new Deadline[16];
+    private int deadlineCount;
+    private ScheduledFuture<?> sweepTask;
+    private long sweepTime;
 
     /**
      * Construct a new instance.
@@ -63,12 +88,22 @@ public final class InvocationTracker {
      * @param intMasker the function to apply to ID numbers to limit them to a specific range
      */
     public InvocationTracker(final Channel channel, final MessageTracker messageTracker, final IntUnaryOperator intMasker) {
+        this(channel, messageTracker, intMasker, getExecutor(channel));
+    }
+
+    InvocationTracker(final Channel channel, final MessageTracker messageTracker, final IntUnaryOperator intMasker, final Executor executor) {
         Assert.checkNotNullParam("channel", channel);
         Assert.checkNotNullParam("messageTracker", messageTracker);
         Assert.checkNotNullParam("intMasker", intMasker);
         this.messageTracker = messageTracker;
+        this.executor = executor;
         channel.addCloseHandler((closed, exception) -> connectionClosed(exception));
         this.intMasker = intMasker;
+        final Connection connection = channel.getConnection();
+        final Endpoint endpoint = connection == null ? null : connection.getEndpoint();
+        latencyHistogram = endpoint == null ? null : endpoint.getLatencyHistogram(LatencyHistogram.INVOCATION);
+        final TransportMetrics metrics = channel.getMetrics();
+        counters = metrics instanceof TransportCounters ? (TransportCounters) metrics : null;
     }
 
     /**
@@ -104,6 +139,35 @@ public final class InvocationTracker {
         return random & 0xffff;
     }
 
+    /**
+     * Get the executor used to run invocation and message callbacks for a channel, so that they never run on the shared
+     * timer thread.  This is the endpoint's worker, or direct execution if the channel has no endpoint.
+     *
+     * @param channel the channel
+     * @return the executor (not {@code null})
+     */
+    static Executor getExecutor(final Channel channel) {
+        final Connection connection = channel.getConnection();
+        final Endpoint endpoint = connection == null ? null : connection.getEndpoint();
+        final Executor executor = endpoint == null ? null : endpoint.getXnioWorker();
+        return executor == null ? IoUtils.directExecutor() : executor;
+    }
+
+    /**
+     * Run a task on the given executor, or directly if the executor is no longer accepting tasks (for example because
+     * the endpoint is shutting down).
+     *
+     * @param executor the executor
+     * @param task the task
+     */
+    static void execute(final Executor executor, final Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
     /**
      * Add an invocation to this tracker.
      *
@@ -123,6 +187,9 @@ public final class InvocationTracker {
                 continue;
             }
             invocation = producer.apply(id);
+            if (latencyHistogram != null) {
+                invocation.startTime = System.nanoTime();
+            }
             if (invocations.putIfAbsent(invocation) != null) {
                 continue;
             }
@@ -130,6 +197,192 @@ public final class InvocationTracker {
         }
     }
 
+    /**
+     * Add an invocation to this tracker with a deadline.  If no final response has arrived by the deadline, the
+     * invocation is removed from the tracker, releasing its index, and fails with an
+     * {@link InvocationTimeoutException}.
+     *
+     * @param producer the invocation producer, which may be called more than once
+     * @param timeout the time to wait for the response
+     * @param unit the time unit
+     * @param <T> the invocation type
+     * @return the produced invocation
+     */
+    public <T extends Invocation> T addInvocation(IntFunction<T> producer, long timeout, TimeUnit unit) {
+        final T invocation = addInvocation(producer);
+        setDeadline(invocation, timeout, unit);
+        return invocation;
+    }
+
+    /**
+     * Set or replace the deadline of an invocation in this tracker.  If no final response has arrived by the
+     * deadline, the invocation is removed from the tracker, releasing its index, and fails with an
+     * {@link InvocationTimeoutException}.
+     *
+     * @param invocation the invocation
+     * @param timeout the time to wait for the response
+     * @param unit the time unit
+     */
+    public void setDeadline(Invocation invocation, long timeout, TimeUnit unit) {
+        Assert.checkNotNullParam("invocation", invocation);
+        Assert.checkNotNullParam("unit", unit);
+        final long now = System.nanoTime();
+        final Deadline deadline = new Deadline(now + unit.toNanos(timeout), invocation);
+        clearDeadline(invocation);
+        invocation.deadline = deadline;
+        synchronized (deadlineLock) {
+            offerDeadline(deadline);
+            scheduleSweep(deadline.time, now);
+        }
+    }
+
+    /**
+     * Get the number of invocations of this tracker which have timed out.
+     *
+     * @return the number of timed out invocations
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    // for testing purposes
+    int getDeadlineCount() {
+        synchronized (deadlineLock) {
+            return deadlineCount;
+        }
+    }
+
+    private void clearDeadline(Invocation invocation) {
+        final Deadline deadline = invocation.deadline;
+        if (deadline != null) {
+            invocation.deadline = null;
+            synchronized (deadlineLock) {
+                removeDeadline(deadline);
+                if (deadlineCount == 0 && sweepTask != null) {
+                    sweepTask.cancel(false);
+                    sweepTask = null;
+                }
+            }
+        }
+    }
+
+    // call with deadline lock held
+    private void offerDeadline(final Deadline deadline) {
+        if (deadlineCount == deadlines.length) {
+            deadlines = Arrays.copyOf(deadlines, deadlineCount << 1);
+        }
+        final int idx = deadlineCount++;
+        deadlines[idx] = deadline;
+        deadline.heapIndex = idx;
+        siftUp(idx);
+    }
+
+    // call with deadline lock held
+    private void removeDeadline(final Deadline deadline) {
+        final int idx = deadline.heapIndex;
+        if (idx < 0) {
+            return;
+        }
+        deadline.heapIndex = -1;
+        final int last = --deadlineCount;
+        final Deadline moved = deadlines[last];
+        deadlines[last] = null;
+        if (idx != last) {
+            deadlines[idx] = moved;
+            moved.heapIndex = idx;
+            siftDown(idx);
+            if (deadlines[idx] == moved) {
+                siftUp(idx);
+            }
+        }
+    }
+
+    private void siftUp(int idx) {
+        final Deadline[] deadlines = this.deadlines;
+        final Deadline deadline = deadlines[idx];
+        while (idx > 0) {
+            final int parentIdx = (idx - 1) >>> 1;
+            final Deadline parent = deadlines[parentIdx];
+            if (parent.time - deadline.time <= 0) {
+                break;
+            }
+            deadlines[idx] = parent;
+            parent.heapIndex = idx;
+            idx = parentIdx;
+        }
+        deadlines[idx] = deadline;
+        deadline.heapIndex = idx;
+    }
+
+    private void siftDown(int idx) {
+        final Deadline[] deadlines = this.deadlines;
+        final int count = deadlineCount;
+        final Deadline deadline = deadlines[idx];
+        for (;;) {
+            int childIdx = (idx << 1) + 1;
+            if (childIdx >= count) {
+                break;
+            }
+            Deadline child = deadlines[childIdx];
+            if (childIdx + 1 < count && deadlines[childIdx + 1].time - child.time < 0) {
+                child = deadlines[++childIdx];
+            }
+            if (deadline.time - child.time <= 0) {
+                break;
+            }
+            deadlines[idx] = child;
+            child.heapIndex = idx;
+            idx = childIdx;
+        }
+        deadlines[idx] = deadline;
+        deadline.heapIndex = idx;
+    }
+
+    // call with deadline lock held
+    private void scheduleSweep(final long time, final long now) {
+        final ScheduledFuture<?> sweepTask = this.sweepTask;
+        if (sweepTask == null || time - sweepTime < 0) {
+            if (sweepTask != null) {
+                sweepTask.cancel(false);
+            }
+            sweepTime = time;
+            this.sweepTask = InvocationTimer.INSTANCE.schedule(this::sweep, Math.max(0L, time - now), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void sweep() {
+        final long now = System.nanoTime();
+        final List<Invocation> expired = new ArrayList<>();
+        synchronized (deadlineLock) {
+            sweepTask = null;
+            while (deadlineCount > 0 && deadlines[0].time - now <= 0) {
+                final Deadline deadline = deadlines[0];
+                removeDeadline(deadline);
+                expired.add(deadline.invocation);
+            }
+            if (deadlineCount > 0) {
+                scheduleSweep(deadlines[0].time, now);
+            }
+        }
+        for (Invocation invocation : expired) {
+            // a response may have raced with us
+            if (invocations.remove(invocation)) {
+                invocation.deadline = null;
+                timeouts.increment();
+                if (counters != null) {
+                    counters.invocationTimeout();
+                }
+                // the timer thread is shared by every tracker; don't run user code on it
+                execute(executor, () -> {
+                    try {
+                        invocation.handleException(new InvocationTimeoutException("No response received for invocation " + invocation.getIndex() + " before its deadline"));
+                    } catch (Throwable ignored) {
+                    }
+                });
+            }
+        }
+    }
+
     /**
      * Determine if the tracker contains an entry at the given index.
      *
@@ -147,6 +400,9 @@ public final class InvocationTracker {
      * @return the existing invocation, or {@code null} if the put was successful
      */
     public Invocation putIfAbsent(Invocation invocation) {
+        if (latencyHistogram != null) {
+            invocation.startTime = System.nanoTime();
+        }
         return invocations.putIfAbsent(invocation);
     }
 
@@ -164,6 +420,13 @@ public final class InvocationTracker {
         if (invocation == null) {
             return false;
         }
+        final LatencyHistogram latencyHistogram = this.latencyHistogram;
+        if (remove) {
+            clearDeadline(invocation);
+            if (latencyHistogram != null && invocation.startTime != 0L) {
+                latencyHistogram.record(System.nanoTime() - invocation.startTime);
+            }
+        }
         invocation.handleResponse(parameter, responseStream);
         return true;
     }
@@ -176,6 +439,7 @@ public final class InvocationTracker {
      */
     public void remove(final Invocation invocation) {
         invocations.remove(invocation);
+        clearDeadline(invocation);
     }
 
     /**
@@ -212,9 +476,21 @@ public final class InvocationTracker {
     }
 
     private void connectionClosed(final IOException exception) {
+        synchronized (deadlineLock) {
+            for (int i = 0; i < deadlineCount; i ++) {
+                deadlines[i].heapIndex = -1;
+                deadlines[i] = null;
+            }
+            deadlineCount = 0;
+            if (sweepTask != null) {
+                sweepTask.cancel(false);
+                sweepTask = null;
+            }
+        }
         final Iterator<Invocation> iterator = invocations.iterator();
         while (iterator.hasNext()) {
             final Invocation invocation = iterator.next();
+            clearDeadline(invocation);
             try {
                 if (exception != null) {
                     invocation.handleException(exception);
@@ -226,4 +502,16 @@ public final class InvocationTracker {
             iterator.remove();
         }
     }
+
+    static final class Deadline {
+        final long time;
+        final Invocation invocation;
+        // position in the heap, or -1 once removed; guarded by the deadline lock
+        int heapIndex = -1;
+
+        Deadline(final long time, final Invocation invocation) {
+            this.time = time;
+            this.invocation = invocation;
+        }
+    }
 }
@@ -0,0 +1,319 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import static org.jboss.remoting3.util.StreamUtils.readFully;
+import static org.jboss.remoting3.util.StreamUtils.readInt8;
+import static org.jboss.remoting3.util.StreamUtils.readPackedUnsignedInt31;
+import static org.jboss.remoting3.util.StreamUtils.writeInt8;
+import static org.jboss.remoting3.util.StreamUtils.writePackedUnsignedInt31;
+import static org.jboss.remoting3.util.StreamUtils.writePackedUnsignedInt32;
+import static org.xnio.IoUtils.safeClose;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.NotOpenException;
+import org.wildfly.common.Assert;
+
+/**
+ * A pipeline which carries many small requests or responses as frames of a single long-lived message, instead of
+ * opening one channel message per request.  Each frame carries an invocation index, a numeric parameter, and a body;
+ * the index and body length are written as packed unsigned integers, so a small frame costs only a few header bytes.
+ * <p>
+ * Concurrent writers share the outbound message; the message is flushed once the last concurrent writer is done, so
+ * frames written under load are coalesced into fewer transmissions.  On the receiving side, the inbound message is
+ * passed to {@link #readFrames(MessageInputStream, FrameHandler)}, which dispatches each frame in turn; for responses,
+ * {@link #responseHandler(InvocationTracker)} routes frames back to {@link Invocation#handleResponse(int, MessageInputStream)}.
+ * <p>
+ * The protocol using the pipeline is responsible for distinguishing the pipelined message from any other messages on
+ * the channel (for example by dedicating the channel to the pipeline).
+ */
+public final class MessagePipeline implements Closeable {
+
+    /**
+     * The default largest frame body accepted by {@link #readFrames(MessageInputStream, FrameHandler)}.
+     */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 1 << 20;
+
+    private final Channel channel;
+    private final AtomicInteger writers = new AtomicInteger();
+    private final Object lock = new Object();
+    // all guarded by lock
+    private MessageOutputStream outbound;
+    private boolean closed;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param channel the channel on which to open the outbound message
+     */
+    public MessagePipeline(final Channel channel) {
+        Assert.checkNotNullParam("channel", channel);
+        this.channel = channel;
+    }
+
+    /**
+     * Write a frame to the pipeline.  The outbound message is opened on first use.
+     *
+     * @param index the invocation index
+     * @param parameter the numeric parameter (0-255) to pass to the frame handler
+     * @param bytes the frame body
+     * @param off the offset into {@code bytes}
+     * @param len the number of bytes of the body
+     * @throws IOException if the frame could not be written; the pipeline is closed in this case
+     */
+    public void writeFrame(int index, int parameter, byte[] bytes, int off, int len) throws IOException {
+        Assert.checkNotNullParam("bytes", bytes);
+        Assert.checkArrayBounds(bytes, off, len);
+        writers.incrementAndGet();
+        try {
+            synchronized (lock) {
+                final MessageOutputStream os = getOutbound();
+                try {
+                    writePackedUnsignedInt32(os, index);
+                    writeInt8(os, parameter);
+                    writePackedUnsignedInt31(os, len);
+                    os.write(bytes, off, len);
+                } catch (IOException | RuntimeException e) {
+                    // the stream is now inconsistent
+                    fail(os);
+                    throw e;
+                }
+            }
+        } finally {
+            if (writers.decrementAndGet() == 0) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Write a request frame for an invocation.  The invocation is removed from the tracker if the frame could not be
+     * written.
+     *
+     * @param tracker the tracker holding the invocation
+     * @param invocation the invocation
+     * @param parameter the numeric parameter (0-255) to pass to the frame handler
+     * @param bytes the request body
+     * @param off the offset into {@code bytes}
+     * @param len the number of bytes of the body
+     * @throws IOException if the frame could not be written
+     */
+    public void writeRequest(InvocationTracker tracker, Invocation invocation, int parameter, byte[] bytes, int off, int len) throws IOException {
+        Assert.checkNotNullParam("tracker", tracker);
+        Assert.checkNotNullParam("invocation", invocation);
+        boolean ok = false;
+        try {
+            writeFrame(invocation.getIndex(), parameter, bytes, off, len);
+            ok = true;
+        } finally {
+            if (! ok) {
+                tracker.remove(invocation);
+            }
+        }
+    }
+
+    /**
+     * Close the pipeline, terminating the outbound message.  Closing an already closed pipeline has no effect.
+     *
+     * @throws IOException if closing the outbound message failed
+     */
+    public void close() throws IOException {
+        final MessageOutputStream os;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            os = outbound;
+            outbound = null;
+        }
+        if (os != null) {
+            os.close();
+        }
+    }
+
+    private MessageOutputStream getOutbound() throws IOException {
+        assert Thread.holdsLock(lock);
+        if (closed) {
+            throw new NotOpenException("Pipeline is closed");
+        }
+        MessageOutputStream os = outbound;
+        if (os == null) {
+            os = outbound = channel.writeMessage();
+        }
+        return os;
+    }
+
+    private void fail(MessageOutputStream os) {
+        assert Thread.holdsLock(lock);
+        closed = true;
+        outbound = null;
+        os.cancel();
+        safeClose(os);
+    }
+
+    private void flush() throws IOException {
+        synchronized (lock) {
+            final MessageOutputStream os = outbound;
+            if (os != null) try {
+                os.flush();
+            } catch (IOException | RuntimeException e) {
+                fail(os);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Read every frame of an inbound pipelined message, blocking as needed, and pass each one to the given handler.
+     * Frame bodies larger than {@link #DEFAULT_MAX_FRAME_SIZE} are rejected.  This method returns once the message is
+     * terminated, and always closes the message.
+     *
+     * @param inputStream the inbound pipelined message
+     * @param handler the frame handler
+     * @throws IOException if reading the message failed, the message was truncated, or a frame was too large
+     */
+    public static void readFrames(MessageInputStream inputStream, FrameHandler handler) throws IOException {
+        readFrames(inputStream, DEFAULT_MAX_FRAME_SIZE, handler);
+    }
+
+    /**
+     * Read every frame of an inbound pipelined message, blocking as needed, and pass each one to the given handler.
+     * This method returns once the message is terminated, and always closes the message.  A frame whose body is larger
+     * than {@code maxFrameSize} fails the whole message, since the body is buffered before it is handled.
+     *
+     * @param inputStream the inbound pipelined message
+     * @param maxFrameSize the largest frame body to accept, in bytes
+     * @param handler the frame handler
+     * @throws IOException if reading the message failed, the message was truncated, or a frame was too large
+     */
+    public static void readFrames(MessageInputStream inputStream, int maxFrameSize, FrameHandler handler) throws IOException {
+        Assert.checkNotNullParam("inputStream", inputStream);
+        Assert.checkMinimumParameter("maxFrameSize", 0, maxFrameSize);
+        Assert.checkNotNullParam("handler", handler);
+        try {
+            int b;
+            while ((b = inputStream.read()) != -1) {
+                final int index = readIndex(b, inputStream);
+                final int parameter = readInt8(inputStream);
+                final int len = readPackedUnsignedInt31(inputStream);
+                if (len > maxFrameSize) {
+                    throw new IOException("Frame length " + len + " exceeds maximum of " + maxFrameSize);
+                }
+                final byte[] body = new byte[len];
+                if (len > 0) {
+                    readFully(inputStream, body);
+                }
+                handler.handleFrame(index, parameter, new FrameInputStream(body));
+            }
+        } finally {
+            safeClose(inputStream);
+        }
+    }
+
+    private static int readIndex(int first, InputStream is) throws IOException {
+        // same encoding as readPackedUnsignedInt32, whose first byte was consumed looking for the end of the message
+        int res = first;
+        int t = res & 0b0111_1111;
+        while ((res & 0b1000_0000) != 0) {
+            res = readInt8(is);
+            t = t << 7 | res & 0b0111_1111;
+        }
+        return t;
+    }
+
+    /**
+     * Get a frame handler which delivers each frame as the final response to the corresponding invocation of the given
+     * tracker.  Frames for unknown invocations are discarded.
+     *
+     * @param tracker the invocation tracker
+     * @return the frame handler
+     */
+    public static FrameHandler responseHandler(InvocationTracker tracker) {
+        Assert.checkNotNullParam("tracker", tracker);
+        return (index, parameter, inputStream) -> {
+            if (! tracker.signalResponse(index, parameter, inputStream, true)) {
+                safeClose(inputStream);
+            }
+        };
+    }
+
+    /**
+     * A handler for inbound frames.
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+
+        /**
+         * Handle a frame.  This method is called from the thread reading the pipelined message, so long tasks should
+         * be executed in a worker thread.  This method must guarantee that {@code inputStream} is closed.
+         *
+         * @param index the invocation index
+         * @param parameter the numeric parameter
+         * @param inputStream the body of the frame
+         */
+        void handleFrame(int index, int parameter, MessageInputStream inputStream);
+    }
+
+    static final class FrameInputStream extends MessageInputStream {
+        private final byte[] body;
+        private int pos;
+
+        FrameInputStream(final byte[] body) {
+            this.body = body;
+        }
+
+        public int read() {
+            return pos < body.length ? body[pos++] & 0xff : -1;
+        }
+
+        public int read(final byte[] b, final int off, final int len) {
+            Assert.checkArrayBounds(b, off, len);
+            final int rem = body.length - pos;
+            if (rem == 0) {
+                return len == 0 ? 0 : -1;
+            }
+            final int cnt = Math.min(rem, len);
+            System.arraycopy(body, pos, b, off, cnt);
+            pos += cnt;
+            return cnt;
+        }
+
+        public long skip(final long n) {
+            final int cnt = (int) Math.max(0L, Math.min(n, body.length - pos));
+            pos += cnt;
+            return cnt;
+        }
+
+        public int available() {
+            return body.length - pos;
+        }
+
+        public void close() {
+            pos = body.length;
+        }
+    }
+}
@@ -18,8 +18,19 @@
 
 package org.jboss.remoting3.util;
 
+import static org.xnio.IoUtils.safeClose;
+
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.jboss.remoting3.AbstractDelegatingMessageOutputStream;
 import org.jboss.remoting3.Channel;
@@ -27,20 +38,30 @@ import org.jboss.remoting3.MessageOutputStream;
 import org.wildfly.common.Assert;
 
 /**
- * An outbound message tracker, which can be used to easily avoid message overruns.
+ * An outbound message tracker, which can be used to easily avoid message overruns.  Messages are granted in the order
+ * in which they were requested; a free message slot is only taken directly if nobody is already waiting for one.
+ * Messages granted to {@linkplain #openMessageAsync() asynchronous} requests are opened on the channel's executor,
+ * never on the thread which happened to release the slot.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class MessageTracker {
     private final Channel channel;
-    private final Object lock = new Object();
-    private int counter;
+    private final AtomicInteger permits;
+    private final Executor executor;
+    // each waiter is completed once it has been granted a permit, or cancelled if it gave up
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
 
     public MessageTracker(final Channel channel, final int limit) {
+        this(channel, limit, InvocationTracker.getExecutor(channel));
+    }
+
+    MessageTracker(final Channel channel, final int limit, final Executor executor) {
         Assert.checkNotNullParam("channel", channel);
         Assert.checkMinimumParameter("limit", 1, limit);
         this.channel = channel;
-        counter = limit;
+        this.executor = executor;
+        permits = new AtomicInteger(limit);
     }
 
     /**
@@ -51,17 +72,50 @@ public final class MessageTracker {
      * @throws InterruptedException if blocking was interrupted
      */
     public MessageOutputStream openMessage() throws IOException, InterruptedException {
-        final Object lock = this.lock;
-        int counter;
-        synchronized (lock) {
-            counter = this.counter;
-            while (counter == 0) {
-                lock.wait();
-                counter = this.counter;
+        if (! tryAcquire()) {
+            final CompletableFuture<Void> waiter = enqueue();
+            try {
+                waiter.get();
+            } catch (InterruptedException e) {
+                abandon(waiter);
+                throw e;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
             }
-            this.counter = counter - 1;
         }
-        return getMessageInstance(channel.writeMessage());
+        return open();
+    }
+
+    /**
+     * Open a message, blocking for at most the given time.  Callers which cannot afford to queue indefinitely may use
+     * this method to shed load.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit
+     * @return the message stream, or {@code null} if no message became available in time
+     * @throws IOException if the channel failed to open the message
+     * @throws InterruptedException if blocking was interrupted
+     */
+    public MessageOutputStream openMessage(final long timeout, final TimeUnit unit) throws IOException, InterruptedException {
+        Assert.checkNotNullParam("unit", unit);
+        if (! tryAcquire()) {
+            final CompletableFuture<Void> waiter = enqueue();
+            try {
+                waiter.get(timeout, unit);
+            } catch (InterruptedException e) {
+                abandon(waiter);
+                throw e;
+            } catch (TimeoutException e) {
+                if (waiter.cancel(false)) {
+                    waiters.remove(waiter);
+                    return null;
+                }
+                // granted just as we timed out
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return open();
     }
 
     /**
@@ -71,43 +125,156 @@ public final class MessageTracker {
      * @throws IOException if the channel failed to open the message
      */
     public MessageOutputStream openMessageUninterruptibly() throws IOException {
-        final Object lock = this.lock;
-        boolean intr = false;
-        try {
-            int counter;
-            synchronized (lock) {
-                counter = this.counter;
-                while (counter == 0) {
-                    try {
-                        lock.wait();
-                    } catch (InterruptedException ex) {
-                        intr = true;
-                    }
-                    counter = this.counter;
+        if (! tryAcquire()) {
+            // join() waits uninterruptibly and preserves the interrupt status
+            enqueue().join();
+        }
+        return open();
+    }
+
+    /**
+     * Open a message without blocking.  The returned stage completes with the message stream once a message is
+     * available, or exceptionally if the channel failed to open the message.  Cancelling the returned stage's
+     * {@link CompletableFuture} before it completes gives up its place in the queue.
+     *
+     * @return the future message stream (not {@code null})
+     */
+    public CompletionStage<MessageOutputStream> openMessageAsync() {
+        if (tryAcquire()) {
+            return openAsync();
+        }
+        final CompletableFuture<Void> waiter = enqueue();
+        final CompletableFuture<MessageOutputStream> result = new CompletableFuture<>();
+        // the grant happens on whatever thread released the permit; open the message and run the caller's callbacks elsewhere
+        waiter.whenCompleteAsync((ignored, throwable) -> {
+            if (throwable == null) {
+                final MessageOutputStream message;
+                try {
+                    message = open();
+                } catch (Throwable t) {
+                    // nothing else would ever complete the caller's future
+                    result.completeExceptionally(t);
+                    return;
+                }
+                if (! result.complete(message)) {
+                    // the caller cancelled after we were granted; give the message back
+                    message.cancel();
+                    safeClose(message);
                 }
-                this.counter = counter - 1;
             }
-            return getMessageInstance(channel.writeMessage());
-        } finally {
-            if (intr) Thread.currentThread().interrupt();
+        }, task -> InvocationTracker.execute(executor, task));
+        result.whenComplete((message, throwable) -> {
+            if (result.isCancelled()) {
+                // give up our place in the queue, if we still hold one
+                if (waiter.cancel(false)) {
+                    waiters.remove(waiter);
+                }
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<MessageOutputStream> openAsync() {
+        final CompletableFuture<MessageOutputStream> future = new CompletableFuture<>();
+        try {
+            future.complete(open());
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
         }
+        return future;
     }
 
-    private AbstractDelegatingMessageOutputStream getMessageInstance(final MessageOutputStream delegate) {
-        return new AbstractDelegatingMessageOutputStream(delegate) {
-            private final AtomicBoolean done = new AtomicBoolean();
-
-            public void close() throws IOException {
-                if (done.compareAndSet(false, true)) try {
-                    super.close();
-                } finally {
-                    final Object lock = MessageTracker.this.lock;
-                    synchronized (lock) {
-                        MessageTracker.this.counter ++;
-                        lock.notify();
-                    }
-                }
+    private boolean tryAcquire() {
+        final AtomicInteger permits = this.permits;
+        int cnt;
+        do {
+            // do not barge in front of waiting threads
+            if (! waiters.isEmpty()) {
+                return false;
+            }
+            cnt = permits.get();
+            if (cnt == 0) {
+                return false;
             }
-        };
+        } while (! permits.compareAndSet(cnt, cnt - 1));
+        return true;
     }
+
+    private CompletableFuture<Void> enqueue() {
+        final CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        // a permit may have been released before we were visible
+        grant();
+        return waiter;
+    }
+
+    private void abandon(final CompletableFuture<Void> waiter) {
+        if (waiter.cancel(false)) {
+            waiters.remove(waiter);
+        } else {
+            // granted concurrently; pass it on
+            release();
+        }
+    }
+
+    private void release() {
+        permits.incrementAndGet();
+        grant();
+    }
+
+    /**
+     * Hand available permits to waiters, in order.
+     */
+    private void grant() {
+        final AtomicInteger permits = this.permits;
+        final Queue<CompletableFuture<Void>> waiters = this.waiters;
+        for (;;) {
+            if (waiters.isEmpty()) {
+                return;
+            }
+            final int cnt = permits.get();
+            if (cnt == 0) {
+                return;
+            }
+            if (! permits.compareAndSet(cnt, cnt - 1)) {
+                continue;
+            }
+            final CompletableFuture<Void> waiter = waiters.poll();
+            if (waiter == null || ! waiter.complete(null)) {
+                // nobody there, or the waiter gave up; put the permit back and look again
+                permits.incrementAndGet();
+            }
+        }
+    }
+
+    private MessageOutputStream open() throws IOException {
+        final MessageOutputStream delegate;
+        try {
+            delegate = channel.writeMessage();
+        } catch (Throwable t) {
+            release();
+            throw t;
+        }
+        return new TrackedMessage(delegate);
+    }
+
+    final class TrackedMessage extends AbstractDelegatingMessageOutputStream {
+        // not private: the updater lives in the outer class, since an inner class cannot declare it
+        @SuppressWarnings("unused")
+        volatile int done;
+
+        TrackedMessage(final MessageOutputStream delegate) {
+            super(delegate);
+        }
+
+        public void close() throws IOException {
+            if (doneUpdater.compareAndSet(this, 0, 1)) try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<TrackedMessage> doneUpdater = AtomicIntegerFieldUpdater.newUpdater(TrackedMessage.class, "done");
 }
@@ -18,13 +18,14 @@
 
 package org.jboss.remoting3.util;
 
-import static org.xnio.Bits.allAreClear;
 import static org.xnio.Bits.allAreSet;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
@@ -265,23 +266,41 @@ public final class StreamUtils {
         writeInt32BE(os, (int) val);
     }
 
+    /**
+     * Write a packed unsigned 31-bit integer, most significant 7-bit group first.
+     * <p>
+     * <em>Compatibility note:</em> up to and including 5.0.x, this method (and {@link #writePackedUnsignedInt32(OutputStream, int)})
+     * wrote the <em>least</em> significant group first, which {@link #readPackedUnsignedInt31(InputStream)} could not
+     * read back for values of 128 or more.  Values below 128 are encoded identically.  Data written by the old
+     * encoding with larger values must be decoded by the application, by reversing the order of the 7-bit groups.
+     *
+     * @param os the output stream
+     * @param val the value to write; the sign bit is ignored
+     * @throws IOException if the write failed
+     */
     public static void writePackedUnsignedInt31(OutputStream os, int val) throws IOException {
-        val &= 0x7fff_ffff;
-        while (32 - Integer.numberOfLeadingZeros(val) > 7) {
-            os.write(val | 0b1000_0000);
-            val >>>= 7;
-        }
-        assert allAreClear(val, 0b1000_0000);
-        os.write(val);
+        writePackedUnsignedInt32(os, val & 0x7fff_ffff);
     }
 
+    /**
+     * Write a packed unsigned 32-bit integer, most significant 7-bit group first.  See the compatibility note on
+     * {@link #writePackedUnsignedInt31(OutputStream, int)}.
+     *
+     * @param os the output stream
+     * @param val the value to write
+     * @throws IOException if the write failed
+     */
     public static void writePackedUnsignedInt32(OutputStream os, int val) throws IOException {
-        while (32 - Integer.numberOfLeadingZeros(val) > 7) {
-            os.write(val | 0b1000_0000);
-            val >>>= 7;
+        // most significant group first, to match readPackedUnsignedInt32
+        for (int shift = packedShift(val); shift > 0; shift -= 7) {
+            os.write(val >>> shift & 0b0111_1111 | 0b1000_0000);
         }
-        assert allAreClear(val, 0b1000_0000);
-        os.write(val);
+        os.write(val & 0b0111_1111);
+    }
+
+    private static int packedShift(int val) {
+        final int bits = 32 - Integer.numberOfLeadingZeros(val);
+        return bits == 0 ? 0 : (bits - 1) / 7 * 7;
     }
 
     public static void readFully(final InputStream is, final byte[] bytes) throws IOException {
@@ -297,4 +316,154 @@ public final class StreamUtils {
             t += res;
         }
     }
+
+    // buffers
+    //
+    // The buffer methods use relative access and throw BufferUnderflowException or BufferOverflowException as the
+    // buffer methods do; they do not depend on the byte order of the buffer.
+
+    public static int readInt8(ByteBuffer buf) {
+        return buf.get() & 0xff;
+    }
+
+    public static int readInt16LE(ByteBuffer buf) {
+        final short val = buf.getShort();
+        return (buf.order() == ByteOrder.LITTLE_ENDIAN ? val : Short.reverseBytes(val)) & 0xffff;
+    }
+
+    public static int readInt16BE(ByteBuffer buf) {
+        final short val = buf.getShort();
+        return (buf.order() == ByteOrder.BIG_ENDIAN ? val : Short.reverseBytes(val)) & 0xffff;
+    }
+
+    public static int readInt32LE(ByteBuffer buf) {
+        final int val = buf.getInt();
+        return buf.order() == ByteOrder.LITTLE_ENDIAN ? val : Integer.reverseBytes(val);
+    }
+
+    public static int readInt32BE(ByteBuffer buf) {
+        final int val = buf.getInt();
+        return buf.order() == ByteOrder.BIG_ENDIAN ? val : Integer.reverseBytes(val);
+    }
+
+    public static long readInt64LE(ByteBuffer buf) {
+        final long val = buf.getLong();
+        return buf.order() == ByteOrder.LITTLE_ENDIAN ? val : Long.reverseBytes(val);
+    }
+
+    public static long readInt64BE(ByteBuffer buf) {
+        final long val = buf.getLong();
+        return buf.order() == ByteOrder.BIG_ENDIAN ? val : Long.reverseBytes(val);
+    }
+
+    public static int readPackedUnsignedInt31(ByteBuffer buf) {
+        return readPackedUnsignedInt32(buf) & 0x7fff_ffff;
+    }
+
+    public static int readPackedUnsignedInt32(ByteBuffer buf) {
+        int res = buf.get();
+        int t = res & 0b0111_1111;
+        while (res < 0) {
+            res = buf.get();
+            t = t << 7 | res & 0b0111_1111;
+        }
+        return t;
+    }
+
+    public static void writeInt8(ByteBuffer buf, int val) {
+        buf.put((byte) val);
+    }
+
+    public static void writeInt16LE(ByteBuffer buf, int val) {
+        buf.putShort(buf.order() == ByteOrder.LITTLE_ENDIAN ? (short) val : Short.reverseBytes((short) val));
+    }
+
+    public static void writeInt16BE(ByteBuffer buf, int val) {
+        buf.putShort(buf.order() == ByteOrder.BIG_ENDIAN ? (short) val : Short.reverseBytes((short) val));
+    }
+
+    public static void writeInt32LE(ByteBuffer buf, int val) {
+        buf.putInt(buf.order() == ByteOrder.LITTLE_ENDIAN ? val : Integer.reverseBytes(val));
+    }
+
+    public static void writeInt32BE(ByteBuffer buf, int val) {
+        buf.putInt(buf.order() == ByteOrder.BIG_ENDIAN ? val : Integer.reverseBytes(val));
+    }
+
+    public static void writeInt64LE(ByteBuffer buf, long val) {
+        buf.putLong(buf.order() == ByteOrder.LITTLE_ENDIAN ? val : Long.reverseBytes(val));
+    }
+
+    public static void writeInt64BE(ByteBuffer buf, long val) {
+        buf.putLong(buf.order() == ByteOrder.BIG_ENDIAN ? val : Long.reverseBytes(val));
+    }
+
+    public static void writePackedUnsignedInt31(ByteBuffer buf, int val) {
+        writePackedUnsignedInt32(buf, val & 0x7fff_ffff);
+    }
+
+    public static void writePackedUnsignedInt32(ByteBuffer buf, int val) {
+        for (int shift = packedShift(val); shift > 0; shift -= 7) {
+            buf.put((byte) (val >>> shift & 0b0111_1111 | 0b1000_0000));
+        }
+        buf.put((byte) (val & 0b0111_1111));
+    }
+
+    /**
+     * Get the number of bytes that {@code writePackedUnsignedInt32} would write for the given value.
+     *
+     * @param val the value
+     * @return the encoded length, from 1 to 5
+     */
+    public static int packedUnsignedInt32Length(int val) {
+        return packedShift(val) / 7 + 1;
+    }
+
+    // arrays
+
+    public static int readInt16BE(byte[] bytes, int off) {
+        return (bytes[off] & 0xff) << 8 | bytes[off + 1] & 0xff;
+    }
+
+    public static int readInt32BE(byte[] bytes, int off) {
+        return bytes[off] << 24 | (bytes[off + 1] & 0xff) << 16 | (bytes[off + 2] & 0xff) << 8 | bytes[off + 3] & 0xff;
+    }
+
+    public static long readInt64BE(byte[] bytes, int off) {
+        return (long) readInt32BE(bytes, off) << 32 | readInt32BE(bytes, off + 4) & 0xffff_ffffL;
+    }
+
+    public static void writeInt16BE(byte[] bytes, int off, int val) {
+        bytes[off] = (byte) (val >> 8);
+        bytes[off + 1] = (byte) val;
+    }
+
+    public static void writeInt32BE(byte[] bytes, int off, int val) {
+        bytes[off] = (byte) (val >> 24);
+        bytes[off + 1] = (byte) (val >> 16);
+        bytes[off + 2] = (byte) (val >> 8);
+        bytes[off + 3] = (byte) val;
+    }
+
+    public static void writeInt64BE(byte[] bytes, int off, long val) {
+        writeInt32BE(bytes, off, (int) (val >> 32));
+        writeInt32BE(bytes, off + 4, (int) val);
+    }
+
+    /**
+     * Write a packed unsigned 32-bit integer into an array, in the same format as
+     * {@link #writePackedUnsignedInt32(OutputStream, int)}.
+     *
+     * @param bytes the target array, which must have room for {@link #packedUnsignedInt32Length(int)} bytes
+     * @param off the offset to write at
+     * @param val the value to write
+     * @return the offset after the last byte written
+     */
+    public static int writePackedUnsignedInt32(byte[] bytes, int off, int val) {
+        for (int shift = packedShift(val); shift > 0; shift -= 7) {
+            bytes[off++] = (byte) (val >>> shift & 0b0111_1111 | 0b1000_0000);
+        }
+        bytes[off++] = (byte) (val & 0b0111_1111);
+        return off;
+    }
 }
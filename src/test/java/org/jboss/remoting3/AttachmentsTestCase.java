@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.junit.Test;
+
+public class AttachmentsTestCase {
+
+    private static final int THREADS = 4;
+    private static final int ITERATIONS = 200;
+
+    @SuppressWarnings("unchecked")
+    private static final Attachments.Key<Integer>[] KEYS = new Attachments.Key[24];
+    private static final Attachments.Key<Integer> MAPPED_KEY;
+
+    static {
+        for (int i = 0; i < KEYS.length; i ++) {
+            KEYS[i] = new Attachments.Key<>(Integer.class);
+        }
+        Attachments.Key<Integer> key;
+        do {
+            key = new Attachments.Key<>(Integer.class);
+        } while (key.index < Attachments.MAX_INDEXED);
+        MAPPED_KEY = key;
+    }
+
+    @Test
+    public void testBasics() {
+        for (Attachments.Key<Integer> key : keys()) {
+            final Attachments attachments = new Attachments();
+            assertNull(attachments.getAttachment(key));
+            assertNull(attachments.removeAttachment(key));
+            assertFalse(attachments.replaceAttachment(key, Integer.valueOf(1), Integer.valueOf(2)));
+            assertNull(attachments.attach(key, Integer.valueOf(1)));
+            assertEquals(Integer.valueOf(1), attachments.attachIfAbsent(key, Integer.valueOf(2)));
+            assertTrue(attachments.replaceAttachment(key, Integer.valueOf(1), Integer.valueOf(3)));
+            assertFalse(attachments.removeAttachment(key, Integer.valueOf(1)));
+            assertTrue(attachments.removeAttachment(key, Integer.valueOf(3)));
+            assertNull(attachments.getAttachment(key));
+        }
+    }
+
+    @Test
+    public void testConcurrentAttachIfAbsent() throws Exception {
+        for (Attachments.Key<Integer> key : keys()) {
+            for (int i = 0; i < ITERATIONS; i ++) {
+                final Attachments attachments = new Attachments();
+                final AtomicInteger winners = new AtomicInteger();
+                final Integer[] seen = new Integer[THREADS];
+                race(t -> {
+                    final Integer existing = attachments.attachIfAbsent(key, Integer.valueOf(t));
+                    if (existing == null) {
+                        winners.incrementAndGet();
+                        seen[t] = Integer.valueOf(t);
+                    } else {
+                        seen[t] = existing;
+                    }
+                });
+                assertEquals(1, winners.get());
+                final Integer winner = attachments.getAttachment(key);
+                for (Integer value : seen) {
+                    assertEquals(winner, value);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentAttachDistinctKeys() throws Exception {
+        for (int i = 0; i < ITERATIONS; i ++) {
+            // every thread may be installing a slot array at once; none of the attachments may be lost
+            final Attachments attachments = new Attachments();
+            race(t -> {
+                for (int k = t; k < KEYS.length; k += THREADS) {
+                    attachments.attach(KEYS[k], Integer.valueOf(k));
+                }
+                attachments.attach(MAPPED_KEY, Integer.valueOf(-1));
+            });
+            for (int k = 0; k < KEYS.length; k ++) {
+                assertEquals(Integer.valueOf(k), attachments.getAttachment(KEYS[k]));
+            }
+            assertEquals(Integer.valueOf(-1), attachments.getAttachment(MAPPED_KEY));
+        }
+    }
+
+    @Test
+    public void testConcurrentReplace() throws Exception {
+        for (Attachments.Key<Integer> key : keys()) {
+            final Attachments attachments = new Attachments();
+            attachments.attach(key, Integer.valueOf(0));
+            race(t -> {
+                for (int n = 0; n < 1000; n ++) {
+                    Integer old;
+                    do {
+                        old = attachments.getAttachment(key);
+                    } while (! attachments.replaceAttachment(key, old, Integer.valueOf(old.intValue() + 1)));
+                }
+            });
+            assertEquals(Integer.valueOf(THREADS * 1000), attachments.getAttachment(key));
+        }
+    }
+
+    @Test
+    public void testConcurrentRemove() throws Exception {
+        for (Attachments.Key<Integer> key : keys()) {
+            for (int i = 0; i < ITERATIONS; i ++) {
+                final Attachments attachments = new Attachments();
+                final Integer value = Integer.valueOf(1000 + i);
+                attachments.attach(key, value);
+                final AtomicInteger removed = new AtomicInteger();
+                race(t -> {
+                    if (t % 2 == 0 ? attachments.removeAttachment(key, value) : attachments.removeAttachment(key) != null) {
+                        removed.incrementAndGet();
+                    }
+                });
+                assertEquals(1, removed.get());
+                assertNull(attachments.getAttachment(key));
+            }
+        }
+    }
+
+    private static List<Attachments.Key<Integer>> keys() {
+        final List<Attachments.Key<Integer>> keys = new ArrayList<>();
+        keys.add(KEYS[KEYS.length - 1]);
+        keys.add(MAPPED_KEY);
+        return keys;
+    }
+
+    private static void race(IntConsumer task) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> problems = new ArrayList<>();
+        final Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t ++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    task.accept(id);
+                } catch (Throwable e) {
+                    synchronized (problems) {
+                        problems.add(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(problems.toString(), problems.isEmpty());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.xnio.FailedIoFuture;
+import org.xnio.FinishedIoFuture;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+
+public class BulkConnectorTestCase {
+
+    private static List<URI> destinations(final int count) {
+        final List<URI> destinations = new ArrayList<>(count);
+        for (int i = 0; i < count; i ++) {
+            destinations.add(URI.create("remote://host" + i + ":4447"));
+        }
+        return destinations;
+    }
+
+    private static Connection connection(final AtomicInteger closed) {
+        return (Connection) Proxy.newProxyInstance(BulkConnectorTestCase.class.getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+            if (method.getName().equals("close")) {
+                closed.incrementAndGet();
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void testMaxInFlight() throws Exception {
+        final List<URI> destinations = destinations(10);
+        final List<FutureResult<Connection>> attempts = new ArrayList<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final IoFuture<List<ConnectResult>> future = BulkConnector.connectAll(destinations, destination -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            final FutureResult<Connection> attempt = new FutureResult<>();
+            attempts.add(attempt);
+            return attempt.getIoFuture();
+        }, IoUtils.directExecutor(), 3);
+        assertEquals(3, attempts.size());
+        final AtomicInteger closed = new AtomicInteger();
+        for (int i = 0; i < destinations.size(); i ++) {
+            assertEquals(IoFuture.Status.WAITING, future.getStatus());
+            inFlight.decrementAndGet();
+            if (i % 2 == 0) {
+                attempts.get(i).setResult(connection(closed));
+            } else {
+                attempts.get(i).setException(new IOException("Refused"));
+            }
+        }
+        assertEquals(3, maxInFlight.get());
+        assertEquals(IoFuture.Status.DONE, future.getStatus());
+        final List<ConnectResult> results = future.getInterruptibly();
+        assertEquals(destinations.size(), results.size());
+        for (int i = 0; i < results.size(); i ++) {
+            final ConnectResult result = results.get(i);
+            // results are in the order of the destinations, not of completion
+            assertSame(destinations.get(i), result.getDestination());
+            assertEquals(i % 2 == 0, result.isSuccessful());
+            assertEquals(i % 2 != 0, result.getException() != null);
+        }
+        assertEquals(0, closed.get());
+    }
+
+    @Test
+    public void testSynchronousCompletion() throws IOException {
+        final List<URI> destinations = destinations(10_000);
+        final AtomicInteger closed = new AtomicInteger();
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicInteger maxDepth = new AtomicInteger();
+        // every attempt completes before it is even returned; this must neither recurse nor lose attempts
+        final IoFuture<List<ConnectResult>> future = BulkConnector.connectAll(destinations, destination -> {
+            maxDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+            try {
+                return destination.getHost().endsWith("7") ? new FailedIoFuture<>(new IOException("Refused")) : new FinishedIoFuture<>(connection(closed));
+            } finally {
+                depth.decrementAndGet();
+            }
+        }, IoUtils.directExecutor(), 4);
+        assertEquals(IoFuture.Status.DONE, future.getStatus());
+        final List<ConnectResult> results = future.get();
+        assertEquals(destinations.size(), results.size());
+        for (ConnectResult result : results) {
+            assertEquals(! result.getDestination().getHost().endsWith("7"), result.isSuccessful());
+        }
+        assertEquals(1, maxDepth.get());
+    }
+
+    @Test
+    public void testCancel() {
+        final List<URI> destinations = destinations(4);
+        final List<FutureResult<Connection>> attempts = new ArrayList<>();
+        final IoFuture<List<ConnectResult>> future = BulkConnector.connectAll(destinations, destination -> {
+            final FutureResult<Connection> attempt = new FutureResult<>();
+            // only acknowledge the cancel once the test says so
+            attempt.addCancelHandler(attempt::getIoFuture);
+            attempts.add(attempt);
+            return attempt.getIoFuture();
+        }, IoUtils.directExecutor(), 2);
+        assertEquals(2, attempts.size());
+        final AtomicInteger closed = new AtomicInteger();
+        future.cancel();
+        // the queued attempts are never started
+        assertEquals(2, attempts.size());
+        assertEquals(IoFuture.Status.WAITING, future.getStatus());
+        // one attempt completes anyway, the other acknowledges the cancel
+        attempts.get(0).setResult(connection(closed));
+        attempts.get(1).setCancelled();
+        assertEquals(IoFuture.Status.CANCELLED, future.getStatus());
+        // nobody can retrieve the connection, so it must have been closed
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        final IoFuture<List<ConnectResult>> future = BulkConnector.connectAll(new ArrayList<>(), destination -> {
+            throw new IllegalStateException();
+        }, IoUtils.directExecutor(), 1);
+        assertEquals(IoFuture.Status.DONE, future.getStatus());
+        assertTrue(future.get().isEmpty());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.net.URI;
+
+import org.junit.Test;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+
+public class ConnectionKeyCacheTestCase {
+
+    @Test
+    public void testLookup() {
+        final ConnectionKeyCache cache = new ConnectionKeyCache(4);
+        final AuthenticationConfiguration configuration = AuthenticationConfiguration.empty();
+        final URI destination = URI.create("remote+http://localhost:8080/path");
+        assertNull(cache.get(destination, configuration, null));
+        final ConnectionKey key = new ConnectionKey(URI.create("remote+http://localhost:8080"), null);
+        cache.put(destination, configuration, null, key);
+        assertSame(key, cache.get(URI.create("remote+http://localhost:8080/path"), configuration, null));
+        // a changed configuration is a different entry
+        assertNull(cache.get(destination, configuration.useName("other"), null));
+    }
+
+    @Test
+    public void testEviction() {
+        final ConnectionKeyCache cache = new ConnectionKeyCache(2);
+        final AuthenticationConfiguration configuration = AuthenticationConfiguration.empty();
+        final URI first = URI.create("remote://first:4447");
+        final URI second = URI.create("remote://second:4447");
+        final URI third = URI.create("remote://third:4447");
+        cache.put(first, configuration, null, new ConnectionKey(first, null));
+        cache.put(second, configuration, null, new ConnectionKey(second, null));
+        // touch the first entry so that the second is the least recently used
+        assertNotNull(cache.get(first, configuration, null));
+        cache.put(third, configuration, null, new ConnectionKey(third, null));
+        assertNotNull(cache.get(first, configuration, null));
+        assertNull(cache.get(second, configuration, null));
+        assertNotNull(cache.get(third, configuration, null));
+    }
+
+    @Test
+    public void testReplace() {
+        final ConnectionKeyCache cache = new ConnectionKeyCache(4);
+        final AuthenticationConfiguration configuration = AuthenticationConfiguration.empty();
+        final URI destination = URI.create("remote://localhost:4447");
+        cache.put(destination, configuration, null, new ConnectionKey(destination, null));
+        final ConnectionKey key = new ConnectionKey(destination, null);
+        cache.put(destination, configuration, null, key);
+        assertEquals(1, cache.size());
+        assertSame(key, cache.get(destination, configuration, null));
+        // a second configuration for the same destination is kept alongside the first
+        cache.put(destination, configuration.useName("other"), null, new ConnectionKey(destination, null));
+        assertEquals(2, cache.size());
+        assertSame(key, cache.get(destination, configuration, null));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(destination, configuration, null));
+    }
+
+    @Test
+    public void testBatchEviction() {
+        final ConnectionKeyCache cache = new ConnectionKeyCache(32);
+        final AuthenticationConfiguration configuration = AuthenticationConfiguration.empty();
+        final URI[] destinations = new URI[32];
+        for (int i = 0; i < destinations.length; i ++) {
+            destinations[i] = URI.create("remote://host" + i + ":4447");
+            cache.put(destinations[i], configuration, null, new ConnectionKey(destinations[i], null));
+        }
+        assertEquals(32, cache.size());
+        // keep the first entry alive
+        assertNotNull(cache.get(destinations[0], configuration, null));
+        final URI extra = URI.create("remote://extra:4447");
+        cache.put(extra, configuration, null, new ConnectionKey(extra, null));
+        // overflowing by one evicts a whole batch of the eldest entries
+        assertEquals(31, cache.size());
+        assertNotNull(cache.get(destinations[0], configuration, null));
+        assertNull(cache.get(destinations[1], configuration, null));
+        assertNull(cache.get(destinations[2], configuration, null));
+        assertNotNull(cache.get(destinations[3], configuration, null));
+        assertNotNull(cache.get(extra, configuration, null));
+    }
+}
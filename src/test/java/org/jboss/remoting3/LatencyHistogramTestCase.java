@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTestCase {
+
+    @Test
+    public void testBucketBounds() {
+        for (long value = 0; value < 1_000_000L; value ++) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueOf(index));
+            if (index > 0) {
+                assertTrue(value > LatencyHistogram.highestValueOf(index - 1));
+            }
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getValueAtPercentile(50.0));
+        for (long i = 1; i <= 10_000L; i ++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-1L);
+        assertEquals(10_000L, histogram.getCount());
+        assertEquals(10_000_000L, histogram.getMax());
+        assertEquals(5_000_500L, histogram.getMean());
+        final long p50 = histogram.getValueAtPercentile(50.0);
+        assertTrue(p50 >= 5_000_000L && p50 <= 5_000_000L * 17 / 16);
+        final long p99 = histogram.getValueAtPercentile(99.0);
+        assertTrue(p99 >= 9_900_000L && p99 <= 10_000_000L);
+        assertEquals(10_000_000L, histogram.getValueAtPercentile(100.0));
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(10_000L, snapshot.getCount());
+        assertEquals(10_000L, snapshot.getMax());
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMax());
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.remoting3.spi.ConnectionHandlerContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xnio.OptionMap;
+
+public class LocalChannelTestCase {
+
+    private ExecutorService executor;
+
+    @Before
+    public void createExecutor() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void destroyExecutor() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private LocalChannel createChannel(final int queueLength) {
+        return createChannel(OptionMap.create(RemotingOptions.MAX_INBOUND_MESSAGES, queueLength));
+    }
+
+    private LocalChannel createChannel(final OptionMap optionMap) {
+        final ConnectionHandlerContext context = (ConnectionHandlerContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ConnectionHandlerContext.class }, (proxy, method, args) -> null);
+        return new LocalChannel(executor, context, optionMap);
+    }
+
+    private LocalChannel createChannel(final int bufferSize, final int windowSize) {
+        return createChannel(OptionMap.create(RemotingOptions.SEND_BUFFER_SIZE, bufferSize, RemotingOptions.RECEIVE_WINDOW_SIZE, windowSize));
+    }
+
+    private static byte[] pattern(final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i ++) {
+            bytes[i] = (byte) (i * 31 + 7);
+        }
+        return bytes;
+    }
+
+    private static byte[] readFully(final MessageInputStream in) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final byte[] buf = new byte[100];
+        int res;
+        while ((res = in.read(buf)) != -1) {
+            os.write(buf, 0, res);
+        }
+        in.close();
+        return os.toByteArray();
+    }
+
+    private void roundTrip(final int bufferSize, final int length) throws Exception {
+        final LocalChannel channel = createChannel(bufferSize, bufferSize * 2);
+        final BlockingQueue<MessageInputStream> received = new LinkedBlockingQueue<>();
+        channel.getOtherSide().receiveMessage(new Receiver(received));
+        final byte[] bytes = pattern(length);
+        final Future<byte[]> result = executor.submit(() -> readFully(received.take()));
+        try (MessageOutputStream out = channel.writeMessage()) {
+            // a large write, then the same again in small pieces and a single byte
+            out.write(bytes);
+            for (int i = 0; i < length; i += 7) {
+                out.write(bytes, i, Math.min(7, length - i));
+            }
+            out.write(0x5a);
+        }
+        final byte[] expected = Arrays.copyOf(bytes, length * 2 + 1);
+        System.arraycopy(bytes, 0, expected, length, length);
+        expected[length * 2] = 0x5a;
+        assertArrayEquals(expected, result.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRoundTripSmallerThanBuffer() throws Exception {
+        roundTrip(256, 100);
+    }
+
+    @Test
+    public void testRoundTripEqualToBuffer() throws Exception {
+        roundTrip(256, 256);
+    }
+
+    @Test
+    public void testRoundTripLargerThanBuffer() throws Exception {
+        roundTrip(256, 256 * 5 + 17);
+    }
+
+    @Test
+    public void testSlowReaderHoldsWriter() throws Exception {
+        final int bufferSize = 256;
+        final int windowSize = 1024;
+        final LocalChannel channel = createChannel(bufferSize, windowSize);
+        final BlockingQueue<MessageInputStream> received = new LinkedBlockingQueue<>();
+        channel.getOtherSide().receiveMessage(new Receiver(received));
+        final byte[] bytes = pattern(windowSize * 4);
+        final CountDownLatch written = new CountDownLatch(1);
+        final Future<Void> writer = executor.submit(() -> {
+            try (MessageOutputStream out = channel.writeMessage()) {
+                for (int i = 0; i < bytes.length; i += 100) {
+                    out.write(bytes, i, Math.min(100, bytes.length - i));
+                }
+            }
+            written.countDown();
+            return null;
+        });
+        final MessageInputStream in = received.take();
+        // nothing is read, so the writer must stop once a window is outstanding
+        assertFalse(written.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(windowSize, in.available());
+        assertArrayEquals(bytes, readFully(in));
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        writer.get();
+    }
+
+    @Test
+    public void testCancelMidStream() throws Exception {
+        final int bufferSize = 256;
+        final LocalChannel channel = createChannel(bufferSize, bufferSize * 4);
+        final BlockingQueue<MessageInputStream> received = new LinkedBlockingQueue<>();
+        channel.getOtherSide().receiveMessage(new Receiver(received));
+        final MessageOutputStream out = channel.writeMessage();
+        out.write(pattern(bufferSize));
+        final MessageInputStream in = received.take();
+        assertTrue(in.read() != -1);
+        out.cancel();
+        try {
+            in.read();
+            fail("Expected MessageCancelledException");
+        } catch (MessageCancelledException expected) {
+        }
+        assertTrue(((LocalChannel.In) in).wasCancelled());
+        try {
+            out.write(1);
+            fail("Expected NotOpenException");
+        } catch (NotOpenException expected) {
+        }
+        // closing a cancelled message is a no-op, and the channel accepts further messages
+        out.close();
+        channel.getOtherSide().receiveMessage(new Receiver(received));
+        try (MessageOutputStream next = channel.writeMessage()) {
+            next.write(1);
+        }
+        assertArrayEquals(new byte[] { 1 }, readFully(received.poll(10, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    public void testFullQueue() throws Exception {
+        final LocalChannel channel = createChannel(2);
+        final LocalChannel otherSide = channel.getOtherSide();
+        channel.writeMessage().close();
+        channel.writeMessage().close();
+        final CountDownLatch written = new CountDownLatch(1);
+        final Thread writer = new Thread(() -> {
+            try {
+                channel.writeMessage().close();
+                written.countDown();
+            } catch (IOException ignored) {
+            }
+        });
+        writer.start();
+        final CountDownLatch writable = new CountDownLatch(1);
+        channel.whenWritable(writable::countDown);
+        // the queue is full, so neither the writer nor the task may proceed
+        assertFalse(written.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, writable.getCount());
+        // taking one message must wake the writer as well as run the task
+        final BlockingQueue<MessageInputStream> received = new LinkedBlockingQueue<>();
+        otherSide.receiveMessage(new Receiver(received));
+        assertTrue(written.await(10, TimeUnit.SECONDS));
+        assertTrue(writable.await(10, TimeUnit.SECONDS));
+        writer.join();
+        received.take().close();
+    }
+
+    @Test
+    public void testConcurrentWriteAndClose() throws Exception {
+        for (int i = 0; i < 200; i ++) {
+            final LocalChannel channel = createChannel(4);
+            final LocalChannel otherSide = channel.getOtherSide();
+            final AtomicInteger accepted = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            final Thread[] writers = new Thread[4];
+            for (int j = 0; j < writers.length; j ++) {
+                writers[j] = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (;;) {
+                            channel.writeMessage().close();
+                            accepted.incrementAndGet();
+                        }
+                    } catch (NotOpenException expected) {
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                writers[j].start();
+            }
+            final Counter counter = new Counter();
+            otherSide.receiveMessage(counter);
+            start.countDown();
+            Thread.sleep(1);
+            channel.writeShutdown();
+            for (Thread writer : writers) {
+                writer.join(10_000L);
+                assertFalse("writer did not observe the shutdown", writer.isAlive());
+            }
+            // every message that was accepted is delivered before the end of stream, and none after it
+            assertTrue(counter.ended.await(10, TimeUnit.SECONDS));
+            assertEquals(accepted.get(), counter.messages.get());
+            assertFalse(counter.late);
+        }
+    }
+
+    @Test
+    public void testWriteAfterShutdown() throws Exception {
+        final LocalChannel channel = createChannel(4);
+        channel.writeShutdown();
+        try {
+            channel.writeMessage();
+            fail("Expected NotOpenException");
+        } catch (NotOpenException expected) {
+        }
+        final CountDownLatch writable = new CountDownLatch(1);
+        channel.whenWritable(writable::countDown);
+        assertTrue(writable.await(10, TimeUnit.SECONDS));
+    }
+
+    static final class Receiver implements Channel.Receiver {
+        private final BlockingQueue<MessageInputStream> received;
+
+        Receiver(final BlockingQueue<MessageInputStream> received) {
+            this.received = received;
+        }
+
+        public void handleError(final Channel channel, final IOException error) {
+        }
+
+        public void handleEnd(final Channel channel) {
+        }
+
+        public void handleMessage(final Channel channel, final MessageInputStream message) {
+            received.add(message);
+        }
+    }
+
+    static final class Counter implements Channel.Receiver {
+        final AtomicInteger messages = new AtomicInteger();
+        final CountDownLatch ended = new CountDownLatch(1);
+
+        public void handleError(final Channel channel, final IOException error) {
+        }
+
+        volatile boolean late;
+
+        public void handleEnd(final Channel channel) {
+            ended.countDown();
+        }
+
+        public void handleMessage(final Channel channel, final MessageInputStream message) {
+            if (ended.getCount() == 0) {
+                late = true;
+            }
+            messages.incrementAndGet();
+            try {
+                message.close();
+            } catch (IOException ignored) {
+            }
+            channel.receiveMessage(this);
+        }
+    }
+}
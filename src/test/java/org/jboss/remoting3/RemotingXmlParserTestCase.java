@@ -19,15 +19,22 @@
 package org.jboss.remoting3;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.security.Security;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
 
 import org.jboss.logging.Logger;
+import org.jboss.remoting3.spi.NetworkServerProvider;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -37,6 +44,21 @@ import org.junit.Test;
 import org.junit.rules.TestName;
 import org.wildfly.client.config.ConfigXMLParseException;
 import org.wildfly.security.WildFlyElytronProvider;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.wildfly.security.auth.client.AuthenticationContext;
+import org.wildfly.security.auth.client.MatchRule;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.server.MechanismConfiguration;
+import org.wildfly.security.auth.server.SaslAuthenticationFactory;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.password.PasswordFactory;
+import org.wildfly.security.password.spec.ClearPasswordSpec;
+import org.wildfly.security.permission.PermissionVerifier;
+import org.wildfly.security.sasl.SaslMechanismSelector;
+import org.wildfly.security.sasl.util.SaslMechanismInformation;
+import org.wildfly.security.sasl.util.ServiceLoaderSaslServerFactory;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
 import org.xnio.OptionMap;
 import org.xnio.Options;
 
@@ -181,6 +203,73 @@ public class RemotingXmlParserTestCase {
 
     }
 
+    /**
+     * Tests that pre-connect settings are parsed from 52.
+     * @throws Exception
+     */
+    @Test
+    public void parsePreconnectTest() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        File file = new File(classLoader.getResource("wildfly-config-preconnect.xml").getFile());
+        System.setProperty("wildfly.config.url", file.getAbsolutePath());
+        final Endpoint serverEndpoint = Endpoint.builder().setEndpointName("server").build();
+        try {
+            final Closeable server = createServer(serverEndpoint, 30125);
+            try {
+                final AuthenticationContext context = AuthenticationContext.empty().with(MatchRule.ALL, AuthenticationConfiguration.empty().useName("bob").usePassword("pass").setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism("SCRAM-SHA-256")));
+                // create endpoint
+                endpoint = context.runExceptionAction(RemotingXmlParser::parseEndpoint);
+                Map<URI, OptionMap> connectionOptions = ((EndpointImpl)endpoint).getConnectionOptions();
+
+                OptionMap connectionOptionMap = connectionOptions.values().iterator().next();
+                assertEquals("Wrong value for readtimeout", 11000, connectionOptionMap.get(Options.READ_TIMEOUT, 0));
+
+                // the pre-connected connection is found without starting a new one
+                IoFuture<ConnectionPeerIdentity> futureIdentity = endpoint.getConnectedIdentityIfExists(URI.create("remote://localhost:30125"), null, null, context);
+                assertNotNull("Connection was not pre-connected", futureIdentity);
+                assertEquals("Pre-connect did not succeed", IoFuture.Status.DONE, futureIdentity.await(30, TimeUnit.SECONDS));
+            } finally {
+                IoUtils.safeClose(server);
+            }
+        } finally {
+            IoUtils.safeClose(serverEndpoint);
+        }
+    }
+
+    private static Closeable createServer(final Endpoint serverEndpoint, final int port) throws Exception {
+        final NetworkServerProvider networkServerProvider = serverEndpoint.getConnectionProviderInterface("remote", NetworkServerProvider.class);
+        final SecurityDomain.Builder domainBuilder = SecurityDomain.builder();
+        final SimpleMapBackedSecurityRealm mainRealm = new SimpleMapBackedSecurityRealm();
+        domainBuilder.addRealm("mainRealm", mainRealm).build();
+        domainBuilder.setDefaultRealmName("mainRealm");
+        domainBuilder.setPermissionMapper((permissionMappable, roles) -> PermissionVerifier.ALL);
+        final PasswordFactory passwordFactory = PasswordFactory.getInstance("clear");
+        mainRealm.setPasswordMap("bob", passwordFactory.generatePassword(new ClearPasswordSpec("pass".toCharArray())));
+        final SaslAuthenticationFactory.Builder builder = SaslAuthenticationFactory.builder();
+        builder.setSecurityDomain(domainBuilder.build());
+        builder.setFactory(new ServiceLoaderSaslServerFactory(RemotingXmlParserTestCase.class.getClassLoader()));
+        builder.setMechanismConfigurationSelector(mechanismInformation -> SaslMechanismInformation.Names.SCRAM_SHA_256.equals(mechanismInformation.getMechanismName()) ? MechanismConfiguration.EMPTY : null);
+        return networkServerProvider.createServer(new InetSocketAddress("localhost", port), OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE), builder.build(), SSLContext.getDefault());
+    }
+
+    /**
+     * Tests that pre-connect settings are rejected from 51.
+     * @throws Exception
+     */
+    @Test
+    public void parsePreconnect51ErrorTest() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        File file = new File(classLoader.getResource("wildfly-config-preconnect-51.xml").getFile());
+        System.setProperty("wildfly.config.url", file.getAbsolutePath());
+        boolean isConfigurationException = false;
+        try {
+            endpoint = RemotingXmlParser.parseEndpoint();
+        } catch (ConfigXMLParseException e) {
+            isConfigurationException = true;
+        }
+        assertTrue("No configuration exception", isConfigurationException);
+    }
+
     private void clearResources() {
         if (endpoint != null) {
             try {
@@ -21,16 +21,29 @@ package org.jboss.remoting3.remote;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.PrivilegedAction;
+import java.security.Provider;
 import java.security.Security;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
 
 import javax.net.ssl.SSLContext;
+import javax.security.sasl.Sasl;
 import javax.security.sasl.SaslServerFactory;
 
 import org.jboss.logging.Logger;
@@ -56,6 +69,7 @@ import org.wildfly.security.auth.client.AuthenticationContext;
 import org.wildfly.security.auth.client.MatchRule;
 import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
 import org.wildfly.security.auth.server.MechanismConfiguration;
+import org.wildfly.security.auth.server.MechanismRealmConfiguration;
 import org.wildfly.security.auth.server.SaslAuthenticationFactory;
 import org.wildfly.security.auth.server.SecurityDomain;
 import org.wildfly.security.password.PasswordFactory;
@@ -63,12 +77,15 @@ import org.wildfly.security.password.spec.ClearPasswordSpec;
 import org.wildfly.security.permission.PermissionVerifier;
 import org.wildfly.security.sasl.SaslMechanismSelector;
 import org.wildfly.security.sasl.util.SaslMechanismInformation;
+import org.wildfly.security.sasl.util.SecurityProviderSaslServerFactory;
 import org.wildfly.security.sasl.util.ServiceLoaderSaslServerFactory;
 import org.xnio.FutureResult;
 import org.xnio.IoFuture;
 import org.xnio.IoUtils;
 import org.xnio.OptionMap;
 import org.xnio.Options;
+import org.xnio.Property;
+import org.xnio.Sequence;
 
 /**
  * Tests the heartbeat option.
@@ -263,6 +280,7 @@ public class HeartbeatTestCase {
 
         RemoteConnectionChannel remoteClientChannel = (RemoteConnectionChannel) clientChannel;
         assertEquals(RemotingOptions.DEFAULT_HEARTBEAT_INTERVAL, Utils.getInstanceValue(remoteClientChannel.getRemoteConnection(), "heartbeatInterval"));
+        assertEquals(Boolean.TRUE, Utils.getInstanceValue(remoteClientChannel.getRemoteConnection(), "compactHeartbeat"));
         RemoteWriteListener clientWriteListener = (RemoteWriteListener) Utils
                 .getInstanceValue(remoteClientChannel.getRemoteConnection(), "writeListener");
         assertNotNull(Utils.getInstanceValue(clientWriteListener, "heartKey"));
@@ -271,4 +289,189 @@ public class HeartbeatTestCase {
         destroy(endpoint, streamServer);
     }
 
+    /**
+     * Test that heartbeats keep an idle connection alive when compact heartbeats are not negotiated, as with an older
+     * peer.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUncompactHeartbeatKeepsIdleConnectionAlive() throws Exception {
+        final OptionMap serverOptions = OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE, RemotingOptions.HEARTBEAT_INTERVAL, Integer.valueOf(200));
+        final OptionMap clientOptions = OptionMap.builder()
+                .set(RemotingOptions.HEARTBEAT_INTERVAL, 200)
+                .set(Options.READ_TIMEOUT, 1000)
+                .set(RemotingOptions.COMPACT_HEARTBEAT, false)
+                .getMap();
+        final TestConnection test = connect(serverOptions, clientOptions);
+        try {
+            final RemoteConnectionChannel remoteClientChannel = (RemoteConnectionChannel) test.clientChannel;
+            final RemoteConnectionChannel remoteServerChannel = (RemoteConnectionChannel) test.serverChannel;
+            assertEquals(Boolean.FALSE, Utils.getInstanceValue(remoteClientChannel.getRemoteConnection(), "compactHeartbeat"));
+            assertEquals(Boolean.FALSE, Utils.getInstanceValue(remoteServerChannel.getRemoteConnection(), "compactHeartbeat"));
+            // stay idle for several read timeouts; only heartbeats keep the connection open
+            Thread.sleep(3000L);
+            final Channel channel = test.connection.openChannel("org.jboss.test", OptionMap.EMPTY).get();
+            assertNotNull(channel);
+            IoUtils.safeClose(channel);
+        } finally {
+            test.close();
+        }
+    }
+
+    /**
+     * Test that an acknowledged heartbeat yields a round trip time and variance, also through the provider management
+     * bean.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHeartbeatRoundTripTime() throws Exception {
+        final OptionMap serverOptions = OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE);
+        final OptionMap clientOptions = OptionMap.create(RemotingOptions.HEARTBEAT_INTERVAL, Integer.valueOf(100));
+        final TestConnection test = connect(serverOptions, clientOptions);
+        try {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            long rtt;
+            while ((rtt = test.connection.getRoundTripTime(TimeUnit.NANOSECONDS)) <= 0L) {
+                assertTrue("No round trip time measured", System.nanoTime() < deadline);
+                Thread.sleep(50L);
+            }
+            assertTrue(rtt > 0L);
+            assertTrue(test.connection.getRoundTripTimeVariance(TimeUnit.NANOSECONDS) >= 0L);
+
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            boolean found = false;
+            boolean foundVariance = false;
+            for (ObjectName objectName : server.queryNames(new ObjectName("jboss.remoting.handler:*"), null)) {
+                final TabularData times = (TabularData) server.getAttribute(objectName, "ConnectionRoundTripTimes");
+                for (Object row : times.values()) {
+                    final Long value = (Long) ((CompositeData) row).get("value");
+                    assertTrue(value.longValue() >= 0L);
+                    found = true;
+                }
+                final TabularData variances = (TabularData) server.getAttribute(objectName, "ConnectionRoundTripTimeVariances");
+                for (Object row : variances.values()) {
+                    final Long value = (Long) ((CompositeData) row).get("value");
+                    assertTrue(value.longValue() >= 0L);
+                    foundVariance = true;
+                }
+            }
+            assertTrue("No round trip time exposed by the management bean", found);
+            assertTrue("No round trip time variance exposed by the management bean", foundVariance);
+        } finally {
+            test.close();
+        }
+    }
+
+    /**
+     * Test that compact heartbeats are wrapped once an integrity protecting SASL mechanism has been negotiated.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHeartbeatWithIntegrityProtection() throws Exception {
+        final OptionMap serverOptions = OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE, Options.SASL_PROPERTIES, Sequence.of(
+                Property.of(Sasl.QOP, "auth-int"), Property.of("com.sun.security.sasl.digest.realm", "mainRealm")));
+        final OptionMap clientOptions = OptionMap.create(RemotingOptions.HEARTBEAT_INTERVAL, Integer.valueOf(100));
+        // the JDK mechanism reports the negotiated quality of protection, which the wrapper is installed on
+        final Supplier<Provider[]> providers = () -> new Provider[] { Security.getProvider("SunSASL") };
+        final TestConnection test = connect(serverOptions, clientOptions, SaslMechanismInformation.Names.DIGEST_MD5, providers,
+                Collections.singletonMap(Sasl.QOP, "auth-int"));
+        try {
+            final RemoteConnectionChannel remoteClientChannel = (RemoteConnectionChannel) test.clientChannel;
+            final RemoteConnectionChannel remoteServerChannel = (RemoteConnectionChannel) test.serverChannel;
+            assertNotNull(remoteClientChannel.getRemoteConnection().getSaslWrapper());
+            assertNotNull(remoteServerChannel.getRemoteConnection().getSaslWrapper());
+            assertEquals(Boolean.TRUE, Utils.getInstanceValue(remoteClientChannel.getRemoteConnection(), "compactHeartbeat"));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (test.connection.getRoundTripTime(TimeUnit.NANOSECONDS) <= 0L) {
+                assertTrue("No round trip time measured", System.nanoTime() < deadline);
+                Thread.sleep(50L);
+            }
+            // the wrapped heartbeats have not disturbed the stream
+            final Channel channel = test.connection.openChannel("org.jboss.test", OptionMap.EMPTY).get();
+            assertNotNull(channel);
+            IoUtils.safeClose(channel);
+        } finally {
+            test.close();
+        }
+    }
+
+    private TestConnection connect(final OptionMap serverOptions, final OptionMap clientOptions) throws Exception {
+        return connect(serverOptions, clientOptions, SaslMechanismInformation.Names.SCRAM_SHA_256, null, Collections.emptyMap());
+    }
+
+    private TestConnection connect(final OptionMap serverOptions, final OptionMap clientOptions, final String mechanismName, final Supplier<Provider[]> providers, final Map<String, ?> mechanismProperties) throws Exception {
+        final TestConnection test = new TestConnection();
+        final Endpoint endpoint = test.endpoint = Endpoint.builder().setEndpointName("test").build();
+        NetworkServerProvider networkServerProvider = endpoint.getConnectionProviderInterface("remote",
+                NetworkServerProvider.class);
+        final SecurityDomain.Builder domainBuilder = SecurityDomain.builder();
+        final SimpleMapBackedSecurityRealm mainRealm = new SimpleMapBackedSecurityRealm();
+        domainBuilder.addRealm("mainRealm", mainRealm).build();
+        domainBuilder.setDefaultRealmName("mainRealm");
+        domainBuilder.setPermissionMapper((permissionMappable, roles) -> PermissionVerifier.ALL);
+        final PasswordFactory passwordFactory = PasswordFactory.getInstance("clear");
+        mainRealm.setPasswordMap("bob", passwordFactory.generatePassword(new ClearPasswordSpec("pass".toCharArray())));
+        final SaslServerFactory saslServerFactory = providers == null ? new ServiceLoaderSaslServerFactory(
+                HeartbeatTestCase.class.getClassLoader()) : new SecurityProviderSaslServerFactory(providers);
+        final SaslAuthenticationFactory.Builder builder = SaslAuthenticationFactory.builder();
+        builder.setSecurityDomain(domainBuilder.build());
+        builder.setFactory(saslServerFactory);
+        final MechanismConfiguration mechanismConfiguration = MechanismConfiguration.builder()
+                .addMechanismRealm(MechanismRealmConfiguration.builder().setRealmName("mainRealm").build())
+                .build();
+        builder.setMechanismConfigurationSelector(mechanismInformation -> mechanismName
+                .equals(mechanismInformation.getMechanismName()) ? mechanismConfiguration : null);
+        final SaslAuthenticationFactory saslAuthenticationFactory = builder.build();
+        test.streamServer = networkServerProvider.createServer(new InetSocketAddress("localhost", 30123),
+                serverOptions, saslAuthenticationFactory, SSLContext.getDefault());
+
+        final FutureResult<Channel> passer = new FutureResult<Channel>();
+        test.serviceRegistration = endpoint.registerService("org.jboss.test", new OpenListener() {
+            public void channelOpened(final Channel channel) {
+                passer.setResult(channel);
+            }
+
+            public void registrationTerminated() {
+            }
+        }, OptionMap.EMPTY);
+        AuthenticationConfiguration configuration = AuthenticationConfiguration.empty().useName("bob").usePassword("pass")
+                .setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism(mechanismName))
+                .useMechanismProperties(mechanismProperties);
+        if (providers != null) {
+            configuration = configuration.useProviders(providers);
+        }
+        IoFuture<Connection> futureConnection = AuthenticationContext.empty()
+                .with(MatchRule.ALL, configuration)
+                .run(new PrivilegedAction<IoFuture<Connection>>() {
+                    public IoFuture<Connection> run() {
+                        try {
+                            return endpoint.connect(new URI("remote://localhost:30123"), clientOptions);
+                        } catch (URISyntaxException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+        test.connection = futureConnection.get();
+        test.clientChannel = test.connection.openChannel("org.jboss.test", OptionMap.EMPTY).get();
+        test.serverChannel = passer.getIoFuture().get();
+        assertNotNull(test.serverChannel);
+        return test;
+    }
+
+    private final class TestConnection {
+        Endpoint endpoint;
+        Closeable streamServer;
+        Registration serviceRegistration;
+        Connection connection;
+        Channel clientChannel;
+        Channel serverChannel;
+
+        void close() throws IOException, InterruptedException {
+            afterTest(clientChannel, serverChannel, connection, serviceRegistration);
+            destroy(endpoint, streamServer);
+        }
+    }
 }
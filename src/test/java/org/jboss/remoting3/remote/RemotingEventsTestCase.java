@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+/**
+ * Tests for the flight recorder events of the remote protocol.
+ */
+public final class RemotingEventsTestCase {
+
+    private static final String[] EVENT_NAMES = {
+        "org.jboss.remoting.FrameSent",
+        "org.jboss.remoting.FrameReceived",
+        "org.jboss.remoting.WindowStall",
+        "org.jboss.remoting.ChannelOpened",
+        "org.jboss.remoting.ChannelClosed",
+        "org.jboss.remoting.HandshakePhase",
+        "org.jboss.remoting.HeartbeatRoundTrip",
+        "org.jboss.remoting.SaslWrap",
+    };
+
+    @Test
+    public void testEventsRecorded() throws Exception {
+        assumeTrue(Boolean.parseBoolean(System.getProperty("jboss.remoting.jfr", "true")));
+        // the event types must be registered wherever the API is present
+        assertTrue(RemotingEvents.ENABLED);
+        final Path file = Files.createTempFile("remoting-events", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                for (String name : EVENT_NAMES) {
+                    recording.enable(name).withThreshold(Duration.ZERO);
+                }
+                recording.start();
+                final ByteBuffer frame = ByteBuffer.allocate(9);
+                frame.put(Protocol.MESSAGE_DATA).putInt(0x80000005).putInt(0).flip();
+                RemotingEvents.frameSent(frame);
+                RemotingEvents.frameReceived(frame);
+                RemotingEvents.endWindowStall(RemotingEvents.beginWindowStall(), 5, 7, 0, 100);
+                RemotingEvents.channelOpened(5, "org.jboss.test");
+                RemotingEvents.channelClosed(5, "org.jboss.test");
+                RemotingEvents.endHandshakePhase(RemotingEvents.beginHandshakePhase(true, "Authentication"));
+                RemotingEvents.heartbeatRoundTrip(3000, 2000, 1000);
+                RemotingEvents.endSaslWrap(RemotingEvents.beginSaslWrap(), true, 42);
+                recording.stop();
+                recording.dump(file);
+            }
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            final Map<String, RecordedEvent> byName = new HashMap<>();
+            for (RecordedEvent event : events) {
+                byName.put(event.getEventType().getName(), event);
+            }
+            for (String name : EVENT_NAMES) {
+                assertTrue(name, byName.containsKey(name));
+            }
+            final RecordedEvent frameSent = byName.get("org.jboss.remoting.FrameSent");
+            assertEquals(Protocol.MESSAGE_DATA & 0xff, frameSent.getInt("protocolId"));
+            assertEquals(0x80000005, frameSent.getInt("channelId"));
+            assertEquals(9, frameSent.getInt("size"));
+            final RecordedEvent channelOpened = byName.get("org.jboss.remoting.ChannelOpened");
+            assertEquals(5, channelOpened.getInt("channelId"));
+            assertEquals("org.jboss.test", channelOpened.getString("serviceType"));
+            final RecordedEvent windowStall = byName.get("org.jboss.remoting.WindowStall");
+            assertEquals(7, windowStall.getInt("messageId"));
+            assertEquals(100, windowStall.getInt("size"));
+            assertEquals(1000L, byName.get("org.jboss.remoting.HeartbeatRoundTrip").getLong("variance"));
+            assertTrue(byName.get("org.jboss.remoting.HandshakePhase").getBoolean("server"));
+            assertEquals(42, byName.get("org.jboss.remoting.SaslWrap").getInt("size"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testDisabledByProperty() throws Exception {
+        final String old = System.setProperty("jboss.remoting.jfr", "false");
+        try {
+            final IsolatingClassLoader loader = new IsolatingClassLoader();
+            final Class<?> eventsClass = Class.forName(RemotingEvents.class.getName(), true, loader);
+            final Field enabled = eventsClass.getDeclaredField("ENABLED");
+            enabled.setAccessible(true);
+            assertFalse(enabled.getBoolean(null));
+            final Method channelOpened = eventsClass.getDeclaredMethod("channelOpened", int.class, String.class);
+            channelOpened.setAccessible(true);
+            channelOpened.invoke(null, Integer.valueOf(1), "org.jboss.test");
+            final Method frameSent = eventsClass.getDeclaredMethod("frameSent", ByteBuffer.class);
+            frameSent.setAccessible(true);
+            frameSent.invoke(null, ByteBuffer.wrap(new byte[] { Protocol.CONNECTION_ALIVE }));
+            final Method beginWindowStall = eventsClass.getDeclaredMethod("beginWindowStall");
+            beginWindowStall.setAccessible(true);
+            assertNull(beginWindowStall.invoke(null));
+            assertFalse(loader.loaded.contains(JfrEvents.class.getName()));
+        } finally {
+            if (old == null) {
+                System.clearProperty("jboss.remoting.jfr");
+            } else {
+                System.setProperty("jboss.remoting.jfr", old);
+            }
+        }
+    }
+
+    /**
+     * Defines its own copy of the classes of this package, so that their static initialization runs again.
+     */
+    static final class IsolatingClassLoader extends ClassLoader {
+        private static final String PREFIX = RemotingEvents.class.getName().substring(0, RemotingEvents.class.getName().lastIndexOf('.') + 1);
+
+        final Set<String> loaded = ConcurrentHashMap.newKeySet();
+
+        IsolatingClassLoader() {
+            super(RemotingEventsTestCase.class.getClassLoader());
+        }
+
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (! name.startsWith(PREFIX)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    final byte[] bytes;
+                    try (InputStream is = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        if (is == null) {
+                            throw new ClassNotFoundException(name);
+                        }
+                        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+                        final byte[] buf = new byte[4096];
+                        int res;
+                        while ((res = is.read(buf)) != -1) {
+                            os.write(buf, 0, res);
+                        }
+                        bytes = os.toByteArray();
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                    c = defineClass(name, bytes, 0, bytes.length);
+                    loaded.add(name);
+                }
+                if (resolve) {
+                    resolveClass(c);
+                }
+                return c;
+            }
+        }
+    }
+}
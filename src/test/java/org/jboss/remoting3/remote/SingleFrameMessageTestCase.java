@@ -0,0 +1,297 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.remote;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.security.PrivilegedAction;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.net.ssl.SSLContext;
+import javax.security.sasl.SaslServerFactory;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.OpenListener;
+import org.jboss.remoting3.Registration;
+import org.jboss.remoting3.spi.NetworkServerProvider;
+import org.jboss.remoting3.test.Utils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.WildFlyElytronProvider;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.wildfly.security.auth.client.AuthenticationContext;
+import org.wildfly.security.auth.client.MatchRule;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.server.MechanismConfiguration;
+import org.wildfly.security.auth.server.SaslAuthenticationFactory;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.password.PasswordFactory;
+import org.wildfly.security.password.spec.ClearPasswordSpec;
+import org.wildfly.security.permission.PermissionVerifier;
+import org.wildfly.security.sasl.SaslMechanismSelector;
+import org.wildfly.security.sasl.util.SaslMechanismInformation;
+import org.wildfly.security.sasl.util.ServiceLoaderSaslServerFactory;
+import org.xnio.FutureResult;
+import org.xnio.IoFuture;
+import org.xnio.IoUtils;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+
+/**
+ * Tests delivery of messages which arrive complete in a single frame, against peers with and without the message
+ * close protocol.
+ */
+public class SingleFrameMessageTestCase {
+
+    private static final int COUNT = 20;
+
+    private static String providerName;
+    private static Endpoint endpoint;
+    private static Closeable streamServer;
+
+    private Registration serviceRegistration;
+    private Connection connection;
+    private RemoteConnectionChannel clientChannel;
+    private RemoteConnectionChannel serverChannel;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        final WildFlyElytronProvider provider = new WildFlyElytronProvider();
+        Security.addProvider(provider);
+        providerName = provider.getName();
+        endpoint = Endpoint.builder().setEndpointName("test").build();
+        NetworkServerProvider networkServerProvider = endpoint.getConnectionProviderInterface("remote", NetworkServerProvider.class);
+        final SecurityDomain.Builder domainBuilder = SecurityDomain.builder();
+        final SimpleMapBackedSecurityRealm mainRealm = new SimpleMapBackedSecurityRealm();
+        domainBuilder.addRealm("mainRealm", mainRealm).build();
+        domainBuilder.setDefaultRealmName("mainRealm");
+        domainBuilder.setPermissionMapper((permissionMappable, roles) -> PermissionVerifier.ALL);
+        final PasswordFactory passwordFactory = PasswordFactory.getInstance("clear");
+        mainRealm.setPasswordMap("bob", passwordFactory.generatePassword(new ClearPasswordSpec("pass".toCharArray())));
+        final SaslServerFactory saslServerFactory = new ServiceLoaderSaslServerFactory(SingleFrameMessageTestCase.class.getClassLoader());
+        final SaslAuthenticationFactory.Builder builder = SaslAuthenticationFactory.builder();
+        builder.setSecurityDomain(domainBuilder.build());
+        builder.setFactory(saslServerFactory);
+        builder.setMechanismConfigurationSelector(mechanismInformation -> SaslMechanismInformation.Names.SCRAM_SHA_256.equals(mechanismInformation.getMechanismName()) ? MechanismConfiguration.EMPTY : null);
+        final SaslAuthenticationFactory saslAuthenticationFactory = builder.build();
+        streamServer = networkServerProvider.createServer(new InetSocketAddress("localhost", 30124), OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE), saslAuthenticationFactory, SSLContext.getDefault());
+    }
+
+    @AfterClass
+    public static void destroy() {
+        IoUtils.safeClose(streamServer);
+        IoUtils.safeClose(endpoint);
+        Security.removeProvider(providerName);
+    }
+
+    @Before
+    public void openChannel() throws Exception {
+        final FutureResult<Channel> passer = new FutureResult<Channel>();
+        serviceRegistration = endpoint.registerService("org.jboss.test", new OpenListener() {
+            public void channelOpened(final Channel channel) {
+                passer.setResult(channel);
+            }
+
+            public void registrationTerminated() {
+            }
+        }, OptionMap.EMPTY);
+        IoFuture<Connection> futureConnection = AuthenticationContext.empty().with(MatchRule.ALL, AuthenticationConfiguration.empty().useName("bob").usePassword("pass").setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism("SCRAM-SHA-256"))).run(new PrivilegedAction<IoFuture<Connection>>() {
+            public IoFuture<Connection> run() {
+                try {
+                    return endpoint.connect(new URI("remote://localhost:30124"), OptionMap.EMPTY);
+                } catch (URISyntaxException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        connection = futureConnection.get();
+        clientChannel = (RemoteConnectionChannel) connection.openChannel("org.jboss.test", OptionMap.EMPTY).get();
+        serverChannel = (RemoteConnectionChannel) passer.getIoFuture().get();
+        assertNotNull(serverChannel);
+    }
+
+    @After
+    public void closeChannel() {
+        IoUtils.safeClose(clientChannel);
+        IoUtils.safeClose(serverChannel);
+        IoUtils.safeClose(connection);
+        serviceRegistration.close();
+    }
+
+    @Test
+    public void testQueuedDelivery() throws Exception {
+        assertTrue(clientChannel.getConnectionHandler().isMessageClose());
+        assertTrue(serverChannel.getConnectionHandler().isMessageClose());
+        checkQueuedDelivery();
+    }
+
+    @Test
+    public void testQueuedDeliveryLegacyPeer() throws Exception {
+        makeLegacy();
+        checkQueuedDelivery();
+    }
+
+    @Test
+    public void testCloseWithUnreadMessages() throws Exception {
+        checkCloseWithUnreadMessages();
+    }
+
+    @Test
+    public void testCloseWithUnreadMessagesLegacyPeer() throws Exception {
+        makeLegacy();
+        checkCloseWithUnreadMessages();
+    }
+
+    private void checkQueuedDelivery() throws Exception {
+        sendMessages();
+        // nobody is receiving yet, so the messages wait in the queue, each as a single frame
+        final List<PendingInboundMessage> pending = awaitPending(COUNT);
+        for (PendingInboundMessage message : pending) {
+            assertTrue(message instanceof SingleFrameInboundMessage);
+        }
+        final BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+        for (int i = 0; i < COUNT; i ++) {
+            serverChannel.receiveMessage(new Channel.Receiver() {
+                public void handleError(final Channel channel, final IOException error) {
+                }
+
+                public void handleEnd(final Channel channel) {
+                }
+
+                public void handleMessage(final Channel channel, final MessageInputStream message) {
+                    try {
+                        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+                        int b;
+                        while ((b = message.read()) != -1) {
+                            os.write(b);
+                        }
+                        received.add(os.toByteArray());
+                    } catch (IOException e) {
+                        received.add(new byte[0]);
+                    } finally {
+                        IoUtils.safeClose(message);
+                    }
+                }
+            });
+            final byte[] bytes = received.poll(10, TimeUnit.SECONDS);
+            assertNotNull(bytes);
+            // delivered in arrival order
+            assertArrayEquals(body(i), bytes);
+        }
+        assertEquals(0, pendingMessages().size());
+        // the sender's message IDs are released, whether by the peer's close or straight away
+        awaitTrue(() -> outboundIds(clientChannel).isEmpty());
+    }
+
+    private void checkCloseWithUnreadMessages() throws Exception {
+        sendMessages();
+        final List<PendingInboundMessage> pending = awaitPending(COUNT);
+        serverChannel.close();
+        // the queued messages were terminated, which releases their frames
+        for (PendingInboundMessage message : pending) {
+            final SingleFrameInboundMessage singleFrame = (SingleFrameInboundMessage) message;
+            assertEquals(0, singleFrame.available());
+            assertEquals(-1, singleFrame.read());
+        }
+        assertEquals(0, pendingMessages().size());
+        // and the sender's message IDs are not leaked
+        awaitTrue(() -> outboundIds(clientChannel).isEmpty());
+    }
+
+    private void makeLegacy() throws Exception {
+        // what a peer without the message close capability negotiates
+        for (RemoteConnectionChannel channel : new RemoteConnectionChannel[] { clientChannel, serverChannel }) {
+            final RemoteConnectionHandler handler = channel.getConnectionHandler();
+            final int behavior = ((Integer) Utils.getInstanceValue(handler, "behavior")).intValue();
+            Utils.setInstanceValue(handler, "behavior", Integer.valueOf(behavior & ~Protocol.BH_MESSAGE_CLOSE | Protocol.BH_FAULTY_MSG_SIZE));
+            assertFalse(handler.isMessageClose());
+        }
+    }
+
+    private void sendMessages() throws IOException {
+        for (int i = 0; i < COUNT; i ++) {
+            clientChannel.writeMessage(ByteBuffer.wrap(body(i)));
+        }
+    }
+
+    private List<PendingInboundMessage> awaitPending(final int count) throws Exception {
+        awaitTrue(() -> pendingMessages().size() == count);
+        return pendingMessages();
+    }
+
+    private List<PendingInboundMessage> pendingMessages() {
+        synchronized (serverChannel.getRemoteConnection().getLock()) {
+            try {
+                @SuppressWarnings("unchecked")
+                final Collection<PendingInboundMessage> queue = (Collection<PendingInboundMessage>) Utils.getInstanceValue(serverChannel, "inboundMessageQueue");
+                return new ArrayList<>(queue);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Collection<?> outboundIds(final RemoteConnectionChannel channel) {
+        try {
+            return (Collection<?>) Utils.getInstanceValue(channel, "outboundMessages");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitTrue(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (! condition.getAsBoolean()) {
+            assertTrue("Timed out", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static byte[] body(final int i) {
+        final byte[] bytes = new byte[10 + i * 13];
+        for (int j = 0; j < bytes.length; j ++) {
+            bytes[j] = (byte) (i ^ j);
+        }
+        return bytes;
+    }
+}
@@ -19,15 +19,21 @@
 package org.jboss.remoting3.test;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.security.Security;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -648,4 +654,78 @@ public abstract class ChannelTestBase {
         closedLatch.await();
         System.out.println("Closed");
     }
+
+    @Test
+    public void testGatherWriteSingleFrame() throws IOException, InterruptedException {
+        // small enough for the whole message to go out in one frame
+        checkGatherWrite(200, 50);
+    }
+
+    @Test
+    public void testGatherWriteMultiFrame() throws IOException, InterruptedException {
+        // too large for one frame, so the message is streamed
+        checkGatherWrite(TEST_FILE_LENGTH * 4, 3);
+    }
+
+    private void checkGatherWrite(final int payloadSize, final int count) throws IOException, InterruptedException {
+        final List<byte[]> received = Collections.synchronizedList(new ArrayList<byte[]>());
+        final AtomicReference<IOException> exRef = new AtomicReference<IOException>();
+        final CountDownLatch latch = new CountDownLatch(count);
+        recvChannel.receiveMessage(new Channel.Receiver() {
+            public void handleError(final Channel channel, final IOException error) {
+                exRef.set(error);
+                while (latch.getCount() > 0) latch.countDown();
+            }
+
+            public void handleEnd(final Channel channel) {
+                while (latch.getCount() > 0) latch.countDown();
+            }
+
+            public void handleMessage(final Channel channel, final MessageInputStream message) {
+                new Thread(() -> {
+                    try {
+                        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+                        final byte[] buf = new byte[1024];
+                        int r;
+                        while ((r = message.read(buf)) != -1) {
+                            os.write(buf, 0, r);
+                        }
+                        message.close();
+                        received.add(os.toByteArray());
+                    } catch (IOException e) {
+                        exRef.set(e);
+                    } finally {
+                        IoUtils.safeClose(message);
+                        latch.countDown();
+                    }
+                }).start();
+                channel.receiveMessage(this);
+            }
+        });
+        final byte[][] expected = new byte[count][];
+        for (int i = 0; i < count; i ++) {
+            final ByteBuffer header = ByteBuffer.allocate(5);
+            header.put((byte) i).putInt(payloadSize).flip();
+            final ByteBuffer payload = ByteBuffer.allocateDirect(payloadSize);
+            for (int j = 0; j < payloadSize; j ++) {
+                payload.put((byte) (i + j));
+            }
+            payload.flip();
+            expected[i] = new byte[5 + payloadSize];
+            header.duplicate().get(expected[i], 0, 5);
+            payload.duplicate().get(expected[i], 5, payloadSize);
+            sendChannel.writeMessage(header, payload);
+            assertFalse(header.hasRemaining());
+            assertFalse(payload.hasRemaining());
+        }
+        latch.await();
+        IOException exception = exRef.get();
+        if (exception != null) {
+            throw exception;
+        }
+        assertEquals(count, received.size());
+        for (byte[] bytes : received) {
+            assertArrayEquals(expected[bytes[0]], bytes);
+        }
+    }
 }
@@ -18,15 +18,20 @@
 
 package org.jboss.remoting3.test;
 
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.logging.Logger;
 import org.jboss.remoting3.CloseHandler;
@@ -89,4 +94,49 @@ public final class CloseableTestCase {
             executorService.shutdownNow();
         }
     }
+
+    @Test
+    public void testConcurrentAddCloseHandler() throws Throwable {
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        try {
+            final Field closeHandlersField = AbstractHandleableCloseable.class.getDeclaredField("closeHandlers");
+            closeHandlersField.setAccessible(true);
+            for (int i = 0; i < 500; i ++) {
+                final AbstractHandleableCloseable<?> closeable = new AbstractHandleableCloseable(executorService) {
+                    // empty
+                };
+                final int threads = 4;
+                final int handlersPerThread = 50;
+                final AtomicInteger[] counts = new AtomicInteger[threads * handlersPerThread];
+                for (int j = 0; j < counts.length; j ++) {
+                    counts[j] = new AtomicInteger();
+                }
+                final CountDownLatch start = new CountDownLatch(1);
+                final Future<?>[] adders = new Future<?>[threads];
+                for (int t = 0; t < threads; t ++) {
+                    final int base = t * handlersPerThread;
+                    adders[t] = executorService.submit(() -> {
+                        start.await();
+                        for (int j = 0; j < handlersPerThread; j ++) {
+                            final AtomicInteger count = counts[base + j];
+                            closeable.addCloseHandler((x, exception) -> count.incrementAndGet());
+                        }
+                        return null;
+                    });
+                }
+                start.countDown();
+                closeable.close();
+                for (Future<?> adder : adders) {
+                    adder.get(10L, TimeUnit.SECONDS);
+                }
+                // every handler runs exactly once, whether it was registered before, during or after the close
+                for (AtomicInteger count : counts) {
+                    assertEquals(1, count.get());
+                }
+                assertNull("Close handler map left behind after close", closeHandlersField.get(closeable));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
 }
@@ -18,8 +18,12 @@
 
 package org.jboss.remoting3.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.xnio.IoUtils.safeClose;
 
@@ -28,18 +32,24 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.security.PrivilegedAction;
 import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 import javax.security.sasl.SaslServerFactory;
 
 import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.ChannelBusyException;
 import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.ConnectionPeerIdentity;
 import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.MessageOutputStream;
 import org.jboss.remoting3.OpenListener;
 import org.jboss.remoting3.Registration;
+import org.jboss.remoting3.RemotingOptions;
 import org.jboss.remoting3.spi.NetworkServerProvider;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -158,4 +168,68 @@ public final class RemoteChannelTest extends ChannelTestBase {
         }
         fail("Expected an IOException with 'refused' in the string");
     }
+
+    @Test
+    public void testGatherWriteOverrun() throws Exception {
+        final Channel limited = connection.openChannel("org.jboss.test", OptionMap.create(RemotingOptions.MAX_OUTBOUND_MESSAGE_SIZE, Long.valueOf(100L))).get();
+        try {
+            assertEquals(Long.valueOf(100L), limited.getOption(RemotingOptions.MAX_OUTBOUND_MESSAGE_SIZE));
+            final int maxMessages = limited.getOption(RemotingOptions.MAX_OUTBOUND_MESSAGES).intValue();
+            // more failures than there are message slots, so a slot leaked by a failed message would show up as busy
+            for (int i = 0; i <= maxMessages; i ++) {
+                try {
+                    limited.writeMessage(ByteBuffer.allocate(60), ByteBuffer.allocate(41));
+                    fail("Expected overrun");
+                } catch (IOException expected) {
+                    assertFalse(expected instanceof ChannelBusyException);
+                }
+            }
+            limited.writeMessage(ByteBuffer.allocate(60), ByteBuffer.allocate(40));
+        } finally {
+            safeClose(limited);
+        }
+    }
+
+    @Test
+    public void testWhenWritable() throws Exception {
+        final Channel limited = connection.openChannel("org.jboss.test", OptionMap.create(RemotingOptions.MAX_OUTBOUND_MESSAGES, Integer.valueOf(1))).get();
+        try {
+            assertEquals(Integer.valueOf(1), limited.getOption(RemotingOptions.MAX_OUTBOUND_MESSAGES));
+            final MessageOutputStream first = limited.writeMessage();
+            final CountDownLatch writable = new CountDownLatch(1);
+            limited.whenWritable(writable::countDown);
+            // the only message slot is taken, so the task must wait for it
+            assertFalse(writable.await(200L, TimeUnit.MILLISECONDS));
+            try {
+                limited.writeMessage();
+                fail("Expected ChannelBusyException");
+            } catch (ChannelBusyException expected) {
+            }
+            first.close();
+            assertTrue(writable.await(10L, TimeUnit.SECONDS));
+            limited.writeMessage().close();
+            final CountDownLatch immediate = new CountDownLatch(1);
+            limited.whenWritable(immediate::countDown);
+            assertTrue(immediate.await(10L, TimeUnit.SECONDS));
+        } finally {
+            safeClose(limited);
+        }
+    }
+
+    @Test
+    public void testConnectedIdentityReused() throws Exception {
+        final AuthenticationContext context = AuthenticationContext.empty().with(MatchRule.ALL, AuthenticationConfiguration.empty().useName("bob").usePassword("pass").setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism("SCRAM-SHA-256")));
+        final URI uri = new URI("remote://localhost:30123");
+        final ConnectionPeerIdentity identity = endpoint.getConnectedIdentity(uri, "test", "test", context).get();
+        try {
+            // once the connection is established, every lookup returns the same finished future
+            final IoFuture<ConnectionPeerIdentity> established = endpoint.getConnectedIdentity(uri, "test", "test", context);
+            assertEquals(IoFuture.Status.DONE, established.getStatus());
+            assertSame(identity, established.get());
+            assertSame(established, endpoint.getConnectedIdentity(uri, "test", "test", context));
+            assertSame(established, endpoint.getConnectedIdentityIfExists(uri, "test", "test", context));
+        } finally {
+            safeClose(identity.getConnection());
+        }
+    }
 }
@@ -0,0 +1,208 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jboss.remoting3.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.xnio.IoUtils.safeClose;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.Connection;
+import org.jboss.remoting3.Endpoint;
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+import org.jboss.remoting3.OpenListener;
+import org.jboss.remoting3.Registration;
+import org.jboss.remoting3.TransportMetrics;
+import org.jboss.remoting3.spi.NetworkServerProvider;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.WildFlyElytronProvider;
+import org.wildfly.security.auth.client.AuthenticationConfiguration;
+import org.wildfly.security.auth.client.AuthenticationContext;
+import org.wildfly.security.auth.client.MatchRule;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.server.MechanismConfiguration;
+import org.wildfly.security.auth.server.SaslAuthenticationFactory;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.password.PasswordFactory;
+import org.wildfly.security.password.spec.ClearPasswordSpec;
+import org.wildfly.security.permission.PermissionVerifier;
+import org.wildfly.security.sasl.SaslMechanismSelector;
+import org.wildfly.security.sasl.util.SaslMechanismInformation;
+import org.wildfly.security.sasl.util.ServiceLoaderSaslServerFactory;
+import org.xnio.FutureResult;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+
+/**
+ * Tests the per-channel and per-service traffic metrics.
+ */
+public class TransportMetricsTestCase {
+
+    private static final String SERVICE_NAME = "org.jboss.test.metrics";
+    private static final int MESSAGE_COUNT = 50;
+    private static final byte[] PAYLOAD = "hello".getBytes(StandardCharsets.UTF_8);
+
+    private static Endpoint serverEndpoint;
+    private static Endpoint clientEndpoint;
+    private static Closeable streamServer;
+    private static String providerName;
+
+    private Registration serviceRegistration;
+    private Connection connection;
+    private Channel clientChannel;
+    private Channel serverChannel;
+
+    @BeforeClass
+    public static void create() throws Exception {
+        final WildFlyElytronProvider provider = new WildFlyElytronProvider();
+        Security.addProvider(provider);
+        providerName = provider.getName();
+        serverEndpoint = Endpoint.builder().setEndpointName("server").build();
+        clientEndpoint = Endpoint.builder().setEndpointName("client").build();
+        final NetworkServerProvider networkServerProvider = serverEndpoint.getConnectionProviderInterface("remote", NetworkServerProvider.class);
+        final SecurityDomain.Builder domainBuilder = SecurityDomain.builder();
+        final SimpleMapBackedSecurityRealm mainRealm = new SimpleMapBackedSecurityRealm();
+        domainBuilder.addRealm("mainRealm", mainRealm).build();
+        domainBuilder.setDefaultRealmName("mainRealm");
+        domainBuilder.setPermissionMapper((permissionMappable, roles) -> PermissionVerifier.ALL);
+        final PasswordFactory passwordFactory = PasswordFactory.getInstance("clear");
+        mainRealm.setPasswordMap("bob", passwordFactory.generatePassword(new ClearPasswordSpec("pass".toCharArray())));
+        final SaslAuthenticationFactory.Builder builder = SaslAuthenticationFactory.builder();
+        builder.setSecurityDomain(domainBuilder.build());
+        builder.setFactory(new ServiceLoaderSaslServerFactory(TransportMetricsTestCase.class.getClassLoader()));
+        builder.setMechanismConfigurationSelector(mechanismInformation -> SaslMechanismInformation.Names.SCRAM_SHA_256.equals(mechanismInformation.getMechanismName()) ? MechanismConfiguration.EMPTY : null);
+        streamServer = networkServerProvider.createServer(new InetSocketAddress("localhost", 30123), OptionMap.create(Options.SSL_ENABLED, Boolean.FALSE), builder.build(), SSLContext.getDefault());
+    }
+
+    @AfterClass
+    public static void destroy() {
+        safeClose(streamServer);
+        safeClose(clientEndpoint);
+        safeClose(serverEndpoint);
+        Security.removeProvider(providerName);
+    }
+
+    @Before
+    public void beforeTest() throws Exception {
+        final FutureResult<Channel> passer = new FutureResult<Channel>();
+        serviceRegistration = serverEndpoint.registerService(SERVICE_NAME, new OpenListener() {
+            public void channelOpened(final Channel channel) {
+                passer.setResult(channel);
+            }
+
+            public void registrationTerminated() {
+            }
+        }, OptionMap.EMPTY);
+        connection = AuthenticationContext.empty().with(MatchRule.ALL, AuthenticationConfiguration.empty().useName("bob").usePassword("pass").setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism("SCRAM-SHA-256")))
+            .runExceptionAction(() -> clientEndpoint.connect(new URI("remote://localhost:30123"), OptionMap.EMPTY).get());
+        clientChannel = connection.openChannel(SERVICE_NAME, OptionMap.EMPTY).get();
+        serverChannel = passer.getIoFuture().get();
+        assertNotNull(serverChannel);
+    }
+
+    @After
+    public void afterTest() {
+        safeClose(serverChannel);
+        safeClose(clientChannel);
+        safeClose(connection);
+        safeClose(serviceRegistration);
+    }
+
+    @Test
+    public void testChannelAndServiceMetrics() throws Exception {
+        final CountDownLatch received = new CountDownLatch(MESSAGE_COUNT);
+        serverChannel.receiveMessage(new Channel.Receiver() {
+            public void handleError(final Channel channel, final IOException error) {
+            }
+
+            public void handleEnd(final Channel channel) {
+            }
+
+            public void handleMessage(final Channel channel, final MessageInputStream message) {
+                channel.receiveMessage(this);
+                try {
+                    while (message.read() != -1);
+                } catch (IOException ignored) {
+                } finally {
+                    safeClose(message);
+                }
+                received.countDown();
+            }
+        });
+        for (int i = 0; i < MESSAGE_COUNT; i ++) {
+            try (MessageOutputStream out = clientChannel.writeMessage()) {
+                out.write(PAYLOAD);
+            }
+        }
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+
+        final TransportMetrics clientMetrics = clientChannel.getMetrics();
+        assertNotNull(clientMetrics);
+        assertEquals(MESSAGE_COUNT, clientMetrics.getMessagesOpened());
+        assertEquals(MESSAGE_COUNT, clientMetrics.getMessagesClosed());
+        assertEquals(0, clientMetrics.getChannelBusyCount());
+        assertTrue(clientMetrics.getBytesOut() >= MESSAGE_COUNT * PAYLOAD.length);
+
+        final TransportMetrics serverMetrics = serverChannel.getMetrics();
+        assertNotNull(serverMetrics);
+        assertTrue(serverMetrics.getFramesIn() >= MESSAGE_COUNT);
+        assertTrue(serverMetrics.getBytesIn() >= MESSAGE_COUNT * PAYLOAD.length);
+
+        final TransportMetrics serviceMetrics = serverEndpoint.getServiceMetrics().get(SERVICE_NAME);
+        assertNotNull(serviceMetrics);
+        assertSame(serviceMetrics, serverEndpoint.getServiceMetrics().get(SERVICE_NAME));
+        assertEquals(serverMetrics.getFramesIn(), serviceMetrics.getFramesIn());
+        assertEquals(serverMetrics.getBytesIn(), serviceMetrics.getBytesIn());
+    }
+
+    @Test
+    public void testOutboundServiceNotCounted() throws Exception {
+        try (MessageOutputStream out = clientChannel.writeMessage()) {
+            out.write(PAYLOAD);
+        }
+        assertFalse(clientEndpoint.getServiceMetrics().containsKey(SERVICE_NAME));
+    }
+
+    @Test
+    public void testServiceMetricsRemovedWithRegistration() throws Exception {
+        assertTrue(serverEndpoint.getServiceMetrics().containsKey(SERVICE_NAME));
+        serviceRegistration.close();
+        assertFalse(serverEndpoint.getServiceMetrics().containsKey(SERVICE_NAME));
+    }
+}
@@ -50,4 +50,12 @@ public final class Utils {
         return field.get(classInstance);
 
     }
+
+    public static void setInstanceValue(final Object classInstance, final String fieldName, final Object value) throws SecurityException,
+            NoSuchFieldException, IllegalArgumentException, IllegalAccessException {
+
+        final Field field = classInstance.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(classInstance, value);
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.ChannelClosedException;
+import org.jboss.remoting3.InvocationTimeoutException;
+import org.junit.Test;
+
+public class AsyncInvocationTestCase {
+
+    @Test
+    public void testResponse() throws Exception {
+        final AsyncInvocation invocation = new AsyncInvocation(1);
+        final TestStreams.Out request = new TestStreams.Out();
+        invocation.setRequest(request);
+        final TestStreams.In responseStream = new TestStreams.In(new byte[] { 42 });
+        invocation.handleResponse(7, responseStream);
+        assertTrue(invocation.getFuture().isDone());
+        try (AsyncInvocation.Response response = invocation.getFuture().get()) {
+            assertEquals(7, response.getParameter());
+            assertSame(responseStream, response.getInputStream());
+            assertEquals(42, response.getInputStream().read());
+        }
+        assertTrue(responseStream.closed);
+        assertFalse(request.cancelled);
+    }
+
+    @Test
+    public void testLateResponseIsClosed() throws Exception {
+        final AsyncInvocation invocation = new AsyncInvocation(1);
+        final TestStreams.Out request = new TestStreams.Out();
+        invocation.setRequest(request);
+        assertTrue(invocation.getFuture().cancel(false));
+        // cancelling the invocation cancels its request
+        assertTrue(request.cancelled);
+        final TestStreams.In late = new TestStreams.In();
+        invocation.handleResponse(0, late);
+        assertTrue(late.closed);
+        // a second response after the first one is closed too
+        final AsyncInvocation answered = new AsyncInvocation(2);
+        final TestStreams.In first = new TestStreams.In();
+        final TestStreams.In second = new TestStreams.In();
+        answered.handleResponse(0, first);
+        answered.handleResponse(0, second);
+        assertFalse(first.closed);
+        assertTrue(second.closed);
+        assertSame(first, answered.getFuture().get().getInputStream());
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "channel executor"));
+        try {
+            final TestChannel channel = new TestChannel();
+            final InvocationTracker tracker = new InvocationTracker(channel.channel, new MessageTracker(channel.channel, 1), i -> i, executor);
+            final AsyncInvocation invocation = tracker.addInvocation(AsyncInvocation::new);
+            final TestStreams.Out request = new TestStreams.Out();
+            invocation.setRequest(request);
+            // dependent actions run where the future was completed, which must be the channel executor; wait on the
+            // dependent rather than the future itself, since a thread waiting on the future may run its dependents
+            final CompletableFuture<Thread> completedOn = invocation.getFuture().handle((response, throwable) -> Thread.currentThread());
+            tracker.setDeadline(invocation, 50, TimeUnit.MILLISECONDS);
+            assertEquals("channel executor", completedOn.get(10, TimeUnit.SECONDS).getName());
+            try {
+                invocation.getFuture().get();
+                fail("Expected timeout");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof InvocationTimeoutException);
+            }
+            assertFalse(tracker.containsIndex(invocation.getIndex()));
+            // let the executor finish running the remaining dependents of the failure
+            executor.submit(() -> {}).get(10, TimeUnit.SECONDS);
+            // the request is cancelled on timeout, and a response arriving afterwards is discarded
+            assertTrue(request.cancelled);
+            final TestStreams.In late = new TestStreams.In();
+            invocation.handleResponse(0, late);
+            assertTrue(late.closed);
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testRequestAttachedAfterFailure() {
+        final AsyncInvocation invocation = new AsyncInvocation(1);
+        invocation.handleClosed();
+        final TestStreams.Out request = new TestStreams.Out();
+        invocation.setRequest(request);
+        assertTrue(request.cancelled);
+        try {
+            invocation.getFuture().join();
+            fail("Expected failure");
+        } catch (Exception e) {
+            assertTrue(e.getCause() instanceof ChannelClosedException);
+        }
+    }
+
+    @Test
+    public void testException() throws Exception {
+        final AsyncInvocation invocation = new AsyncInvocation(1);
+        final TestStreams.Out request = new TestStreams.Out();
+        invocation.setRequest(request);
+        final IOException failure = new IOException("Broken");
+        invocation.handleException(failure);
+        assertTrue(request.cancelled);
+        try {
+            invocation.getFuture().get();
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jboss.remoting3.ChannelClosedException;
+import org.jboss.remoting3.InvocationTimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InvocationTrackerTestCase {
+
+    private ExecutorService executor;
+    private TestChannel channel;
+    private InvocationTracker tracker;
+
+    @Before
+    public void createTracker() {
+        executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "tracker test executor"));
+        channel = new TestChannel();
+        tracker = new InvocationTracker(channel.channel, new MessageTracker(channel.channel, 16), i -> i & 0xffff, executor);
+    }
+
+    @After
+    public void destroyExecutor() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testDeadlineExpiry() throws Exception {
+        final AtomicReference<Thread> failedOn = new AtomicReference<>();
+        final CountDownLatch failed = new CountDownLatch(1);
+        final AsyncInvocation invocation = tracker.addInvocation(index -> new AsyncInvocation(index) {
+            public void handleException(final IOException exception) {
+                failedOn.set(Thread.currentThread());
+                failed.countDown();
+                super.handleException(exception);
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        assertTrue(tracker.containsIndex(invocation.getIndex()));
+        try {
+            invocation.getFuture().get(10, TimeUnit.SECONDS);
+            fail("Expected timeout");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvocationTimeoutException);
+        }
+        // the index is released, the timeout is counted, and the failure is delivered on the channel executor
+        assertFalse(tracker.containsIndex(invocation.getIndex()));
+        assertEquals(1L, tracker.getTimeoutCount());
+        assertEquals(0, tracker.getDeadlineCount());
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        assertEquals("tracker test executor", failedOn.get().getName());
+        // a response arriving afterwards does not match any invocation
+        assertFalse(tracker.signalResponse(invocation.getIndex(), 0, new TestStreams.In(), true));
+    }
+
+    @Test
+    public void testResponseClearsDeadline() throws Exception {
+        final AsyncInvocation[] invocations = new AsyncInvocation[100];
+        for (int i = 0; i < invocations.length; i ++) {
+            // give each a distinct deadline so that removals come from all over the heap
+            invocations[i] = tracker.addInvocation(AsyncInvocation::new, 60 + (i * 7919 % 100), TimeUnit.SECONDS);
+        }
+        assertEquals(invocations.length, tracker.getDeadlineCount());
+        for (int i = 0; i < invocations.length; i += 2) {
+            assertTrue(tracker.signalResponse(invocations[i].getIndex(), 0, new TestStreams.In(), true));
+            assertTrue(invocations[i].getFuture().isDone());
+        }
+        // completed invocations are dropped from the heap straight away rather than when they come due
+        assertEquals(invocations.length / 2, tracker.getDeadlineCount());
+        for (int i = 1; i < invocations.length; i += 2) {
+            tracker.remove(invocations[i]);
+        }
+        assertEquals(0, tracker.getDeadlineCount());
+        assertEquals(0L, tracker.getTimeoutCount());
+    }
+
+    @Test
+    public void testHeapOrder() throws Exception {
+        final AsyncInvocation late = tracker.addInvocation(AsyncInvocation::new, 1, TimeUnit.MINUTES);
+        final AsyncInvocation early = tracker.addInvocation(AsyncInvocation::new, 1, TimeUnit.MINUTES);
+        // moving a deadline earlier must reschedule the sweep
+        tracker.setDeadline(early, 50, TimeUnit.MILLISECONDS);
+        assertEquals(2, tracker.getDeadlineCount());
+        try {
+            early.getFuture().get(10, TimeUnit.SECONDS);
+            fail("Expected timeout");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InvocationTimeoutException);
+        }
+        assertFalse(late.getFuture().isDone());
+        assertTrue(tracker.containsIndex(late.getIndex()));
+        assertEquals(1, tracker.getDeadlineCount());
+        assertEquals(1L, tracker.getTimeoutCount());
+    }
+
+    @Test
+    public void testChannelClose() throws Exception {
+        final AsyncInvocation invocation = tracker.addInvocation(AsyncInvocation::new, 1, TimeUnit.MINUTES);
+        channel.close(null);
+        try {
+            invocation.getFuture().get(10, TimeUnit.SECONDS);
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ChannelClosedException);
+        }
+        assertFalse(tracker.containsIndex(invocation.getIndex()));
+        assertEquals(0, tracker.getDeadlineCount());
+        assertEquals(0L, tracker.getTimeoutCount());
+    }
+
+    @Test
+    public void testAllocateMessageCancelReleasesIndex() throws Exception {
+        final AsyncInvocation invocation = tracker.addInvocation(AsyncInvocation::new, 1, TimeUnit.MINUTES);
+        invocation.setRequest(tracker.allocateMessage(invocation));
+        assertTrue(invocation.getFuture().cancel(false));
+        assertFalse(tracker.containsIndex(invocation.getIndex()));
+        assertEquals(0, tracker.getDeadlineCount());
+        assertNotSame(invocation, tracker.addInvocation(AsyncInvocation::new));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.NotOpenException;
+import org.junit.Test;
+
+public class MessagePipelineTestCase {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 500;
+
+    @Test
+    public void testConcurrentRoundTrip() throws Exception {
+        final TestChannel channel = new TestChannel();
+        // full-width indexes, so that every header length is exercised
+        final InvocationTracker tracker = new InvocationTracker(channel.channel, new MessageTracker(channel.channel, 1), i -> i, Runnable::run);
+        final AsyncInvocation[] invocations = new AsyncInvocation[THREADS * PER_THREAD];
+        for (int i = 0; i < invocations.length; i ++) {
+            invocations[i] = tracker.addInvocation(AsyncInvocation::new);
+        }
+        final MessagePipeline pipeline = new MessagePipeline(channel.channel);
+        final List<Throwable> problems = new ArrayList<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t ++) {
+            final int first = t * PER_THREAD;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = first; i < first + PER_THREAD; i ++) {
+                        final byte[] body = body(i);
+                        pipeline.writeFrame(invocations[i].getIndex(), i & 0xff, body, 0, body.length);
+                    }
+                } catch (Throwable e) {
+                    synchronized (problems) {
+                        problems.add(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(problems.toString(), problems.isEmpty());
+        pipeline.close();
+        // every frame went into the one message, interleaved between the writers
+        assertEquals(1, channel.messages.size());
+        final TestStreams.Out out = channel.messages.get(0);
+        assertTrue(out.closed);
+        final TestStreams.In in = new TestStreams.In(out.toByteArray());
+        MessagePipeline.readFrames(in, MessagePipeline.responseHandler(tracker));
+        assertTrue(in.closed);
+        for (int i = 0; i < invocations.length; i ++) {
+            final AsyncInvocation.Response response = invocations[i].getFuture().get(10, TimeUnit.SECONDS);
+            assertEquals(i & 0xff, response.getParameter());
+            final byte[] expected = body(i);
+            final byte[] actual = new byte[expected.length];
+            StreamUtils.readFully(response.getInputStream(), actual);
+            assertArrayEquals(expected, actual);
+            assertEquals(-1, response.getInputStream().read());
+            response.close();
+            assertFalse(tracker.containsIndex(invocations[i].getIndex()));
+        }
+    }
+
+    @Test
+    public void testMaxFrameSize() throws Exception {
+        final TestChannel channel = new TestChannel();
+        final MessagePipeline pipeline = new MessagePipeline(channel.channel);
+        pipeline.writeFrame(1, 0, new byte[10], 0, 10);
+        pipeline.writeFrame(2, 0, new byte[11], 0, 11);
+        pipeline.writeFrame(3, 0, new byte[1], 0, 1);
+        pipeline.close();
+        final TestStreams.In in = new TestStreams.In(channel.messages.get(0).toByteArray());
+        final List<Integer> handled = new ArrayList<>();
+        try {
+            MessagePipeline.readFrames(in, 10, (index, parameter, inputStream) -> handled.add(Integer.valueOf(index)));
+            fail("Expected failure");
+        } catch (IOException e) {
+            // expected
+        }
+        // the oversized frame fails the message without being buffered, and nothing after it is delivered
+        assertEquals(1, handled.size());
+        assertEquals(1, handled.get(0).intValue());
+        assertTrue(in.closed);
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        final TestChannel channel = new TestChannel();
+        final MessagePipeline pipeline = new MessagePipeline(channel.channel);
+        final IOException failure = new IOException("Refused");
+        channel.writeFailure = failure;
+        try {
+            pipeline.writeFrame(1, 0, new byte[1], 0, 1);
+            fail("Expected failure");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+        // failing to open the message leaves the pipeline usable
+        channel.writeFailure = null;
+        pipeline.writeFrame(1, 0, new byte[1], 0, 1);
+        pipeline.close();
+        try {
+            pipeline.writeFrame(2, 0, new byte[1], 0, 1);
+            fail("Expected failure");
+        } catch (NotOpenException e) {
+            // expected
+        }
+    }
+
+    private static byte[] body(int i) {
+        // vary the size so that both short and multi-byte lengths appear
+        final StringBuilder b = new StringBuilder();
+        for (int j = 0; j < i % 200; j ++) {
+            b.append((char) ('a' + (i + j) % 26));
+        }
+        return b.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.remoting3.MessageOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MessageTrackerTestCase {
+
+    private ExecutorService executor;
+    private TestChannel channel;
+
+    @Before
+    public void createExecutor() {
+        executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "tracker test executor"));
+        channel = new TestChannel();
+    }
+
+    @After
+    public void destroyExecutor() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testFifoOrder() throws Exception {
+        final MessageTracker tracker = new MessageTracker(channel.channel, 1, executor);
+        final MessageOutputStream held = tracker.openMessage();
+        final List<Integer> order = new CopyOnWriteArrayList<>();
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i ++) {
+            final int id = i;
+            tracker.openMessageAsync().thenAccept(message -> {
+                order.add(Integer.valueOf(id));
+                threads.add(Thread.currentThread().getName());
+                done.countDown();
+                try {
+                    message.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        // a free permit must not be taken in front of the queue
+        assertNull(tracker.openMessage(0, TimeUnit.MILLISECONDS));
+        assertTrue(order.isEmpty());
+        held.close();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, order.size());
+        for (int i = 0; i < 3; i ++) {
+            assertEquals(i, order.get(i).intValue());
+            // granted messages are opened on the executor, not on the thread that released the permit
+            assertEquals("tracker test executor", threads.get(i));
+        }
+    }
+
+    @Test
+    public void testTimedAcquire() throws Exception {
+        final MessageTracker tracker = new MessageTracker(channel.channel, 1, executor);
+        final MessageOutputStream held = tracker.openMessage();
+        final long start = System.nanoTime();
+        assertNull(tracker.openMessage(50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        held.close();
+        // the timed out waiter did not keep a place in the queue or a permit
+        final MessageOutputStream next = tracker.openMessage(0, TimeUnit.MILLISECONDS);
+        assertNotNull(next);
+        next.close();
+        assertEquals(2, channel.messages.size());
+    }
+
+    @Test
+    public void testAsyncCancel() throws Exception {
+        final MessageTracker tracker = new MessageTracker(channel.channel, 1, executor);
+        final MessageOutputStream held = tracker.openMessage();
+        final CompletableFuture<MessageOutputStream> cancelled = tracker.openMessageAsync().toCompletableFuture();
+        assertTrue(cancelled.cancel(false));
+        held.close();
+        // the permit goes back to the pool rather than to the cancelled request
+        final MessageOutputStream next = tracker.openMessage(0, TimeUnit.MILLISECONDS);
+        assertNotNull(next);
+        next.close();
+        assertEquals(2, channel.messages.size());
+    }
+
+    @Test
+    public void testPermitsAfterFailure() throws Exception {
+        final MessageTracker tracker = new MessageTracker(channel.channel, 1, executor);
+        final IOException failure = new IOException("Refused");
+        channel.writeFailure = failure;
+        try {
+            tracker.openMessage();
+            fail("Expected failure");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+        channel.writeFailure = null;
+        // the failed open returned its permit
+        final MessageOutputStream message = tracker.openMessage(0, TimeUnit.MILLISECONDS);
+        assertNotNull(message);
+        assertNull(tracker.openMessage(0, TimeUnit.MILLISECONDS));
+        message.close();
+    }
+
+    @Test
+    public void testAsyncFailure() throws Exception {
+        final MessageTracker tracker = new MessageTracker(channel.channel, 1, executor);
+        final MessageOutputStream held = tracker.openMessage();
+        final CompletableFuture<MessageOutputStream> future = tracker.openMessageAsync().toCompletableFuture();
+        final IOException failure = new IOException("Refused");
+        channel.writeFailure = failure;
+        held.close();
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        channel.writeFailure = null;
+        final MessageOutputStream next = tracker.openMessage(0, TimeUnit.MILLISECONDS);
+        assertNotNull(next);
+        // closing twice returns the permit only once
+        next.close();
+        next.close();
+        final MessageOutputStream first = tracker.openMessage(0, TimeUnit.MILLISECONDS);
+        assertNotNull(first);
+        assertNull(tracker.openMessage(0, TimeUnit.MILLISECONDS));
+        assertFalse(future.isCancelled());
+        first.close();
+    }
+
+    @Test
+    public void testAsyncUncheckedFailure() throws Exception {
+        final MessageTracker tracker = new MessageTracker(channel.channel, 1, executor);
+        final IllegalStateException failure = new IllegalStateException("Broken");
+        channel.writeFailure = failure;
+        // a permit is available, so the message is opened immediately
+        final CompletableFuture<MessageOutputStream> immediate = tracker.openMessageAsync().toCompletableFuture();
+        assertTrue(immediate.isCompletedExceptionally());
+        channel.writeFailure = null;
+        final MessageOutputStream held = tracker.openMessage();
+        // no permit is available, so the message is opened once the held one is closed
+        final CompletableFuture<MessageOutputStream> queued = tracker.openMessageAsync().toCompletableFuture();
+        channel.writeFailure = failure;
+        held.close();
+        try {
+            queued.get(10, TimeUnit.SECONDS);
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        channel.writeFailure = null;
+        // both failed opens returned their permit
+        final MessageOutputStream next = tracker.openMessage(0, TimeUnit.MILLISECONDS);
+        assertNotNull(next);
+        next.close();
+    }
+}
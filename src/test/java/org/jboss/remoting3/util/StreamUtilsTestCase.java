@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class StreamUtilsTestCase {
+
+    private static final int[] INTS = { 0, 1, 0x7f, 0x80, 0x3fff, 0x4000, 0x1f_ffff, 0x20_0000, 0x0fff_ffff, 0x1000_0000, Integer.MAX_VALUE, -1, Integer.MIN_VALUE };
+
+    @Test
+    public void testPackedStreamRoundTrip() throws IOException {
+        for (int val : INTS) {
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            StreamUtils.writePackedUnsignedInt32(os, val);
+            assertEquals(StreamUtils.packedUnsignedInt32Length(val), os.size());
+            assertEquals(val, StreamUtils.readPackedUnsignedInt32(new ByteArrayInputStream(os.toByteArray())));
+            final ByteArrayOutputStream os31 = new ByteArrayOutputStream();
+            StreamUtils.writePackedUnsignedInt31(os31, val);
+            assertEquals(val & 0x7fff_ffff, StreamUtils.readPackedUnsignedInt31(new ByteArrayInputStream(os31.toByteArray())));
+        }
+    }
+
+    @Test
+    public void testPackedWireFormat() throws IOException {
+        // pins the byte order: most significant group first, continuation bit on every byte but the last
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        StreamUtils.writePackedUnsignedInt32(os, 0x7f);
+        StreamUtils.writePackedUnsignedInt32(os, 300);
+        StreamUtils.writePackedUnsignedInt32(os, -1);
+        assertArrayEquals(new byte[] { 0x7f, (byte) 0x82, 0x2c, (byte) 0x8f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x7f }, os.toByteArray());
+    }
+
+    @Test
+    public void testPackedBufferMatchesStream() throws IOException {
+        for (int val : INTS) {
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            StreamUtils.writePackedUnsignedInt32(os, val);
+            final ByteBuffer buf = ByteBuffer.allocate(5);
+            StreamUtils.writePackedUnsignedInt32(buf, val);
+            buf.flip();
+            assertEquals(ByteBuffer.wrap(os.toByteArray()), buf);
+            assertEquals(val, StreamUtils.readPackedUnsignedInt32(buf));
+            assertEquals(0, buf.remaining());
+        }
+    }
+
+    @Test
+    public void testPackedArrayMatchesStream() throws IOException {
+        for (int val : INTS) {
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            StreamUtils.writePackedUnsignedInt32(os, val);
+            final byte[] bytes = new byte[6];
+            assertEquals(1 + os.size(), StreamUtils.writePackedUnsignedInt32(bytes, 1, val));
+            assertArrayEquals(os.toByteArray(), Arrays.copyOfRange(bytes, 1, 1 + os.size()));
+        }
+    }
+
+    @Test
+    public void testMessageStreamCodecs() throws IOException {
+        final TestStreams.Out out = new TestStreams.Out();
+        for (int val : INTS) {
+            out.writePackedUnsignedInt32(val);
+            out.writePackedUnsignedInt31(val);
+            out.writeInt(val);
+            out.writeLong((long) val << 17 ^ 0x0123456789abcdefL);
+        }
+        final byte[] bytes = out.toByteArray();
+        final TestStreams.In in = new TestStreams.In(bytes);
+        final ByteArrayInputStream is = new ByteArrayInputStream(bytes);
+        for (int val : INTS) {
+            assertEquals(val, in.readPackedUnsignedInt32());
+            assertEquals(val & 0x7fff_ffff, in.readPackedUnsignedInt31());
+            assertEquals(val, in.readInt());
+            assertEquals((long) val << 17 ^ 0x0123456789abcdefL, in.readLong());
+            // the message streams use the same encodings as the stream helpers
+            assertEquals(val, StreamUtils.readPackedUnsignedInt32(is));
+            assertEquals(val & 0x7fff_ffff, StreamUtils.readPackedUnsignedInt31(is));
+            assertEquals(val, StreamUtils.readInt32BE(is));
+            assertEquals((long) val << 17 ^ 0x0123456789abcdefL, (long) StreamUtils.readInt32BE(is) << 32 | StreamUtils.readInt32BE(is) & 0xffff_ffffL);
+        }
+        assertEquals(-1, in.read());
+        try {
+            in.readInt();
+            fail("Expected EOF");
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFixedWidthBuffer() throws IOException {
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+            final ByteBuffer buf = ByteBuffer.allocate(32).order(order);
+            StreamUtils.writeInt16BE(buf, 0xfedc);
+            StreamUtils.writeInt16LE(buf, 0xfedc);
+            StreamUtils.writeInt32BE(buf, 0x89abcdef);
+            StreamUtils.writeInt32LE(buf, 0x89abcdef);
+            StreamUtils.writeInt64BE(buf, 0x0123456789abcdefL);
+            StreamUtils.writeInt64LE(buf, 0x0123456789abcdefL);
+            buf.flip();
+            final byte[] bytes = new byte[buf.remaining()];
+            buf.duplicate().get(bytes);
+            final ByteArrayInputStream is = new ByteArrayInputStream(bytes);
+            assertEquals(0xfedc, StreamUtils.readInt16BE(is));
+            assertEquals(0xfedc, StreamUtils.readInt16LE(is));
+            assertEquals(0x89abcdef, StreamUtils.readInt32BE(is));
+            assertEquals(0x89abcdef, StreamUtils.readInt32LE(is));
+            assertEquals(0xfedc, StreamUtils.readInt16BE(buf));
+            assertEquals(0xfedc, StreamUtils.readInt16LE(buf));
+            assertEquals(0x89abcdef, StreamUtils.readInt32BE(buf));
+            assertEquals(0x89abcdef, StreamUtils.readInt32LE(buf));
+            assertEquals(0x0123456789abcdefL, StreamUtils.readInt64BE(buf));
+            assertEquals(0x0123456789abcdefL, StreamUtils.readInt64LE(buf));
+            assertEquals(0x0123456789abcdefL, StreamUtils.readInt64BE(bytes, 12));
+        }
+    }
+
+    @Test
+    public void testFixedWidthArray() {
+        final byte[] bytes = new byte[14];
+        StreamUtils.writeInt16BE(bytes, 0, 0xfedc);
+        StreamUtils.writeInt32BE(bytes, 2, 0x89abcdef);
+        StreamUtils.writeInt64BE(bytes, 6, 0x0123456789abcdefL);
+        assertEquals(0xfedc, StreamUtils.readInt16BE(bytes, 0));
+        assertEquals(0x89abcdef, StreamUtils.readInt32BE(bytes, 2));
+        assertEquals(0x0123456789abcdefL, StreamUtils.readInt64BE(bytes, 6));
+        assertEquals(0x0123456789abcdefL, StreamUtils.readInt64BE(ByteBuffer.wrap(bytes, 6, 8)));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jboss.remoting3.Channel;
+import org.jboss.remoting3.CloseHandler;
+import org.jboss.remoting3.HandleableCloseable;
+
+/**
+ * A channel without a connection, whose outbound messages are kept in memory.  Only the methods used by the util
+ * classes are implemented; everything else returns {@code null}.
+ */
+final class TestChannel {
+    final List<CloseHandler<? super Channel>> closeHandlers = new CopyOnWriteArrayList<>();
+    final List<TestStreams.Out> messages = new CopyOnWriteArrayList<>();
+    final Channel channel;
+    volatile Exception writeFailure;
+
+    @SuppressWarnings("unchecked")
+    TestChannel() {
+        channel = (Channel) Proxy.newProxyInstance(TestChannel.class.getClassLoader(), new Class<?>[] { Channel.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "addCloseHandler": {
+                    closeHandlers.add((CloseHandler<? super Channel>) args[0]);
+                    return (HandleableCloseable.Key) () -> {};
+                }
+                case "writeMessage": {
+                    final Exception writeFailure = this.writeFailure;
+                    if (writeFailure != null) {
+                        throw writeFailure;
+                    }
+                    final TestStreams.Out out = new TestStreams.Out();
+                    messages.add(out);
+                    return out;
+                }
+                case "hashCode": {
+                    return Integer.valueOf(System.identityHashCode(proxy));
+                }
+                case "equals": {
+                    return Boolean.valueOf(proxy == args[0]);
+                }
+                default: {
+                    return null;
+                }
+            }
+        });
+    }
+
+    void close(final IOException exception) {
+        for (CloseHandler<? super Channel> handler : closeHandlers) {
+            handler.handleClose(channel, exception);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jboss.remoting3.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.jboss.remoting3.MessageInputStream;
+import org.jboss.remoting3.MessageOutputStream;
+
+/**
+ * In-memory message streams for tests which do not need a real channel.
+ */
+final class TestStreams {
+
+    private TestStreams() {
+    }
+
+    static final class In extends MessageInputStream {
+        private final ByteArrayInputStream delegate;
+        volatile boolean closed;
+
+        In(final byte[] bytes) {
+            delegate = new ByteArrayInputStream(bytes);
+        }
+
+        In() {
+            this(new byte[0]);
+        }
+
+        public int read() throws IOException {
+            return delegate.read();
+        }
+
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return delegate.read(b, off, len);
+        }
+
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+
+    static final class Out extends MessageOutputStream {
+        final ByteArrayOutputStream delegate = new ByteArrayOutputStream();
+        volatile boolean closed;
+        volatile boolean cancelled;
+
+        public void write(final int b) throws IOException {
+            delegate.write(b);
+        }
+
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        public void flush() throws IOException {
+        }
+
+        public void close() throws IOException {
+            closed = true;
+        }
+
+        public MessageOutputStream cancel() {
+            cancelled = true;
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return delegate.toByteArray();
+        }
+    }
+}